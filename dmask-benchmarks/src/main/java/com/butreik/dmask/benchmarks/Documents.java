@@ -0,0 +1,119 @@
+package com.butreik.dmask.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the JSON documents and filter paths used by the benchmarks.
+ * <p>
+ * Every document is an object with an {@code items} array of records. In a flat document each record is
+ * an element of the array, in a deep document records are chained through the {@code child} property,
+ * {@link #DEEP_LEVELS} records per chain. Documents are generated with a fixed seed, so runs are comparable.
+ *
+ * @author Vladimir Rudnev
+ */
+public final class Documents {
+
+    /**
+     * The number of records chained in each element of a deep document.
+     */
+    static final int DEEP_LEVELS = 16;
+
+    /**
+     * The properties of a record that are matched by filters.
+     */
+    static final List<String> MASKED_FIELDS = List.of("password", "email", "login", "phone", "amount",
+            "birthday", "createdAt", "note");
+
+    private Documents() {
+    }
+
+    /**
+     * Document sizes, as the number of records.
+     */
+    public enum Size {
+        SMALL(2), MEDIUM(200), LARGE(5000);
+
+        private final int records;
+
+        Size(int records) {
+            this.records = records;
+        }
+    }
+
+    /**
+     * Document shapes.
+     */
+    public enum Shape {
+        FLAT, DEEP
+    }
+
+    /**
+     * Generates a document.
+     *
+     * @param size  the number of records.
+     * @param shape the shape of the document.
+     * @return the JSON text.
+     */
+    static String generate(Size size, Shape shape) {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\"requestId\":\"").append(Long.toHexString(random.nextLong()))
+                .append("\",\"items\":[");
+        int levels = shape == Shape.DEEP ? DEEP_LEVELS : 1;
+        for (int i = 0; i < size.records; i += levels) {
+            if (i > 0) {
+                json.append(',');
+            }
+            int chain = Math.min(levels, size.records - i);
+            for (int level = 0; level < chain; level++) {
+                if (level > 0) {
+                    json.append(",\"child\":");
+                }
+                record(json, i + level, random);
+            }
+            json.append("}".repeat(chain));
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Returns the JSON paths matching the specified property in every record of a document.
+     *
+     * @param field    the property name.
+     * @param shape    the shape of the document.
+     * @param deepScan whether a single deep scan path is used instead of definite paths.
+     * @return the JSON paths.
+     */
+    static List<String> paths(String field, Shape shape, boolean deepScan) {
+        if (deepScan) {
+            return List.of("$.." + field);
+        }
+        List<String> paths = new ArrayList<>();
+        StringBuilder prefix = new StringBuilder("$.items[*]");
+        int levels = shape == Shape.DEEP ? DEEP_LEVELS : 1;
+        for (int level = 0; level < levels; level++) {
+            paths.add(prefix + "." + field);
+            prefix.append(".child");
+        }
+        return paths;
+    }
+
+    /**
+     * Appends a record without its closing brace.
+     */
+    private static void record(StringBuilder json, int id, Random random) {
+        json.append("{\"id\":").append(id)
+                .append(",\"login\":\"user").append(id).append('"')
+                .append(",\"email\":\"user").append(id).append("@example.com\"")
+                .append(",\"password\":\"").append(Long.toString(random.nextLong() & Long.MAX_VALUE, 36)).append('"')
+                .append(",\"phone\":\"+1").append(1_000_000_000L + random.nextInt(1_000_000_000)).append('"')
+                .append(",\"amount\":").append(random.nextInt(100_000) / 100.0)
+                .append(",\"birthday\":\"19").append(50 + random.nextInt(50)).append("-0").append(1 + random.nextInt(9))
+                .append("-1").append(random.nextInt(10)).append('"')
+                .append(",\"createdAt\":\"2023-02-1").append(random.nextInt(10)).append("T10:15:30Z\"")
+                .append(",\"active\":").append(random.nextBoolean())
+                .append(",\"tags\":[\"a\",\"b\",\"c\"]")
+                .append(",\"note\":\"Lorem ipsum dolor sit amet, consectetur adipiscing elit\"");
+    }
+}
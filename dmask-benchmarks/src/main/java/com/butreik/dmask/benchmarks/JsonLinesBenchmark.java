@@ -0,0 +1,63 @@
+package com.butreik.dmask.benchmarks;
+
+import com.butreik.dmask.core.JsonLinesMask;
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.Maskers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JsonLinesMask} over JSON Lines of small documents, masked sequentially and in parallel.
+ *
+ * @author Vladimir Rudnev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonLinesBenchmark {
+
+    private static final int LINES = 20_000;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private JsonLinesMask jsonLinesMask;
+    private String input;
+
+    @Setup
+    public void setup() {
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder();
+        builder.filter(Maskers.SECRET_MASKER, "$..password");
+        builder.filter(Maskers.EMAIL_MASKER, "$..email");
+        builder.filter(Maskers.NUMBER_MASKER, "$..amount");
+        jsonLinesMask = JsonLinesMask.builder(builder.build()).parallelism(parallelism).build();
+        String line = Documents.generate(Documents.Size.SMALL, Documents.Shape.FLAT).replace('\n', ' ');
+        StringBuilder lines = new StringBuilder(LINES * (line.length() + 1));
+        for (int i = 0; i < LINES; i++) {
+            lines.append(line).append('\n');
+        }
+        input = lines.toString();
+    }
+
+    @Benchmark
+    public long mask() throws IOException {
+        return jsonLinesMask.mask(new StringReader(input), Writer.nullWriter());
+    }
+}
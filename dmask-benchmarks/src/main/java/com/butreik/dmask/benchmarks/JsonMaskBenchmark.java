@@ -0,0 +1,121 @@
+package com.butreik.dmask.benchmarks;
+
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.Masker;
+import com.butreik.dmask.core.Maskers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JsonMask#mask(String)} over documents of different size and shape,
+ * with few or many filters using deep scan or definite JSON paths.
+ *
+ * @author Vladimir Rudnev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMaskBenchmark {
+
+    /**
+     * The maskers applied to the properties of a record.
+     */
+    private static final Map<String, Masker> MASKERS = Map.of(
+            "password", Maskers.SECRET_MASKER,
+            "email", Maskers.EMAIL_MASKER,
+            "login", Maskers.EXCEPT_FIRST_CHARACTER_MASKER,
+            "phone", Maskers.REPLACE_STRING_MASKER,
+            "amount", Maskers.NUMBER_MASKER,
+            "birthday", Maskers.ISO_LOCAL_DATE_MASKER,
+            "createdAt", Maskers.ISO_INSTANT_MASKER,
+            "note", Maskers.REMOVE_MASKER);
+
+    /**
+     * The number of filters on properties that do not occur in documents, added to {@code MANY} filters.
+     */
+    private static final int ABSENT_FIELDS = 24;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    private Documents.Size size;
+
+    @Param({"FLAT", "DEEP"})
+    private Documents.Shape shape;
+
+    @Param({"FEW", "MANY"})
+    private FilterSet filters;
+
+    @Param({"DEEP_SCAN", "DEFINITE"})
+    private PathKind paths;
+
+    @Param({"DOM", "JACKSON", "STREAMING"})
+    private Engine engine;
+
+    private JsonMask jsonMask;
+    private String document;
+
+    /**
+     * The number of filters applied to each record.
+     */
+    public enum FilterSet {
+        FEW, MANY
+    }
+
+    /**
+     * The kind of JSON paths used by filters.
+     */
+    public enum PathKind {
+        DEEP_SCAN, DEFINITE
+    }
+
+    /**
+     * The masking engine: {@link JsonMaskImpl} with the default or the Jackson provider, or {@code StreamingJsonMask}.
+     */
+    public enum Engine {
+        DOM, JACKSON, STREAMING
+    }
+
+    @Setup
+    public void setup() {
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder();
+        List<String> fields = filters == FilterSet.FEW
+                ? Documents.MASKED_FIELDS.subList(0, 3)
+                : Documents.MASKED_FIELDS;
+        for (String field : fields) {
+            builder.filter(MASKERS.get(field), b -> b.jsonPath(Documents.paths(field, shape, paths == PathKind.DEEP_SCAN)));
+        }
+        if (filters == FilterSet.MANY) {
+            for (int i = 0; i < ABSENT_FIELDS; i++) {
+                String field = "absent" + i;
+                builder.filter(Maskers.SECRET_MASKER, b -> b.jsonPath(Documents.paths(field, shape, paths == PathKind.DEEP_SCAN)));
+            }
+        }
+        if (engine == Engine.JACKSON) {
+            builder.objectMapper(new ObjectMapper());
+        }
+        jsonMask = engine == Engine.STREAMING ? builder.buildStreaming() : builder.build();
+        document = Documents.generate(size, shape);
+    }
+
+    @Benchmark
+    public String mask() {
+        return jsonMask.mask(document);
+    }
+}
@@ -0,0 +1,68 @@
+package com.butreik.dmask.benchmarks;
+
+import com.butreik.dmask.core.MapFunction;
+import com.butreik.dmask.core.MapFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the map functions created by every {@link MapFunctions} factory on strings of different length.
+ *
+ * @author Vladimir Rudnev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapFunctionsBenchmark {
+
+    @Param({"maskEmail", "maskExceptFirstCharacter", "maskMiddleCharactersMaskers"})
+    private String factory;
+
+    @Param({"16", "256", "4096"})
+    private int length;
+
+    private MapFunction mapFunction;
+    private String input;
+
+    @Setup
+    public void setup() {
+        switch (factory) {
+            case "maskEmail":
+                mapFunction = MapFunctions.maskEmail();
+                break;
+            case "maskExceptFirstCharacter":
+                mapFunction = MapFunctions.maskExceptFirstCharacter();
+                break;
+            case "maskMiddleCharactersMaskers":
+                mapFunction = MapFunctions.maskMiddleCharactersMaskers(2, length - 4);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown factory " + factory);
+        }
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        value.setCharAt(length / 2, '@');
+        input = value.toString();
+    }
+
+    @Benchmark
+    public Object map() {
+        return mapFunction.map(input);
+    }
+}
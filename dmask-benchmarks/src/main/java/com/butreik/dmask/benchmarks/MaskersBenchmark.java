@@ -0,0 +1,68 @@
+package com.butreik.dmask.benchmarks;
+
+import com.butreik.dmask.core.MapFunction;
+import com.butreik.dmask.core.Masker;
+import com.butreik.dmask.core.Maskers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the map function of every masker declared in {@link Maskers} on a typical input value.
+ *
+ * @author Vladimir Rudnev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MaskersBenchmark {
+
+    /**
+     * Typical input values of the maskers, the default is used for the rest.
+     */
+    private static final Map<String, Object> INPUTS = Map.of(
+            "NUMBER_MASKER", 123456.78,
+            "EMAIL_MASKER", "julius.caesar@example.com",
+            "ISO_OFFSET_DATE_MASKER", "2022-02-15+01:00",
+            "ISO_OFFSET_TIME_MASKER", "01:23:45+01:00",
+            "ISO_OFFSET_DATE_TIME", "2022-02-15T01:23:45+01:00",
+            "ISO_LOCAL_DATE_MASKER", "2022-02-15",
+            "ISO_LOCAL_TIME_MASKER", "01:23:45",
+            "ISO_LOCAL_DATE_TIME_MASKER", "2022-02-15T01:23:45",
+            "ISO_INSTANT_MASKER", "2022-02-15T01:23:45Z");
+
+    private static final String DEFAULT_INPUT = "Qwerty123";
+
+    @Param({"REMOVE_MASKER", "NUMBER_MASKER", "SECRET_MASKER", "REPLACE_STRING_MASKER", "EMAIL_MASKER",
+            "EXCEPT_FIRST_CHARACTER_MASKER", "ISO_OFFSET_DATE_MASKER", "ISO_OFFSET_TIME_MASKER", "ISO_OFFSET_DATE_TIME",
+            "ISO_LOCAL_DATE_MASKER", "ISO_LOCAL_TIME_MASKER", "ISO_LOCAL_DATE_TIME_MASKER", "ISO_INSTANT_MASKER"})
+    private String masker;
+
+    private MapFunction mapFunction;
+    private Object input;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        mapFunction = ((Masker) Maskers.class.getField(masker).get(null)).getMapFunction();
+        input = INPUTS.getOrDefault(masker, DEFAULT_INPUT);
+    }
+
+    @Benchmark
+    public Object map() {
+        return mapFunction.map(input);
+    }
+}
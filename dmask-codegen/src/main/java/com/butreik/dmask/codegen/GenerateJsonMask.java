@@ -0,0 +1,80 @@
+package com.butreik.dmask.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@link com.butreik.dmask.core.JsonMask} of static masking rules at build time.
+ * <p>
+ * The rules are read from YAML files in the format of {@code bmask.yaml} and from the {@link #maskers()}
+ * and {@link #keys()} of the annotation, which can annotate the {@code JsonMaskConfigurer} of the same rules
+ * or any other type. {@link JsonMaskProcessor} compiles them into a class in the package of the annotated type,
+ * which extends {@link com.butreik.dmask.core.GeneratedJsonMask} and masks documents
+ * like a {@link com.butreik.dmask.core.JsonMaskImpl} of the same rules, without interpreting JSON paths.
+ * <pre>
+ * &#64;GenerateJsonMask(name = "OrderJsonMask", rules = "bmask.yaml",
+ *         keys = &#64;GenerateJsonMask.Rule(masker = "secret-masker", values = "token"))
+ * public class OrderMaskConfigurer implements JsonMaskConfigurer { ... }
+ * </pre>
+ * Maskers of {@link com.butreik.dmask.core.Maskers} are referenced by name. Other maskers are passed to the
+ * constructor of the generated class and must have the default order {@code 0}.
+ *
+ * @author Vladimir Rudnev
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateJsonMask {
+
+    /**
+     * The simple name of the generated class.
+     *
+     * @return the class name.
+     */
+    String name();
+
+    /**
+     * The YAML files of rules, looked up in the class output, the source path and the class path of the compilation.
+     * Resources of the project are in the class output when its sources are compiled.
+     *
+     * @return the names of the rule files.
+     */
+    String[] rules() default {};
+
+    /**
+     * JSON paths masked by a masker, like {@code json-mask.maskers} of a rule file.
+     *
+     * @return the masker rules.
+     */
+    Rule[] maskers() default {};
+
+    /**
+     * Property names masked at any depth by a masker, like {@code json-mask.keys} of a rule file.
+     *
+     * @return the key rules.
+     */
+    Rule[] keys() default {};
+
+    /**
+     * JSON paths or property names masked by a masker.
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @Target({})
+    @interface Rule {
+
+        /**
+         * The masker name.
+         *
+         * @return the masker name.
+         */
+        String masker();
+
+        /**
+         * The JSON paths or property names.
+         *
+         * @return the values.
+         */
+        String[] values();
+    }
+}
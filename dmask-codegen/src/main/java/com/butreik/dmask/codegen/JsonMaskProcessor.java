@@ -0,0 +1,152 @@
+package com.butreik.dmask.codegen;
+
+import com.butreik.dmask.core.MapFunction;
+import com.butreik.dmask.core.MaskAutomaton;
+import com.butreik.dmask.core.Masker;
+import com.butreik.dmask.core.Maskers;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the masks of the types annotated with {@link GenerateJsonMask}.
+ * <p>
+ * The rules are compiled into a {@link MaskAutomaton} exactly as a {@link com.butreik.dmask.core.JsonMaskImpl}
+ * compiles them, and {@link JsonMaskSourceWriter} writes a class of the automaton. Rules that cannot be compiled,
+ * such as JSON paths with filter expressions or property names ignoring case, are reported as compilation errors
+ * on the annotated type.
+ *
+ * @author Vladimir Rudnev
+ */
+@SupportedAnnotationTypes("com.butreik.dmask.codegen.GenerateJsonMask")
+public class JsonMaskProcessor extends AbstractProcessor {
+
+    /**
+     * Placeholder of the map functions of maskers that are passed to the generated mask, only its order is compiled.
+     */
+    private static final MapFunction PLACEHOLDER = value -> value;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateJsonMask.class)) {
+            try {
+                generate(element, element.getAnnotation(GenerateJsonMask.class));
+            } catch (IllegalArgumentException | UncheckedIOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot generate the JSON mask: " + e.getMessage(), element);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write the JSON mask: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(Element element, GenerateJsonMask annotation) throws IOException {
+        RuleSet rules = new RuleSet();
+        List<String> sources = new ArrayList<>();
+        for (String resource : annotation.rules()) {
+            try (InputStream input = openResource(resource)) {
+                rules.load(input);
+            }
+            sources.add(resource);
+        }
+        for (GenerateJsonMask.Rule rule : annotation.maskers()) {
+            rules.masker(rule.masker(), rule.values());
+        }
+        for (GenerateJsonMask.Rule rule : annotation.keys()) {
+            rules.key(rule.masker(), rule.values());
+        }
+        if (annotation.maskers().length > 0 || annotation.keys().length > 0) {
+            sources.add("{@code " + element.getSimpleName() + "}");
+        }
+
+        Map<String, Masker> maskers = predefinedMaskers();
+        for (String name : rules.maskerNames()) {
+            maskers.computeIfAbsent(name, n -> Masker.builder().name(n).mapFunction(PLACEHOLDER).build());
+        }
+        MaskAutomaton automaton = rules.builder(maskers).buildAutomaton();
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+        String className = packageName.isEmpty() ? annotation.name() : packageName + "." + annotation.name();
+        String source = new JsonMaskSourceWriter(packageName, annotation.name(), String.join(" and ", sources),
+                automaton, predefinedConstants()).write();
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(className, element);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    /**
+     * Opens a rule file in the class output, where the resources of the project are copied before compilation,
+     * in the source path or in the class path.
+     */
+    private InputStream openResource(String resource) throws IOException {
+        IOException notFound = null;
+        for (StandardLocation location : List.of(
+                StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_PATH, StandardLocation.CLASS_PATH)) {
+            try {
+                FileObject file = processingEnv.getFiler().getResource(location, "", resource);
+                return file.openInputStream();
+            } catch (IOException | IllegalArgumentException e) {
+                notFound = notFound != null ? notFound : new IOException("Rules " + resource + " are not found");
+                notFound.addSuppressed(e);
+            }
+        }
+        throw notFound;
+    }
+
+    /**
+     * Returns the maskers of {@link Maskers} by name.
+     */
+    static Map<String, Masker> predefinedMaskers() {
+        Map<String, Masker> maskers = new HashMap<>();
+        predefinedConstants().forEach((name, constant) -> maskers.put(name, constant(constant)));
+        return maskers;
+    }
+
+    /**
+     * Returns the names of the constants of {@link Maskers} by masker name.
+     */
+    static Map<String, String> predefinedConstants() {
+        Map<String, String> constants = new HashMap<>();
+        for (Field field : Maskers.class.getFields()) {
+            if (field.getType() == Masker.class && Modifier.isStatic(field.getModifiers())) {
+                constants.put(constant(field.getName()).getName(), field.getName());
+            }
+        }
+        return constants;
+    }
+
+    private static Masker constant(String name) {
+        try {
+            return (Masker) Maskers.class.getField(name).get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.butreik.dmask.codegen;
+
+import com.butreik.dmask.core.MaskAutomaton;
+import com.butreik.dmask.core.Masker;
+import com.butreik.dmask.core.Maskers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * Writes the source code of a {@link com.butreik.dmask.core.GeneratedJsonMask} of an automaton.
+ * <p>
+ * Every reachable state of the automaton becomes a method masking a node in that state: property names
+ * are matched by a {@code switch} on the name, array indexes by a {@code switch} on the index, and the map functions
+ * of the maskers of the state are called directly. Maskers of {@link Maskers} are referenced as constants,
+ * the other maskers are looked up by name in the constructor.
+ *
+ * @author Vladimir Rudnev
+ */
+final class JsonMaskSourceWriter {
+
+    /**
+     * The maximum number of states of a generated class, which keeps it within the limits of a class file.
+     */
+    static final int MAX_STATES = 2_000;
+
+    private static final String INDENT = "    ";
+
+    private final String packageName;
+    private final String className;
+    private final String description;
+    private final MaskAutomaton automaton;
+    private final Map<String, String> predefined;
+    private final Map<String, Integer> maskerIds = new LinkedHashMap<>();
+    private final Map<String, Masker> maskers = new LinkedHashMap<>();
+    private final StringBuilder source = new StringBuilder();
+
+    /**
+     * Creates a writer.
+     *
+     * @param packageName the package of the generated class, empty for the unnamed package.
+     * @param className   the simple name of the generated class.
+     * @param description the description of the rules for the class comment.
+     * @param automaton   the automaton of the rules.
+     * @param predefined  the names of the {@link Maskers} constants by masker name.
+     * @throws IllegalArgumentException if the automaton has too many states.
+     */
+    JsonMaskSourceWriter(String packageName, String className, String description, MaskAutomaton automaton,
+                         Map<String, String> predefined) {
+        assertTrue(automaton.size() <= MAX_STATES,
+                () -> "The rules produce more than " + MAX_STATES + " states, which is too many for generated code");
+        this.packageName = packageName;
+        this.className = className;
+        this.description = description;
+        this.automaton = automaton;
+        this.predefined = predefined;
+        for (int state = 0; state < automaton.size(); state++) {
+            for (Masker masker : automaton.maskers(state)) {
+                maskerIds.putIfAbsent(masker.getName(), maskerIds.size());
+                maskers.putIfAbsent(masker.getName(), masker);
+            }
+        }
+    }
+
+    /**
+     * Writes the source code.
+     *
+     * @return the source code of the class.
+     */
+    String write() {
+        if (!packageName.isEmpty()) {
+            line(0, "package " + packageName + ";");
+            line(0, "");
+        }
+        line(0, "import com.butreik.dmask.core.GeneratedJsonMask;");
+        line(0, "import com.butreik.dmask.core.MapFunction;");
+        line(0, "import com.butreik.dmask.core.MaskListener;");
+        line(0, "import com.butreik.dmask.core.Masker;");
+        line(0, "import com.butreik.dmask.core.Maskers;");
+        line(0, "");
+        line(0, "import java.util.Iterator;");
+        line(0, "import java.util.List;");
+        line(0, "import java.util.Map;");
+        line(0, "");
+        line(0, "/**");
+        line(0, " * Masks JSON documents with the rules of " + description + ".");
+        line(0, " * Generated by dmask-codegen, do not edit.");
+        line(0, " */");
+        line(0, "@javax.annotation.processing.Generated(\"" + JsonMaskProcessor.class.getName() + "\")");
+        line(0, "@SuppressWarnings({\"unchecked\", \"unused\"})");
+        line(0, "public final class " + className + " extends GeneratedJsonMask {");
+        line(0, "");
+        maskerIds.forEach((name, id) -> {
+            line(1, "private final Masker m" + id + ";");
+            line(1, "private final MapFunction f" + id + ";");
+        });
+        if (!maskerIds.isEmpty()) {
+            line(0, "");
+        }
+        writeConstructors();
+        line(0, "");
+        line(1, "@Override");
+        line(1, "protected Object apply(Object document) {");
+        boolean[] reachable = reachableStates();
+        line(2, reachable[automaton.root()] ? "return s" + automaton.root() + "(document);" : "return document;");
+        line(1, "}");
+        for (int state = 0; state < automaton.size(); state++) {
+            if (reachable[state]) {
+                writeState(state);
+            }
+        }
+        line(0, "}");
+        return source.toString();
+    }
+
+    private void writeConstructors() {
+        boolean custom = maskers.keySet().stream().anyMatch(name -> !predefined.containsKey(name));
+        if (!custom) {
+            line(1, "/**");
+            line(1, " * Creates a mask without a listener.");
+            line(1, " */");
+            line(1, "public " + className + "() {");
+            line(2, "this(MaskListener.NONE);");
+            line(1, "}");
+            line(0, "");
+        }
+        line(1, "/**");
+        line(1, " * Creates a mask.");
+        line(1, " *");
+        line(1, " * @param listener the listener notified about every applied masker.");
+        line(1, " * @param maskers  the maskers referenced by the rules that are not predefined in {@link Maskers}.");
+        line(1, " * @throws IllegalArgumentException if a masker is missing or has another order than the default.");
+        line(1, " */");
+        line(1, "public " + className + "(MaskListener listener, Masker... maskers) {");
+        line(2, "super(listener);");
+        if (custom) {
+            line(2, "Map<String, Masker> byName = byName(maskers);");
+        }
+        maskerIds.forEach((name, id) -> {
+            String constant = predefined.get(name);
+            line(2, "this.m" + id + " = " + (constant != null ? "Maskers." + constant
+                    : "masker(byName, " + literal(name) + ", " + maskers.get(name).getOrder() + ")") + ";");
+            line(2, "this.f" + id + " = m" + id + ".getMapFunction();");
+        });
+        line(1, "}");
+    }
+
+    private void writeState(int state) {
+        line(0, "");
+        line(1, "private Object s" + state + "(Object node) {");
+        boolean objects = !automaton.names(state).isEmpty() || automaton.otherName(state) != MaskAutomaton.DEAD;
+        boolean arrays = !automaton.indexes(state).isEmpty() || automaton.otherIndex(state) != MaskAutomaton.DEAD;
+        if (objects) {
+            line(2, "if (node instanceof Map) {");
+            writeObject(state);
+            line(2, arrays ? "} else if (node instanceof List) {" : "}");
+        } else if (arrays) {
+            line(2, "if (node instanceof List) {");
+        }
+        if (arrays) {
+            writeArray(state);
+            line(2, "}");
+        }
+        List<Masker> stateMaskers = automaton.maskers(state);
+        if (stateMaskers.isEmpty()) {
+            line(2, "return node;");
+        } else {
+            line(2, "Object value = node;");
+            for (Masker masker : stateMaskers) {
+                int id = maskerIds.get(masker.getName());
+                line(2, "value = f" + id + ".map(value);");
+                line(2, "listener.onMasked(m" + id + ");");
+            }
+            line(2, "return value;");
+        }
+        line(1, "}");
+    }
+
+    private void writeObject(int state) {
+        line(3, "Iterator<Map.Entry<String, Object>> entries = ((Map<String, Object>) node).entrySet().iterator();");
+        line(3, "while (entries.hasNext()) {");
+        line(4, "Map.Entry<String, Object> entry = entries.next();");
+        Map<String, Integer> names = new TreeMap<>(automaton.names(state));
+        int other = automaton.otherName(state);
+        if (names.isEmpty()) {
+            objectTransition(4, other);
+        } else {
+            line(4, "switch (entry.getKey()) {");
+            for (Map.Entry<String, Integer> name : names.entrySet()) {
+                line(5, "case " + literal(name.getKey()) + ":");
+                objectTransition(6, name.getValue());
+                line(6, "break;");
+            }
+            if (other != MaskAutomaton.DEAD) {
+                line(5, "default:");
+                objectTransition(6, other);
+            }
+            line(4, "}");
+        }
+        line(3, "}");
+    }
+
+    private void objectTransition(int indent, int next) {
+        if (next == MaskAutomaton.DEAD) {
+            return;
+        }
+        if (automaton.isRemoved(next)) {
+            line(indent, "entries.remove();");
+            line(indent, "listener.onMasked(Maskers.REMOVE_MASKER);");
+        } else {
+            line(indent, "entry.setValue(s" + next + "(entry.getValue()));");
+        }
+    }
+
+    private void writeArray(int state) {
+        line(3, "List<Object> list = (List<Object>) node;");
+        line(3, "for (int index = list.size() - 1; index >= 0; index--) {");
+        Map<Integer, Integer> indexes = new TreeMap<>(automaton.indexes(state));
+        int other = automaton.otherIndex(state);
+        if (indexes.isEmpty()) {
+            arrayTransition(4, other);
+        } else {
+            line(4, "switch (index) {");
+            for (Map.Entry<Integer, Integer> index : indexes.entrySet()) {
+                line(5, "case " + index.getKey() + ":");
+                arrayTransition(6, index.getValue());
+                line(6, "break;");
+            }
+            if (other != MaskAutomaton.DEAD) {
+                line(5, "default:");
+                arrayTransition(6, other);
+            }
+            line(4, "}");
+        }
+        line(3, "}");
+    }
+
+    private void arrayTransition(int indent, int next) {
+        if (next == MaskAutomaton.DEAD) {
+            return;
+        }
+        if (automaton.isRemoved(next)) {
+            line(indent, "list.remove(index);");
+            line(indent, "listener.onMasked(Maskers.REMOVE_MASKER);");
+        } else {
+            line(indent, "list.set(index, s" + next + "(list.get(index)));");
+        }
+    }
+
+    /**
+     * Finds the states reachable from the root that have a method, which excludes the dead state
+     * and the states whose nodes are removed.
+     */
+    private boolean[] reachableStates() {
+        boolean[] reachable = new boolean[automaton.size()];
+        List<Integer> queue = new ArrayList<>();
+        queue.add(automaton.root());
+        while (!queue.isEmpty()) {
+            int state = queue.remove(queue.size() - 1);
+            if (state == MaskAutomaton.DEAD || reachable[state] || automaton.isRemoved(state)) {
+                continue;
+            }
+            reachable[state] = true;
+            queue.addAll(automaton.names(state).values());
+            queue.addAll(automaton.indexes(state).values());
+            queue.add(automaton.otherName(state));
+            queue.add(automaton.otherIndex(state));
+        }
+        return reachable;
+    }
+
+    private void line(int indent, String text) {
+        if (!text.isEmpty()) {
+            source.append(INDENT.repeat(indent)).append(text);
+        }
+        source.append('\n');
+    }
+
+    /**
+     * Returns the Java string literal of the specified text. Control characters are written as escape sequences
+     * rather than unicode escapes, since the compiler translates those before it reads the literal, so a line break
+     * would end it.
+     */
+    static String literal(String text) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c == '\b') {
+                literal.append("\\b");
+            } else if (c == '\t') {
+                literal.append("\\t");
+            } else if (c == '\n') {
+                literal.append("\\n");
+            } else if (c == '\f') {
+                literal.append("\\f");
+            } else if (c == '\r') {
+                literal.append("\\r");
+            } else if (c < 0x20) {
+                literal.append(String.format("\\%03o", (int) c));
+            } else if (c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.butreik.dmask.codegen;
+
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.Masker;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+
+/**
+ * The masking rules of a generated mask: JSON paths and property names by masker name,
+ * read from YAML files in the format of {@code bmask.yaml}.
+ *
+ * @author Vladimir Rudnev
+ */
+final class RuleSet {
+
+    private final Map<String, List<String>> maskers = new LinkedHashMap<>();
+    private final Map<String, List<String>> keys = new LinkedHashMap<>();
+    private boolean ignoreKeyCase;
+
+    /**
+     * Adds the rules of a YAML document. The {@code tokenize} properties are ignored,
+     * the {@code tokenize-masker} is passed to the generated mask like any masker that is not predefined.
+     *
+     * @param input the YAML document, which is not closed.
+     * @throws IllegalArgumentException if the document is not in the expected format.
+     */
+    void load(InputStream input) {
+        Object root = child(new Yaml().load(input), "json-mask");
+        ignoreKeyCase |= Boolean.parseBoolean(String.valueOf(child(root, "ignore-key-case")));
+        addAll(keys, child(root, "keys"), "json-mask.keys must be a map of masker names to property names");
+        addAll(maskers, child(root, "maskers"), "json-mask.maskers must be a map of masker names to JSON paths");
+    }
+
+    /**
+     * Adds JSON paths masked by a masker.
+     *
+     * @param maskerName the masker name.
+     * @param jsonPaths  the JSON paths.
+     */
+    void masker(String maskerName, String... jsonPaths) {
+        maskers.computeIfAbsent(maskerName, name -> new ArrayList<>()).addAll(Arrays.asList(jsonPaths));
+    }
+
+    /**
+     * Adds property names masked at any depth by a masker.
+     *
+     * @param maskerName the masker name.
+     * @param names      the property names.
+     */
+    void key(String maskerName, String... names) {
+        keys.computeIfAbsent(maskerName, name -> new ArrayList<>()).addAll(Arrays.asList(names));
+    }
+
+    /**
+     * Returns the names of the maskers referenced by the rules.
+     *
+     * @return the masker names.
+     */
+    Set<String> maskerNames() {
+        Set<String> names = new LinkedHashSet<>(maskers.keySet());
+        names.addAll(keys.keySet());
+        return names;
+    }
+
+    /**
+     * Creates a builder of a {@link JsonMaskImpl} of the rules.
+     *
+     * @param maskersByName the maskers referenced by the rules.
+     * @return the builder.
+     * @throws IllegalArgumentException if a referenced masker is missing.
+     */
+    JsonMaskImpl.Builder builder(Map<String, Masker> maskersByName) {
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder();
+        for (String name : maskerNames()) {
+            builder.masker(assertNotNull(maskersByName.get(name), () -> "Masker " + name + " not defined"));
+        }
+        maskers.forEach((maskerName, jsonPaths) -> jsonPaths.forEach(jsonPath -> builder.filter(maskerName, jsonPath)));
+        keys.forEach(builder::filterKey);
+        return builder.ignoreKeyCase(ignoreKeyCase);
+    }
+
+    private static void addAll(Map<String, List<String>> rules, Object map, String message) {
+        if (map == null) {
+            return;
+        }
+        if (!(map instanceof Map)) {
+            throw new IllegalArgumentException(message);
+        }
+        ((Map<?, ?>) map).forEach((maskerName, values) -> {
+            List<String> list = rules.computeIfAbsent(String.valueOf(maskerName), name -> new ArrayList<>());
+            if (values instanceof List) {
+                ((List<?>) values).forEach(value -> list.add(String.valueOf(value)));
+            } else if (values != null) {
+                list.add(String.valueOf(values));
+            }
+        });
+    }
+
+    private static Object child(Object node, String name) {
+        return node instanceof Map ? ((Map<?, ?>) node).get(name) : null;
+    }
+}
@@ -0,0 +1,9 @@
+package com.butreik.dmask.codegen;
+
+/**
+ * The rules of the generated mask checked against {@link com.butreik.dmask.core.JsonMaskImpl} on a shared corpus.
+ */
+@GenerateJsonMask(name = "CorpusJsonMask", rules = "codegen-rules.yaml",
+        keys = @GenerateJsonMask.Rule(masker = "secret-masker", values = "token"))
+class CorpusRules {
+}
@@ -0,0 +1,90 @@
+package com.butreik.dmask.codegen;
+
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.MaskListener;
+import com.butreik.dmask.core.Masker;
+import org.json.JSONException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
+
+public class GeneratedJsonMaskTest {
+
+    private static final Masker SUFFIX_MASKER = Masker.builder().name("suffix-masker")
+            .mapFunction(value -> value + "!").build();
+
+    @Test
+    public void corpusTest() throws IOException, JSONException {
+        // given
+        Map<String, Integer> expectedHits = new HashMap<>();
+        Map<String, Integer> hits = new HashMap<>();
+        JsonMask reference = referenceBuilder().listener(counter(expectedHits)).build();
+        JsonMask generated = new CorpusJsonMask(counter(hits), SUFFIX_MASKER);
+
+        for (String input : corpus()) {
+            //when
+            String expected = reference.mask(input);
+            String result = generated.mask(input);
+            byte[] bytesResult = generated.mask(input.getBytes(StandardCharsets.UTF_8));
+            //then
+            assertEquals(input, expected, result, true);
+            assertEquals(input, expected, new String(bytesResult, StandardCharsets.UTF_8), true);
+        }
+        Assertions.assertEquals(expectedHits, hits.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue() / 2)));
+    }
+
+    @Test
+    public void maskerTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CorpusJsonMask(MaskListener.NONE));
+        Masker ordered = Masker.builder().name("suffix-masker").order(1).mapFunction(value -> value).build();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CorpusJsonMask(MaskListener.NONE, ordered));
+    }
+
+    @Test
+    public void literalTest() {
+        Assertions.assertEquals("\"a\\nb\\t\\\"\\\\\\0012\\u00e9\"", JsonMaskSourceWriter.literal("a\nb\t\"\\\u00012\u00e9"));
+    }
+
+    @Test
+    public void unsupportedRulesTest() {
+        RuleSet filterExpression = new RuleSet();
+        filterExpression.masker("secret-masker", "$.items[?(@.price > 100)].card");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> filterExpression
+                .builder(JsonMaskProcessor.predefinedMaskers())
+                .buildAutomaton());
+    }
+
+    private static JsonMaskImpl.Builder referenceBuilder() throws IOException {
+        RuleSet rules = new RuleSet();
+        try (InputStream input = GeneratedJsonMaskTest.class.getResourceAsStream("/codegen-rules.yaml")) {
+            rules.load(input);
+        }
+        rules.key("secret-masker", "token");
+        Map<String, Masker> maskers = JsonMaskProcessor.predefinedMaskers();
+        maskers.put(SUFFIX_MASKER.getName(), SUFFIX_MASKER);
+        return rules.builder(maskers);
+    }
+
+    private static List<String> corpus() throws IOException {
+        try (InputStream input = GeneratedJsonMaskTest.class.getResourceAsStream("/corpus.jsonl")) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.isBlank())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static MaskListener counter(Map<String, Integer> hits) {
+        return masker -> hits.merge(masker.getName(), 1, Integer::sum);
+    }
+}
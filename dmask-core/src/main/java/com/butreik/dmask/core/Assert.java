@@ -103,4 +103,19 @@ public class Assert {
         }
         throw new IllegalArgumentException("Condition expected to be true");
     }
+
+    /**
+     * Checks that the given condition is true, and throws an IllegalArgumentException with the message provided by the
+     * supplier if it is false.
+     *
+     * @param condition the condition to check for truth
+     * @param message a supplier function that provides the exception message if the condition is false
+     * @throws IllegalArgumentException if the input condition is false
+     */
+    public static void assertTrue(boolean condition, Supplier<String> message) {
+        if (condition) {
+            return;
+        }
+        throw new IllegalArgumentException(message.get());
+    }
 }
@@ -0,0 +1,258 @@
+package com.butreik.dmask.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * The {@code AsyncJsonMask} class masks JSON data with a {@link JsonMask} without blocking the calling thread
+ * on large inputs, for use on event-loop threads.
+ * <p>
+ * Inputs no larger than the inline threshold are masked on the calling thread and an already completed future
+ * is returned, since handing them off would cost more than masking them. Larger inputs are masked by the executor.
+ * Unless an executor is set on the builder, a virtual thread per input is used on Java 21 and later,
+ * and a bounded pool of worker threads otherwise. A full pool completes the future with
+ * a {@link RejectedExecutionException} instead of blocking the caller.
+ * <p>
+ * Instances are thread-safe. Closing an instance shuts down the executor it created, an executor set
+ * on the builder is left running.
+ *
+ * @author Vladimir Rudnev
+ */
+public class AsyncJsonMask implements AutoCloseable {
+
+    /**
+     * The default size of inputs masked on the calling thread, in characters or bytes.
+     */
+    public static final int DEFAULT_INLINE_THRESHOLD = 16 * 1024;
+
+    /**
+     * The default capacity of the queue of the worker pool.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final JsonMask delegate;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final int inlineThreshold;
+
+    private AsyncJsonMask(Builder builder) {
+        this.delegate = builder.delegate;
+        this.inlineThreshold = builder.inlineThreshold;
+        if (builder.executor != null) {
+            this.ownedExecutor = null;
+            this.executor = builder.executor;
+        } else {
+            ExecutorService virtualThreadExecutor = builder.virtualThreads ? newVirtualThreadExecutor() : null;
+            this.ownedExecutor = virtualThreadExecutor != null ? virtualThreadExecutor
+                    : new WorkerPool(builder.workers, builder.queueCapacity);
+            this.executor = ownedExecutor;
+        }
+    }
+
+    /**
+     * Creates a new builder of an asynchronous mask decorating the specified JSON mask.
+     *
+     * @param jsonMask the JSON mask used to mask inputs.
+     * @return a new builder.
+     */
+    public static Builder builder(JsonMask jsonMask) {
+        return new Builder(jsonMask);
+    }
+
+    /**
+     * Masks the specified JSON input according to the configured filters.
+     *
+     * @param input the JSON data to be masked.
+     * @return a future of the masked JSON data, completed exceptionally with
+     * {@link com.jayway.jsonpath.InvalidJsonException} if the input is not valid JSON.
+     */
+    public CompletableFuture<String> mask(String input) {
+        return mask(input, input.length(), delegate::mask);
+    }
+
+    /**
+     * Masks the specified UTF-8 encoded JSON input according to the configured filters.
+     *
+     * @param input the UTF-8 encoded JSON data to be masked.
+     * @return a future of the UTF-8 encoded masked JSON data, completed exceptionally with
+     * {@link com.jayway.jsonpath.InvalidJsonException} if the input is not valid JSON.
+     */
+    public CompletableFuture<byte[]> mask(byte[] input) {
+        return mask(input, input.length, delegate::mask);
+    }
+
+    /**
+     * Returns the JSON mask used to mask inputs.
+     *
+     * @return the decorated JSON mask.
+     */
+    public JsonMask getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Shuts down the executor created by this instance. Inputs that are already submitted are still masked.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> mask(T input, int size, Function<T, T> mask) {
+        if (size <= inlineThreshold) {
+            try {
+                return CompletableFuture.completedFuture(mask.apply(input));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> mask.apply(input), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, if the runtime supports virtual threads.
+     * The factory method is looked up reflectively, so the library still runs on Java 11.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A fixed pool of daemon worker threads with a bounded queue, rejecting tasks when the queue is full.
+     */
+    private static final class WorkerPool extends ThreadPoolExecutor {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private WorkerPool(int workers, int queueCapacity) {
+            super(workers, workers, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    threadFactory("json-mask-async-" + POOL_NUMBER.incrementAndGet() + "-"));
+            allowCoreThreadTimeOut(true);
+        }
+
+        private static ThreadFactory threadFactory(String prefix) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return runnable -> {
+                Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Builder class for {@link AsyncJsonMask}.
+     */
+    public static class Builder {
+        private final JsonMask delegate;
+        private Executor executor;
+        private int inlineThreshold = DEFAULT_INLINE_THRESHOLD;
+        private boolean virtualThreads = true;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+        private Builder(JsonMask delegate) {
+            this.delegate = assertNotNull(delegate);
+        }
+
+        /**
+         * Sets the executor masking inputs larger than the inline threshold.
+         * The executor is not shut down when the asynchronous mask is closed.
+         *
+         * @param executor the executor.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = assertNotNull(executor);
+            return this;
+        }
+
+        /**
+         * Sets the size of inputs masked on the calling thread, in characters or bytes,
+         * {@value AsyncJsonMask#DEFAULT_INLINE_THRESHOLD} by default.
+         *
+         * @param inlineThreshold the inline threshold, {@code -1} to mask every input by the executor.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the threshold is less than {@code -1}.
+         */
+        public Builder inlineThreshold(int inlineThreshold) {
+            assertTrue(inlineThreshold >= -1, () -> "Inline threshold must not be less than -1");
+            this.inlineThreshold = inlineThreshold;
+            return this;
+        }
+
+        /**
+         * Sets whether a virtual thread per input is used on Java 21 and later, {@code true} by default.
+         * Ignored if an executor is set.
+         *
+         * @param virtualThreads whether virtual threads are used when they are available.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads of the worker pool, the number of available processors by default.
+         * Ignored if an executor is set or virtual threads are used.
+         *
+         * @param workers the number of worker threads.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the number is not positive.
+         */
+        public Builder workers(int workers) {
+            assertTrue(workers > 0, () -> "Number of workers must be positive");
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Sets the number of inputs waiting for a thread of the worker pool,
+         * {@value AsyncJsonMask#DEFAULT_QUEUE_CAPACITY} by default.
+         * Ignored if an executor is set or virtual threads are used.
+         *
+         * @param queueCapacity the capacity of the queue.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the capacity is not positive.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            assertTrue(queueCapacity > 0, () -> "Queue capacity must be positive");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link AsyncJsonMask}.
+         *
+         * @return the asynchronous JSON mask.
+         */
+        public AsyncJsonMask build() {
+            return new AsyncJsonMask(this);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.butreik.dmask.core;
+
+/**
+ * A snapshot of the statistics of the result cache of a {@link JsonMaskImpl}, see {@link JsonMaskImpl.Builder#cache}.
+ *
+ * @author Vladimir Rudnev
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long entries;
+    private final long bytes;
+
+    CacheStats(long hits, long misses, long evictions, long entries, long bytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the number of inputs whose result was found in the cache.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of inputs whose result was not found in the cache.
+     *
+     * @return the number of misses.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the limits.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the number of entries.
+     */
+    public long getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the estimated size of the cached entries in bytes.
+     *
+     * @return the size in bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups.
+     *
+     * @return the hit rate, or {@code 0} if there were no lookups.
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", entries=" + entries +
+                ", bytes=" + bytes +
+                '}';
+    }
+}
@@ -0,0 +1,296 @@
+package com.butreik.dmask.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static com.butreik.dmask.core.Assert.assertNotEmpty;
+
+/**
+ * A JSON path compiled into a sequence of steps that can be matched without the {@code com.jayway.jsonpath} library.
+ * <p>
+ * Only the structural subset of the JSON path syntax is supported: property names in dot and bracket notation,
+ * array indexes, wildcards and deep scan. Paths with filters, slices, negative indexes or functions
+ * are not compiled and must be evaluated by {@code com.jayway.jsonpath}.
+ *
+ * @author Vladimir Rudnev
+ */
+final class CompiledPath {
+
+    /**
+     * The JSON path this instance was compiled from.
+     */
+    private final String jsonPath;
+
+    /**
+     * The steps of the path, excluding the root element {@code $}.
+     */
+    private final List<Step> steps;
+
+    private CompiledPath(String jsonPath, List<Step> steps) {
+        this.jsonPath = jsonPath;
+        this.steps = Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * Compiles the specified JSON path.
+     *
+     * @param jsonPath the JSON path to compile.
+     * @return the compiled path, or an empty optional if the path uses syntax that is not supported.
+     */
+    static Optional<CompiledPath> compile(String jsonPath) {
+        assertNotEmpty(jsonPath);
+        String path = jsonPath.trim();
+        if (!path.startsWith("$")) {
+            if (path.startsWith("@")) {
+                return Optional.empty();
+            }
+            path = "$." + path;
+        }
+        return Optional.ofNullable(new Parser(path).parse()).map(steps -> new CompiledPath(jsonPath, steps));
+    }
+
+    /**
+     * Returns the JSON path this instance was compiled from.
+     *
+     * @return the JSON path.
+     */
+    String getJsonPath() {
+        return jsonPath;
+    }
+
+    /**
+     * Returns the steps of the path, excluding the root element.
+     *
+     * @return the steps of the path.
+     */
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * A single step of a compiled path.
+     */
+    static final class Step {
+
+        /**
+         * Whether the step is preceded by a deep scan operator {@code ..}.
+         */
+        private final boolean deep;
+
+        /**
+         * Property names matched by the step, or {@code null} if the step does not match properties by name.
+         */
+        private final List<String> names;
+
+        /**
+         * Array indexes matched by the step, or {@code null} if the step does not match array indexes.
+         */
+        private final List<Integer> indexes;
+
+        private Step(boolean deep, List<String> names, List<Integer> indexes) {
+            this.deep = deep;
+            this.names = names;
+            this.indexes = indexes;
+        }
+
+        private static Step wildcard(boolean deep) {
+            return new Step(deep, null, null);
+        }
+
+        private static Step names(boolean deep, List<String> names) {
+            return new Step(deep, Collections.unmodifiableList(names), null);
+        }
+
+        private static Step indexes(boolean deep, List<Integer> indexes) {
+            return new Step(deep, null, Collections.unmodifiableList(indexes));
+        }
+
+        /**
+         * Returns a deep scan step that matches no property and no index. A position at this step is never accepted
+         * and never left, so it keeps every descendant of a document reachable.
+         */
+        static Step deepScan() {
+            return new Step(true, Collections.emptyList(), null);
+        }
+
+        boolean isDeep() {
+            return deep;
+        }
+
+        boolean isWildcard() {
+            return names == null && indexes == null;
+        }
+
+        List<String> getNames() {
+            return names != null ? names : Collections.emptyList();
+        }
+
+        List<Integer> getIndexes() {
+            return indexes != null ? indexes : Collections.emptyList();
+        }
+
+        boolean matches(String name) {
+            return isWildcard() || names != null && names.contains(name);
+        }
+
+        boolean matches(int index) {
+            return isWildcard() || indexes != null && indexes.contains(index);
+        }
+    }
+
+    /**
+     * A parser of the supported JSON path subset. Returns {@code null} on unsupported syntax.
+     */
+    private static final class Parser {
+        private final String path;
+        private int pos = 1;
+
+        private Parser(String path) {
+            this.path = path;
+        }
+
+        private List<Step> parse() {
+            List<Step> steps = new ArrayList<>();
+            while (pos < path.length()) {
+                Step step;
+                char c = path.charAt(pos);
+                if (c == '.') {
+                    boolean deep = pos + 1 < path.length() && path.charAt(pos + 1) == '.';
+                    pos += deep ? 2 : 1;
+                    step = dotStep(deep);
+                } else if (c == '[') {
+                    step = bracketStep(false);
+                } else {
+                    return null;
+                }
+                if (step == null) {
+                    return null;
+                }
+                steps.add(step);
+            }
+            return steps;
+        }
+
+        private Step dotStep(boolean deep) {
+            if (pos >= path.length()) {
+                return null;
+            }
+            char c = path.charAt(pos);
+            if (c == '[') {
+                return deep ? bracketStep(true) : null;
+            }
+            if (c == '*') {
+                pos++;
+                return Step.wildcard(deep);
+            }
+            int start = pos;
+            while (pos < path.length() && path.charAt(pos) != '.' && path.charAt(pos) != '[') {
+                char n = path.charAt(pos);
+                if (n == '(' || n == ')' || n == ' ' || n == '\'' || n == '"' || n == '*') {
+                    return null;
+                }
+                pos++;
+            }
+            if (start == pos) {
+                return null;
+            }
+            List<String> names = new ArrayList<>(1);
+            names.add(path.substring(start, pos));
+            return Step.names(deep, names);
+        }
+
+        private Step bracketStep(boolean deep) {
+            pos++;
+            skipSpaces();
+            if (pos >= path.length()) {
+                return null;
+            }
+            char c = path.charAt(pos);
+            Step step;
+            if (c == '*') {
+                pos++;
+                step = Step.wildcard(deep);
+            } else if (c == '\'' || c == '"') {
+                List<String> names = new ArrayList<>();
+                do {
+                    String name = quoted();
+                    if (name == null) {
+                        return null;
+                    }
+                    names.add(name);
+                } while (comma());
+                step = Step.names(deep, names);
+            } else if (c >= '0' && c <= '9') {
+                List<Integer> indexes = new ArrayList<>();
+                do {
+                    Integer index = index();
+                    if (index == null) {
+                        return null;
+                    }
+                    indexes.add(index);
+                } while (comma());
+                step = Step.indexes(deep, indexes);
+            } else {
+                return null;
+            }
+            skipSpaces();
+            if (pos >= path.length() || path.charAt(pos) != ']') {
+                return null;
+            }
+            pos++;
+            return step;
+        }
+
+        private String quoted() {
+            skipSpaces();
+            if (pos >= path.length()) {
+                return null;
+            }
+            char quote = path.charAt(pos++);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            StringBuilder name = new StringBuilder();
+            while (pos < path.length()) {
+                char c = path.charAt(pos++);
+                if (c == quote) {
+                    return name.toString();
+                }
+                if (c == '\\' && pos < path.length()) {
+                    c = path.charAt(pos++);
+                }
+                name.append(c);
+            }
+            return null;
+        }
+
+        private Integer index() {
+            skipSpaces();
+            int start = pos;
+            while (pos < path.length() && path.charAt(pos) >= '0' && path.charAt(pos) <= '9') {
+                pos++;
+            }
+            if (start == pos || pos - start > 9) {
+                return null;
+            }
+            return Integer.parseInt(path.substring(start, pos));
+        }
+
+        private boolean comma() {
+            skipSpaces();
+            if (pos < path.length() && path.charAt(pos) == ',') {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (pos < path.length() && path.charAt(pos) == ' ') {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.spi.json.JsonProvider;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.butreik.dmask.core.Maskers.REMOVE_MASKER;
+
+/**
+ * A deterministic automaton compiled from the JSON paths of a list of filters.
+ * <p>
+ * Every state of the automaton describes the set of filters that may still match below the current node
+ * of a JSON document. Descending into an object property or an array element is a single transition lookup,
+ * so the cost of matching does not depend on the number of configured filters. States are identified by
+ * {@code int} values, the state {@link #DEAD} means that no filter can match the current node or its descendants.
+ * <p>
+ * Property names masked wherever they appear are not compiled into the transitions, which would copy all of them
+ * into every state. They are looked up in a shared {@link KeyTable} instead, and a property with such a name moves
+ * to a copy of the target state that also applies the filters of the name. Documents are then traversed completely,
+ * since such a name can appear at any depth.
+ *
+ * @author Vladimir Rudnev
+ */
+final class FilterMatcher {
+
+    /**
+     * The state in which no filter can match anymore.
+     */
+    static final int DEAD = 0;
+
+    /**
+     * The maximum number of states the automaton is allowed to have.
+     */
+    static final int MAX_STATES = 10_000;
+
+    private static final Filter[] NO_FILTERS = new Filter[0];
+
+    /**
+     * Property names masked at any depth, or {@code null} if there are none.
+     */
+    private final KeyTable keys;
+
+    /**
+     * The copies of the states applying the filters of a key group, indexed by group and state.
+     */
+    private final int[][] keyed;
+
+    /**
+     * Transitions by explicitly configured property names, per state.
+     */
+    private final List<Map<String, Integer>> names;
+
+    /**
+     * Transitions by any property name that is not explicitly configured, per state.
+     */
+    private final int[] otherName;
+
+    /**
+     * Transitions by explicitly configured array indexes, per state.
+     */
+    private final List<Map<Integer, Integer>> indexes;
+
+    /**
+     * Transitions by any array index that is not explicitly configured, per state.
+     */
+    private final int[] otherIndex;
+
+    /**
+     * Filters matching the node in a state, in the order of their application.
+     */
+    private final Filter[][] filters;
+
+    /**
+     * Whether the node in a state must be removed.
+     */
+    private final boolean[] removed;
+
+    private FilterMatcher(int size, KeyTable keys, int baseSize) {
+        this.keys = keys;
+        this.keyed = new int[keys != null ? keys.groupCount() : 0][baseSize];
+        this.names = new ArrayList<>(Collections.nCopies(size, Collections.emptyMap()));
+        this.otherName = new int[size];
+        this.indexes = new ArrayList<>(Collections.nCopies(size, Collections.emptyMap()));
+        this.otherIndex = new int[size];
+        this.filters = new Filter[size][];
+        this.removed = new boolean[size];
+    }
+
+    /**
+     * Compiles the specified filters into a single automaton.
+     *
+     * @param filters the filters sorted in the order of their application.
+     * @return the compiled automaton.
+     * @throws IllegalArgumentException if any JSON path is not supported, the automaton is too large,
+     *                                  or the filters cannot be applied in their order by one traversal.
+     */
+    static FilterMatcher compile(List<Filter> filters) {
+        return compile(filters, null);
+    }
+
+    /**
+     * Compiles the specified filters and property names masked at any depth into a single automaton.
+     *
+     * @param filters the filters sorted in the order of their application.
+     * @param keys    the property names masked at any depth, or {@code null}.
+     * @return the compiled automaton.
+     * @throws IllegalArgumentException if any JSON path is not supported, the automaton is too large,
+     *                                  or the filters cannot be applied in their order by one traversal,
+     *                                  see {@link #apply(JsonProvider, Object, int, MaskListener, MaskLimits.Deadline)}.
+     */
+    static FilterMatcher compile(List<Filter> filters, KeyTable keys) {
+        List<List<CompiledPath.Step>> paths = new ArrayList<>(filters.size() + 1);
+        for (Filter filter : filters) {
+            paths.add(CompiledPath.compile(filter.getJsonPath())
+                    .orElseThrow(() -> new IllegalArgumentException("JSON path " + filter.getJsonPath() + " is not supported"))
+                    .getSteps());
+        }
+        if (keys != null) {
+            // keeps every node reachable, a masked name can appear anywhere
+            paths.add(List.of(CompiledPath.Step.deepScan()));
+        }
+        return new Compiler(filters, paths, keys).compile();
+    }
+
+    /**
+     * Checks whether the JSON path of the specified filter can be compiled into an automaton.
+     *
+     * @param filter the filter to check.
+     * @return {@code true} if the filter is supported.
+     */
+    static boolean supports(Filter filter) {
+        return CompiledPath.compile(filter.getJsonPath()).isPresent();
+    }
+
+    /**
+     * Returns the state of the root node of a document.
+     *
+     * @return the root state.
+     */
+    int root() {
+        return 1;
+    }
+
+    /**
+     * Returns the state of the object property with the specified name.
+     *
+     * @param state the state of the object.
+     * @param name  the property name.
+     * @return the state of the property value.
+     */
+    int next(int state, String name) {
+        Integer next = names.get(state).get(name);
+        int nextState = next != null ? next : otherName[state];
+        if (keys != null) {
+            int group = keys.group(name);
+            if (group >= 0) {
+                return keyed[group][nextState];
+            }
+        }
+        return nextState;
+    }
+
+    /**
+     * Returns the state of any object property, if the state has no explicitly configured property names.
+     *
+     * @param state the state of the object.
+     * @return the state of the property value.
+     * @see #hasNames(int)
+     */
+    int nextOther(int state) {
+        return otherName[state];
+    }
+
+    /**
+     * Returns the state of the array element with the specified index.
+     *
+     * @param state the state of the array.
+     * @param index the element index.
+     * @return the state of the element.
+     */
+    int next(int state, int index) {
+        Integer next = indexes.get(state).get(index);
+        return next != null ? next : otherIndex[state];
+    }
+
+    /**
+     * Returns the transitions by explicitly configured property names, excluding the names of the key table.
+     *
+     * @param state the state of the object.
+     * @return the states of the property values by name.
+     */
+    Map<String, Integer> names(int state) {
+        return names.get(state);
+    }
+
+    /**
+     * Returns the transitions by explicitly configured array indexes.
+     *
+     * @param state the state of the array.
+     * @return the states of the elements by index.
+     */
+    Map<Integer, Integer> indexes(int state) {
+        return indexes.get(state);
+    }
+
+    /**
+     * Returns the state of any array element whose index is not explicitly configured.
+     *
+     * @param state the state of the array.
+     * @return the state of the element.
+     */
+    int nextOtherIndex(int state) {
+        return otherIndex[state];
+    }
+
+    /**
+     * Returns the property names masked at any depth.
+     *
+     * @return the key table, or {@code null} if there are no such names.
+     */
+    KeyTable keys() {
+        return keys;
+    }
+
+    /**
+     * Returns the copy of the specified state that also applies the filters of a key group.
+     *
+     * @param group the key group.
+     * @param state the state without the filters of the group.
+     * @return the copy of the state.
+     */
+    int keyed(int group, int state) {
+        return keyed[group][state];
+    }
+
+    /**
+     * Checks whether transitions from the specified state depend on the property name.
+     * If not, the property name does not have to be decoded, see {@link #nextOther(int)}.
+     *
+     * @param state the state to check.
+     * @return {@code true} if the state has transitions by property name.
+     */
+    boolean hasNames(int state) {
+        return keys != null || !names.get(state).isEmpty();
+    }
+
+    /**
+     * Returns the filters to apply to the node in the specified state, excluding removal.
+     *
+     * @param state the state of the node.
+     * @return the filters in the order of their application.
+     */
+    Filter[] filters(int state) {
+        return filters[state];
+    }
+
+    /**
+     * Checks whether the node in the specified state must be removed.
+     *
+     * @param state the state of the node.
+     * @return {@code true} if the node is matched by {@link Maskers#REMOVE_MASKER}.
+     */
+    boolean isRemoved(int state) {
+        return removed[state];
+    }
+
+    /**
+     * Returns the number of states in the automaton.
+     *
+     * @return the number of states.
+     */
+    int size() {
+        return filters.length;
+    }
+
+    /**
+     * Applies the map functions of the specified filters to the value.
+     *
+     * @param filters  the filters to apply.
+     * @param value    the value to map.
+     * @param listener the listener notified about every applied masker.
+     * @return the mapped value.
+     */
+    static Object map(Filter[] filters, Object value, MaskListener listener) {
+        for (Filter filter : filters) {
+            value = filter.getMasker().getMapFunction().map(value);
+            listener.onMasked(filter.getMasker());
+        }
+        return value;
+    }
+
+    /**
+     * Applies all filters to the given JSON node and its descendants in a single traversal.
+     * <p>
+     * Nodes matched by {@link Maskers#REMOVE_MASKER} are removed before their siblings are visited.
+     * Descendants are masked before the map functions of the node itself are applied, so a filter of the node
+     * never has a lower masker order than the filters of its descendants, which {@link #compile(List, KeyTable)}
+     * rejects. Filters with the same order are applied to the inner node first.
+     *
+     * @param provider the JSON provider the node was parsed with.
+     * @param node     the JSON node.
+     * @param state    the state of the node.
+     * @param listener the listener notified about every applied masker.
+     * @param deadline the deadline of masking, checked for every visited node.
+     * @return the masked node, or the same node if it was masked in place.
+     * @throws MaskLimitExceededException if the deadline passes while the node is masked.
+     */
+    Object apply(JsonProvider provider, Object node, int state, MaskListener listener, MaskLimits.Deadline deadline) {
+        deadline.node();
+        if (provider.isMap(node)) {
+            List<String> removed = null;
+            for (String key : provider.getPropertyKeys(node)) {
+                int next = next(state, key);
+                if (next == DEAD) {
+                    continue;
+                }
+                if (isRemoved(next)) {
+                    removed = removed != null ? removed : new ArrayList<>();
+                    removed.add(key);
+                    listener.onMasked(REMOVE_MASKER);
+                    continue;
+                }
+                Object value = provider.getMapValue(node, key);
+                Object masked = apply(provider, value, next, listener, deadline);
+                if (masked != value) {
+                    provider.setProperty(node, key, masked);
+                }
+            }
+            if (removed != null) {
+                removed.forEach(key -> provider.removeProperty(node, key));
+            }
+        } else if (provider.isArray(node)) {
+            for (int index = provider.length(node) - 1; index >= 0; index--) {
+                int next = next(state, index);
+                if (next == DEAD) {
+                    continue;
+                }
+                if (isRemoved(next)) {
+                    provider.removeProperty(node, index);
+                    listener.onMasked(REMOVE_MASKER);
+                    continue;
+                }
+                Object value = provider.getArrayIndex(node, index);
+                Object masked = apply(provider, value, next, listener, deadline);
+                if (masked != value) {
+                    provider.setArrayIndex(node, index, masked);
+                }
+            }
+        }
+        Filter[] nodeFilters = filters(state);
+        return nodeFilters.length > 0 ? map(nodeFilters, node, listener) : node;
+    }
+
+    /**
+     * Builds the automaton using the subset construction over positions in the compiled paths.
+     * A position is encoded as the path number in the high bits and the step number in the low bits.
+     */
+    private static final class Compiler {
+        private static final int STEP_BITS = 16;
+        private static final int STEP_MASK = (1 << STEP_BITS) - 1;
+
+        private final List<Filter> filters;
+        private final List<List<CompiledPath.Step>> paths;
+        private final KeyTable keys;
+        private final Map<List<Integer>, Integer> stateIds = new HashMap<>();
+        private final List<List<Integer>> states = new ArrayList<>();
+        private final Deque<Integer> queue = new ArrayDeque<>();
+
+        private Compiler(List<Filter> filters, List<List<CompiledPath.Step>> paths, KeyTable keys) {
+            this.filters = filters;
+            this.paths = paths;
+            this.keys = keys;
+        }
+
+        private FilterMatcher compile() {
+            stateId(new TreeSet<>());
+            TreeSet<Integer> root = new TreeSet<>();
+            for (int p = 0; p < paths.size(); p++) {
+                if (p < filters.size() && paths.get(p).size() > STEP_MASK) {
+                    throw new IllegalArgumentException("JSON path " + filters.get(p).getJsonPath() + " is too long");
+                }
+                root.add(p << STEP_BITS);
+            }
+            stateId(root);
+
+            List<Map<String, Integer>> names = new ArrayList<>();
+            List<Map<Integer, Integer>> indexes = new ArrayList<>();
+            List<Integer> otherName = new ArrayList<>();
+            List<Integer> otherIndex = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                int id = queue.poll();
+                List<Integer> positions = states.get(id);
+                int otherState = stateId(next(positions, null, null));
+                Map<String, Integer> byName = new HashMap<>();
+                Map<Integer, Integer> byIndex = new HashMap<>();
+                for (int position : positions) {
+                    CompiledPath.Step step = step(position);
+                    if (step == null) {
+                        continue;
+                    }
+                    for (String name : step.getNames()) {
+                        byName.computeIfAbsent(name, n -> stateId(next(positions, n, null)));
+                    }
+                    for (Integer index : step.getIndexes()) {
+                        byIndex.computeIfAbsent(index, i -> stateId(next(positions, null, i)));
+                    }
+                }
+                byName.values().removeIf(s -> s == otherState);
+                byIndex.values().removeIf(s -> s == otherState);
+                set(names, id, byName.isEmpty() ? Collections.emptyMap() : byName);
+                set(indexes, id, byIndex.isEmpty() ? Collections.emptyMap() : byIndex);
+                set(otherName, id, otherState);
+                set(otherIndex, id, otherState);
+            }
+
+            int baseSize = states.size();
+            int groups = keys != null ? keys.groupCount() : 0;
+            if ((long) baseSize * (groups + 1) > MAX_STATES) {
+                throw new IllegalArgumentException("Filters produce more than " + MAX_STATES + " matcher states");
+            }
+            FilterMatcher matcher = new FilterMatcher(baseSize * (groups + 1), keys, baseSize);
+            for (int id = 0; id < baseSize; id++) {
+                matcher.names.set(id, names.get(id));
+                matcher.indexes.set(id, indexes.get(id));
+                matcher.otherName[id] = otherName.get(id);
+                matcher.otherIndex[id] = otherIndex.get(id);
+                List<Filter> accepted = new ArrayList<>();
+                for (int position : states.get(id)) {
+                    if (step(position) == null) {
+                        accepted.add(filters.get(position >>> STEP_BITS));
+                    }
+                }
+                matcher.removed[id] = accepted.stream().anyMatch(f -> REMOVE_MASKER.equals(f.getMasker()));
+                matcher.filters[id] = accepted.isEmpty() || matcher.removed[id] ? NO_FILTERS : accepted.toArray(NO_FILTERS);
+            }
+            for (int group = 0; group < groups; group++) {
+                Filter[] keyFilters = keys.filters(group);
+                boolean keyRemoved = Arrays.stream(keyFilters).anyMatch(f -> REMOVE_MASKER.equals(f.getMasker()));
+                for (int base = 0; base < baseSize; base++) {
+                    int id = baseSize * (group + 1) + base;
+                    matcher.keyed[group][base] = id;
+                    matcher.names.set(id, matcher.names.get(base));
+                    matcher.indexes.set(id, matcher.indexes.get(base));
+                    matcher.otherName[id] = matcher.otherName[base];
+                    matcher.otherIndex[id] = matcher.otherIndex[base];
+                    matcher.removed[id] = keyRemoved || matcher.removed[base];
+                    matcher.filters[id] = matcher.removed[id] ? NO_FILTERS : merge(matcher.filters[base], keyFilters);
+                }
+            }
+            checkOrder(matcher, baseSize);
+            return matcher;
+        }
+
+        /**
+         * Checks that no node is matched by a filter with a lower masker order than a filter that may match
+         * one of its descendants. A single traversal masks descendants first, so it would apply such filters
+         * in the wrong order.
+         *
+         * @throws IllegalArgumentException if there are such filters.
+         */
+        private static void checkOrder(FilterMatcher matcher, int baseSize) {
+            // the filter with the highest order that may match a descendant, copies of a state share its descendants
+            Filter[] below = new Filter[baseSize];
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int state = 1; state < baseSize; state++) {
+                    if (matcher.removed[state]) {
+                        continue;
+                    }
+                    Filter highest = below[state];
+                    Set<Integer> next = new HashSet<>(matcher.names.get(state).values());
+                    next.add(matcher.otherName[state]);
+                    for (int name : next) {
+                        highest = highest(highest, matcher, name, below);
+                        for (int group = 0; group < matcher.keyed.length; group++) {
+                            highest = highest(highest, matcher, matcher.keyed[group][name], below);
+                        }
+                    }
+                    highest = highest(highest, matcher, matcher.otherIndex[state], below);
+                    for (int index : matcher.indexes.get(state).values()) {
+                        highest = highest(highest, matcher, index, below);
+                    }
+                    if (highest != below[state]) {
+                        below[state] = highest;
+                        changed = true;
+                    }
+                }
+            }
+            for (int state = 1; state < matcher.size(); state++) {
+                Filter[] stateFilters = matcher.filters[state];
+                Filter descendant = below[state % baseSize];
+                if (stateFilters.length > 0 && descendant != null && order(descendant) > order(stateFilters[0])) {
+                    throw new IllegalArgumentException("JSON path " + stateFilters[0].getJsonPath()
+                            + " has a lower masker order than " + descendant.getJsonPath()
+                            + " matching inside it, they cannot be applied by one traversal");
+                }
+            }
+        }
+
+        /**
+         * Returns the filter with the higher masker order of the specified one and those matching
+         * the node in the specified state or its descendants.
+         */
+        private static Filter highest(Filter highest, FilterMatcher matcher, int state, Filter[] below) {
+            if (state == DEAD || matcher.removed[state]) {
+                return highest;
+            }
+            Filter[] stateFilters = matcher.filters[state];
+            if (stateFilters.length > 0) {
+                highest = higher(highest, stateFilters[stateFilters.length - 1]);
+            }
+            return higher(highest, below[state % below.length]);
+        }
+
+        private static Filter higher(Filter first, Filter second) {
+            return first == null || second != null && order(second) > order(first) ? second : first;
+        }
+
+        private static int order(Filter filter) {
+            return filter.getMasker().getOrder();
+        }
+
+        /**
+         * Merges the filters of a state and of a key group in the order of their application.
+         */
+        private static Filter[] merge(Filter[] stateFilters, Filter[] keyFilters) {
+            List<Filter> merged = new ArrayList<>(Arrays.asList(stateFilters));
+            merged.addAll(Arrays.asList(keyFilters));
+            merged.sort(Comparator.comparingInt(filter -> filter.getMasker().getOrder()));
+            return merged.toArray(NO_FILTERS);
+        }
+
+        /**
+         * Computes the positions reachable from the specified ones by a property name or an array index.
+         * If both are {@code null}, the transition by a name or an index that is not explicitly configured is computed.
+         */
+        private TreeSet<Integer> next(List<Integer> positions, String name, Integer index) {
+            TreeSet<Integer> next = new TreeSet<>();
+            for (int position : positions) {
+                CompiledPath.Step step = step(position);
+                if (step == null) {
+                    continue;
+                }
+                boolean matches = name != null ? step.matches(name)
+                        : index != null ? step.matches(index) : step.isWildcard();
+                if (matches) {
+                    next.add(position + 1);
+                }
+                if (step.isDeep()) {
+                    next.add(position);
+                }
+            }
+            return next;
+        }
+
+        private CompiledPath.Step step(int position) {
+            List<CompiledPath.Step> steps = paths.get(position >>> STEP_BITS);
+            int step = position & STEP_MASK;
+            return step < steps.size() ? steps.get(step) : null;
+        }
+
+        private int stateId(TreeSet<Integer> positions) {
+            List<Integer> key = new ArrayList<>(positions);
+            Integer id = stateIds.get(key);
+            if (id != null) {
+                return id;
+            }
+            if (states.size() >= MAX_STATES) {
+                throw new IllegalArgumentException("Filters produce more than " + MAX_STATES + " matcher states");
+            }
+            id = states.size();
+            states.add(key);
+            stateIds.put(key, id);
+            queue.add(id);
+            return id;
+        }
+
+        private static <T> void set(List<T> list, int index, T value) {
+            while (list.size() <= index) {
+                list.add(null);
+            }
+            list.set(index, value);
+        }
+    }
+}
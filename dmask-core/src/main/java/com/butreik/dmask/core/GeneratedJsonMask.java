@@ -0,0 +1,114 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * The base class of masks generated at build time from a {@link MaskAutomaton}, for example by the annotation
+ * processor of {@code dmask-codegen}.
+ * <p>
+ * A generated mask matches property names and array indexes with code specialized for its rules and calls
+ * the map functions of its maskers directly, so no JSON path is interpreted at runtime. This class parses
+ * and serializes documents with {@code net.minidev.json}, the default of {@link JsonMaskImpl}, so a generated mask
+ * produces the same results as a {@link JsonMaskImpl} built of the same rules. Documents are traversed as
+ * {@link Map} and {@link java.util.List} instances.
+ *
+ * @author Vladimir Rudnev
+ */
+public abstract class GeneratedJsonMask implements JsonMask {
+
+    private static final JsonCodec CODEC = JsonCodec.of(new JsonSmartJsonProvider());
+
+    /**
+     * Listener notified about every applied masker.
+     */
+    protected final MaskListener listener;
+
+    /**
+     * Creates a generated mask.
+     *
+     * @param listener the listener notified about every applied masker.
+     * @throws IllegalArgumentException if the listener is null.
+     */
+    protected GeneratedJsonMask(MaskListener listener) {
+        this.listener = assertNotNull(listener);
+    }
+
+    /**
+     * Masks a parsed document in place.
+     *
+     * @param document the root of the document.
+     * @return the masked root, or the same root if it was masked in place.
+     */
+    protected abstract Object apply(Object document);
+
+    @Override
+    public String mask(String input) {
+        return CODEC.toJson(apply(CODEC.parse(input)));
+    }
+
+    @Override
+    public byte[] mask(byte[] input) {
+        return CODEC.toJsonBytes(apply(CODEC.parse(input)));
+    }
+
+    @Override
+    public void mask(InputStream input, OutputStream output) throws IOException {
+        CODEC.write(apply(CODEC.parse(input)), output);
+    }
+
+    @Override
+    public void mask(Reader input, Writer output) throws IOException {
+        CODEC.write(apply(CODEC.parse(input)), output);
+    }
+
+    @Override
+    public Map<String, Object> mask(Map<String, Object> document) {
+        if (apply(document) != document) {
+            throw new IllegalStateException("The root of the document cannot be replaced in place");
+        }
+        return document;
+    }
+
+    /**
+     * Indexes the specified maskers by name.
+     *
+     * @param maskers the maskers.
+     * @return the maskers by name.
+     * @throws IllegalArgumentException if any masker is null.
+     */
+    protected static Map<String, Masker> byName(Masker... maskers) {
+        Map<String, Masker> byName = new HashMap<>();
+        for (Masker masker : maskers) {
+            byName.put(assertNotNull(masker).getName(), masker);
+        }
+        return byName;
+    }
+
+    /**
+     * Returns the masker with the specified name, which must have the order the mask was generated with,
+     * since the order of maskers is compiled into the generated code.
+     *
+     * @param maskers the maskers by name.
+     * @param name    the masker name.
+     * @param order   the order the mask was generated with.
+     * @return the masker.
+     * @throws IllegalArgumentException if the masker is not defined or has another order.
+     */
+    protected static Masker masker(Map<String, Masker> maskers, String name, int order) {
+        Masker masker = assertNotNull(maskers.get(name), () -> "Masker " + name + " not defined");
+        assertTrue(masker.getOrder() == order,
+                () -> "Masker " + name + " must have the order " + order + " the mask was generated with");
+        return masker;
+    }
+}
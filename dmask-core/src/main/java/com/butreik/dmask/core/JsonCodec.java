@@ -0,0 +1,271 @@
+package com.butreik.dmask.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jayway.jsonpath.InvalidJsonException;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+import net.minidev.json.JSONStyle;
+import net.minidev.json.JSONValue;
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Reads and writes JSON documents in the model of a {@link JsonProvider}.
+ * <p>
+ * The base implementation goes through the {@link JsonProvider} API, which only works with strings.
+ * Subclasses for the {@code net.minidev.json} and Jackson providers parse and serialize bytes, streams
+ * and readers directly, without building an intermediate string.
+ *
+ * @author Vladimir Rudnev
+ */
+class JsonCodec {
+
+    private static final String JACKSON_JSON_NODE_PROVIDER = "com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider";
+
+    private final JsonProvider provider;
+
+    JsonCodec(JsonProvider provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Creates a codec for the specified provider.
+     *
+     * @param provider the JSON provider.
+     * @return the codec.
+     */
+    static JsonCodec of(JsonProvider provider) {
+        if (provider instanceof JsonSmartJsonProvider) {
+            return new JsonSmart(provider);
+        }
+        // the class is checked by name, so Jackson classes are not loaded unless Jackson is used
+        for (Class<?> type = provider.getClass(); type != null; type = type.getSuperclass()) {
+            if (type.getName().equals(JACKSON_JSON_NODE_PROVIDER)) {
+                return new Jackson(provider);
+            }
+        }
+        return new JsonCodec(provider);
+    }
+
+    /**
+     * Returns the JSON provider of the document model.
+     *
+     * @return the JSON provider.
+     */
+    JsonProvider provider() {
+        return provider;
+    }
+
+    Object parse(String json) {
+        return provider.parse(json);
+    }
+
+    Object parse(byte[] json) {
+        return provider.parse(json);
+    }
+
+    /**
+     * Returns a function parsing strings, which may reuse parser state between calls.
+     * The function is not thread-safe.
+     *
+     * @return the parsing function.
+     */
+    Function<String, Object> parser() {
+        return this::parse;
+    }
+
+    Object parse(InputStream input) throws IOException {
+        return provider.parse(input, StandardCharsets.UTF_8.name());
+    }
+
+    Object parse(Reader input) throws IOException {
+        StringBuilder json = new StringBuilder();
+        char[] buffer = new char[8192];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            json.append(buffer, 0, read);
+        }
+        return parse(json.toString());
+    }
+
+    String toJson(Object document) {
+        return provider.toJson(document);
+    }
+
+    byte[] toJsonBytes(Object document) {
+        return toJson(document).getBytes(StandardCharsets.UTF_8);
+    }
+
+    void write(Object document, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        write(document, writer);
+        writer.flush();
+    }
+
+    void write(Object document, Writer output) throws IOException {
+        output.write(toJson(document));
+        output.flush();
+    }
+
+    /**
+     * A codec for {@link JsonSmartJsonProvider}, parsing with a parser configured as in the provider.
+     */
+    private static final class JsonSmart extends JsonCodec {
+
+        private JsonSmart(JsonProvider provider) {
+            super(provider);
+        }
+
+        @Override
+        Object parse(byte[] json) {
+            return parse(parser -> parser.parse(json, JSONValue.defaultReader.DEFAULT_ORDERED));
+        }
+
+        @Override
+        Function<String, Object> parser() {
+            JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+            return json -> parse(() -> parser.parse(json, JSONValue.defaultReader.DEFAULT_ORDERED));
+        }
+
+        @Override
+        Object parse(Reader input) {
+            return parse(parser -> parser.parse(input, JSONValue.defaultReader.DEFAULT_ORDERED));
+        }
+
+        @Override
+        void write(Object document, Writer output) throws IOException {
+            JSONValue.writeJSONString(document, output, JSONStyle.LT_COMPRESS);
+            output.flush();
+        }
+
+        private static Object parse(Parse parse) {
+            return parse(() -> parse.parse(new JSONParser(JSONParser.MODE_PERMISSIVE)));
+        }
+
+        private static Object parse(Parsing parsing) {
+            try {
+                return parsing.parse();
+            } catch (ParseException e) {
+                throw new InvalidJsonException(e);
+            }
+        }
+
+        /**
+         * A parsing function that may fail with a {@code net.minidev.json} parse exception.
+         */
+        @FunctionalInterface
+        private interface Parse {
+            Object parse(JSONParser parser) throws ParseException;
+        }
+
+        /**
+         * Parsing with an existing parser that may fail with a {@code net.minidev.json} parse exception.
+         */
+        @FunctionalInterface
+        private interface Parsing {
+            Object parse() throws ParseException;
+        }
+    }
+
+    /**
+     * A codec for {@link JacksonJsonNodeJsonProvider}, reading and writing with the object mapper of the provider.
+     * Streams are neither closed after reading nor after writing.
+     */
+    private static final class Jackson extends JsonCodec {
+
+        private final ObjectMapper mapper;
+        private final ObjectReader reader;
+        private final ObjectWriter writer;
+
+        private Jackson(JsonProvider provider) {
+            super(provider);
+            this.mapper = ((JacksonJsonNodeJsonProvider) provider).getObjectMapper();
+            this.reader = mapper.reader().without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            this.writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        Object parse(String json) {
+            try {
+                return mapper.readTree(json);
+            } catch (JsonProcessingException e) {
+                throw new InvalidJsonException(e);
+            }
+        }
+
+        @Override
+        Object parse(byte[] json) {
+            try {
+                return mapper.readTree(json);
+            } catch (JsonProcessingException e) {
+                throw new InvalidJsonException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        Object parse(InputStream input) throws IOException {
+            try {
+                return reader.readTree(input);
+            } catch (JsonProcessingException e) {
+                throw new InvalidJsonException(e);
+            }
+        }
+
+        @Override
+        Object parse(Reader input) throws IOException {
+            try {
+                return reader.readTree(input);
+            } catch (JsonProcessingException e) {
+                throw new InvalidJsonException(e);
+            }
+        }
+
+        @Override
+        String toJson(Object document) {
+            try {
+                return writer.writeValueAsString(document);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        byte[] toJsonBytes(Object document) {
+            try {
+                return writer.writeValueAsBytes(document);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        void write(Object document, OutputStream output) throws IOException {
+            writer.writeValue(output, document);
+            output.flush();
+        }
+
+        @Override
+        void write(Object document, Writer output) throws IOException {
+            writer.writeValue(output, document);
+            output.flush();
+        }
+    }
+}
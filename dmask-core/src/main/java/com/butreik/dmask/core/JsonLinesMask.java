@@ -0,0 +1,287 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.InvalidJsonException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * The {@code JsonLinesMask} class masks newline-delimited JSON (JSON Lines, NDJSON) line by line,
+ * holding only a bounded number of lines in memory regardless of the size of the input.
+ * <p>
+ * With a parallelism of one, lines are read, masked and written by the calling thread. With a greater parallelism
+ * the work is pipelined: the calling thread reads batches of lines, worker threads mask them, and a writer thread
+ * writes them in input order. Masked batches waiting to be written are limited by the queue capacity,
+ * so a slow writer blocks the reader instead of buffering the input.
+ * <p>
+ * Blank lines are written as is, every written line ends with {@code \n}. Instances are thread-safe,
+ * the threads of the parallel mode are started for each call and stopped when it returns.
+ *
+ * @author Vladimir Rudnev
+ */
+public class JsonLinesMask {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final JsonMask jsonMask;
+    private final int parallelism;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    private JsonLinesMask(Builder builder) {
+        this.jsonMask = builder.jsonMask;
+        this.parallelism = builder.parallelism;
+        this.batchSize = builder.batchSize;
+        this.queueCapacity = builder.queueCapacity;
+    }
+
+    /**
+     * Creates a new builder of a JSON Lines mask masking every line with the specified JSON mask.
+     *
+     * @param jsonMask the JSON mask used to mask lines.
+     * @return a new builder.
+     */
+    public static Builder builder(JsonMask jsonMask) {
+        return new Builder(jsonMask);
+    }
+
+    /**
+     * Masks the JSON Lines file and writes the result to the output file in UTF-8, replacing it if it exists.
+     *
+     * @param input  the JSON Lines file to be masked.
+     * @param output the file the masked JSON Lines are written to.
+     * @return the number of lines written.
+     * @throws IOException if reading or writing fails.
+     * @throws InvalidJsonException if a line is not valid JSON.
+     */
+    public long mask(Path input, Path output) throws IOException {
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            return mask(reader, writer);
+        }
+    }
+
+    /**
+     * Masks JSON Lines read from the reader and writes them to the writer. Neither the reader nor the writer is closed.
+     *
+     * @param input  the reader of JSON Lines to be masked.
+     * @param output the writer the masked JSON Lines are written to.
+     * @return the number of lines written.
+     * @throws IOException if reading or writing fails.
+     * @throws InvalidJsonException if a line is not valid JSON.
+     */
+    public long mask(Reader input, Writer output) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        Writer writer = output instanceof BufferedWriter ? output : new BufferedWriter(output);
+        long lines = parallelism == 1 ? maskSequentially(reader, writer) : maskInParallel(reader, writer);
+        writer.flush();
+        return lines;
+    }
+
+    private long maskSequentially(BufferedReader reader, Writer writer) throws IOException {
+        long lines = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            writer.write(maskLine(line, ++lines));
+            writer.write('\n');
+        }
+        return lines;
+    }
+
+    private long maskInParallel(BufferedReader reader, Writer writer) throws IOException {
+        String prefix = "json-lines-mask-" + POOL_NUMBER.incrementAndGet() + "-";
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, daemonThreads(prefix + "worker-"));
+        ExecutorService writerStage = Executors.newSingleThreadExecutor(daemonThreads(prefix + "writer-"));
+        BlockingQueue<Future<String[]>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Future<Long> written = writerStage.submit(() -> write(queue, writer));
+        try {
+            long lines = 0;
+            List<String> batch = new ArrayList<>(batchSize);
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                batch.add(line);
+                if (batch.size() == batchSize) {
+                    enqueue(queue, workers.submit(maskBatch(batch, lines + 1)), written);
+                    lines += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(queue, workers.submit(maskBatch(batch, lines + 1)), written);
+            }
+            enqueue(queue, CompletableFuture.completedFuture(null), written);
+            return written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Masking JSON Lines is interrupted");
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            written.cancel(true);
+            workers.shutdownNow();
+            writerStage.shutdownNow();
+        }
+    }
+
+    private Callable<String[]> maskBatch(List<String> batch, long firstLine) {
+        return () -> {
+            String[] masked = new String[batch.size()];
+            for (int i = 0; i < masked.length; i++) {
+                masked[i] = maskLine(batch.get(i), firstLine + i);
+            }
+            return masked;
+        };
+    }
+
+    /**
+     * Adds the batch to the queue, waiting for space unless the writer has already failed.
+     */
+    private static void enqueue(BlockingQueue<Future<String[]>> queue, Future<String[]> batch, Future<Long> written)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (written.isDone()) {
+                written.get();
+                throw new IllegalStateException("The writer of masked JSON Lines stopped");
+            }
+        }
+    }
+
+    /**
+     * Writes the masked batches in the order of the queue until the completed batch without lines.
+     */
+    private static long write(BlockingQueue<Future<String[]>> queue, Writer writer)
+            throws InterruptedException, ExecutionException, IOException {
+        long lines = 0;
+        for (String[] batch = queue.take().get(); batch != null; batch = queue.take().get()) {
+            for (String line : batch) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            lines += batch.length;
+        }
+        return lines;
+    }
+
+    private String maskLine(String line, long number) {
+        if (line.isBlank()) {
+            return line;
+        }
+        try {
+            return jsonMask.mask(line);
+        } catch (InvalidJsonException e) {
+            throw new InvalidJsonException("Line " + number + " is not valid JSON", e);
+        }
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof ExecutionException) {
+            return rethrow(cause.getCause());
+        }
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Builder class for {@link JsonLinesMask}.
+     */
+    public static class Builder {
+        private final JsonMask jsonMask;
+        private int parallelism = 1;
+        private int batchSize = 256;
+        private int queueCapacity = 16;
+
+        private Builder(JsonMask jsonMask) {
+            this.jsonMask = assertNotNull(jsonMask);
+        }
+
+        /**
+         * Sets the number of threads masking lines, {@code 1} by default, which masks lines in the calling thread.
+         *
+         * @param parallelism the number of masking threads.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the number is not positive.
+         */
+        public Builder parallelism(int parallelism) {
+            assertTrue(parallelism > 0, () -> "Parallelism must be positive");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the number of lines masked by one task in the parallel mode, 256 by default.
+         *
+         * @param batchSize the number of lines per task.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the size is not positive.
+         */
+        public Builder batchSize(int batchSize) {
+            assertTrue(batchSize > 0, () -> "Batch size must be positive");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of batches read ahead of the writer in the parallel mode, 16 by default.
+         *
+         * @param queueCapacity the number of batches.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the capacity is not positive.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            assertTrue(queueCapacity > 0, () -> "Queue capacity must be positive");
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link JsonLinesMask}.
+         *
+         * @return the JSON Lines mask.
+         */
+        public JsonLinesMask build() {
+            return new JsonLinesMask(this);
+        }
+    }
+}
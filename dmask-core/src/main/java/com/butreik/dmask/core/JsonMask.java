@@ -1,12 +1,30 @@
 package com.butreik.dmask.core;
 
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
- * The {@code JsonMask} class provides a mechanism for masking JSON data according to a set of filter rules.
+ * The {@code JsonMask} interface provides a mechanism for masking JSON data according to a set of filter rules.
  * Filters are defined as pairs of JSON paths and maskers, where each masker is responsible for masking data
  * that matches the corresponding JSON path.
  * <p>
- * The class uses the {@code com.jayway.jsonpath} library for parsing and modifying JSON data, and allows for
- * the use of custom maskers by implementing the {@code Masker} interface.
+ * {@link JsonMaskImpl} is the default implementation, it uses the {@code com.jayway.jsonpath} library for parsing
+ * and modifying JSON data, and allows for the use of custom maskers created with {@link Masker#builder()}.
+ * <p>
+ * JSON data can be masked as a string, as UTF-8 encoded bytes, as streams or as a parsed document. Since
+ * {@code mask} is overloaded for strings, byte arrays and maps, a {@code null} literal is ambiguous:
+ * {@code mask(null)}, which compiled when only {@link #mask(String)} existed, must be written as
+ * {@code mask((String) null)}.
  *
  * @author Vladimir Rudnev
  */
@@ -19,4 +37,80 @@ public interface JsonMask {
      * @return the masked JSON data.
      */
     String mask(String input);
+
+    /**
+     * Masks the specified UTF-8 encoded JSON input according to the configured filters
+     * and returns the UTF-8 encoded masked result.
+     *
+     * @param input the UTF-8 encoded JSON data to be masked.
+     * @return the UTF-8 encoded masked JSON data.
+     */
+    default byte[] mask(byte[] input) {
+        return mask(new String(input, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads UTF-8 encoded JSON data from the input stream, masks it according to the configured filters
+     * and writes the UTF-8 encoded masked result to the output stream. Neither stream is closed.
+     *
+     * @param input  the stream of JSON data to be masked.
+     * @param output the stream the masked JSON data is written to.
+     * @throws IOException if reading or writing fails.
+     */
+    default void mask(InputStream input, OutputStream output) throws IOException {
+        output.write(mask(input.readAllBytes()));
+        output.flush();
+    }
+
+    /**
+     * Reads JSON data from the reader, masks it according to the configured filters
+     * and writes the masked result to the writer. Neither the reader nor the writer is closed.
+     *
+     * @param input  the reader of JSON data to be masked.
+     * @param output the writer the masked JSON data is written to.
+     * @throws IOException if reading or writing fails.
+     */
+    default void mask(Reader input, Writer output) throws IOException {
+        StringBuilder json = new StringBuilder();
+        char[] buffer = new char[8192];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            json.append(buffer, 0, read);
+        }
+        output.write(mask(json.toString()));
+        output.flush();
+    }
+
+    /**
+     * Masks the specified JSON inputs according to the configured filters and returns the masked results
+     * in the same order. The default implementation masks the inputs one by one in the calling thread.
+     *
+     * @param inputs the JSON data to be masked.
+     * @return the masked JSON data.
+     */
+    default List<String> maskAll(List<String> inputs) {
+        List<String> results = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            results.add(mask(input));
+        }
+        return results;
+    }
+
+    /**
+     * Masks the specified document, represented with {@code java.util} maps and lists, in place
+     * according to the configured filters. Nested objects and arrays must be mutable.
+     * <p>
+     * The default implementation serializes the document, masks the JSON text and replaces the content
+     * of the document with the result. Implementations are expected to mask the document without serializing it.
+     *
+     * @param document the JSON document to be masked.
+     * @return the same document, masked.
+     */
+    @SuppressWarnings("unchecked")
+    default Map<String, Object> mask(Map<String, Object> document) {
+        JsonProvider provider = new JsonSmartJsonProvider();
+        Map<String, Object> masked = (Map<String, Object>) provider.parse(mask(provider.toJson(document)));
+        document.clear();
+        document.putAll(masked);
+        return document;
+    }
 }
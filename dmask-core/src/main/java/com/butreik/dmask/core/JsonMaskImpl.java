@@ -1,20 +1,45 @@
 package com.butreik.dmask.core;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import com.jayway.jsonpath.spi.mapper.JsonSmartMappingProvider;
+import com.jayway.jsonpath.spi.mapper.MappingProvider;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import static com.butreik.dmask.core.Assert.assertNotEmpty;
 import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
 import static com.butreik.dmask.core.Maskers.REMOVE_MASKER;
 import static com.jayway.jsonpath.Option.ALWAYS_RETURN_LIST;
 import static com.jayway.jsonpath.Option.SUPPRESS_EXCEPTIONS;
@@ -25,31 +50,246 @@ import static com.jayway.jsonpath.Option.SUPPRESS_EXCEPTIONS;
  * that matches the corresponding JSON path.
  * <p>
  * The class uses the {@code com.jayway.jsonpath} library for parsing and modifying JSON data, and allows for
- * the use of custom maskers by implementing the {@code Masker} interface.
+ * the use of custom maskers by implementing the {@code Masker} interface. JSON data is represented with
+ * {@code net.minidev.json} by default, another {@link JsonProvider} or a Jackson {@code ObjectMapper}
+ * can be set with the builder.
+ * <p>
+ * JSON paths consisting of property names, array indexes, wildcards and deep scan are compiled into a matcher
+ * at build time, and the parsed document is traversed once for all of them. Only the other filters, such as those
+ * with filter expressions, are evaluated one by one by the {@code com.jayway.jsonpath} library. Filters are applied
+ * in the order of their maskers, see {@link Masker#getOrder()}, so compiled filters separated by such a filter
+ * in this order are applied by separate traversals.
+ * <p>
+ * Property names masked wherever they appear, see {@link Builder#filterKey(Masker, String...)}, bypass JSON paths:
+ * every property name of the document is looked up once in a hash table, whatever the number of names.
  *
  * @author Vladimir Rudnev
  */
 public class JsonMaskImpl implements JsonMask {
 
     /**
-     * List of filters used to mask JSON data.
+     * Whether ASM, an optional dependency generating the bytecode of traversals, is on the class path.
+     */
+    private static final boolean ASM_PRESENT = isPresent("org.objectweb.asm.ClassWriter");
+
+    /**
+     * Configuration used to mask documents represented with {@code java.util} maps and lists.
+     */
+    private static final Configuration MAP_CONFIG = Configuration.builder()
+            .jsonProvider(new JsonSmartJsonProvider())
+            .mappingProvider(new JsonSmartMappingProvider())
+            .options(ALWAYS_RETURN_LIST, SUPPRESS_EXCEPTIONS)
+            .build();
+
+    /**
+     * Configuration used by the {@code com.jayway.jsonpath} library to evaluate JSON paths.
+     */
+    private final Configuration jsonpathConfig;
+
+    /**
+     * Codec reading and writing JSON data in the model of the JSON provider.
+     */
+    private final JsonCodec codec;
+
+    /**
+     * The passes applying the filters in their order: traversals with a matcher compiled from a run of filters
+     * and filters evaluated by the {@code com.jayway.jsonpath} library.
+     */
+    private final List<Pass> passes;
+
+    /**
+     * Prefilter detecting inputs that cannot be matched by any filter, or {@code null} if it is not applicable.
+     */
+    private final KeyPrefilter prefilter;
+
+    /**
+     * Listener notified about every applied masker.
+     */
+    private final MaskListener listener;
+
+    /**
+     * Executor masking the chunks of a batch, see {@link #maskAll(List)}.
+     */
+    private final Executor batchExecutor;
+
+    /**
+     * The number of inputs of a batch masked by one task.
      */
-    private final List<Filter> filters;
+    private final int batchChunkSize;
 
     /**
-     * Configuration used by the {@code com.jayway.jsonpath} library to parse JSON data.
+     * Cache of masked results, or {@code null} if it is disabled.
      */
-    private final Configuration jsonpathConfig = Configuration.builder().options(ALWAYS_RETURN_LIST, SUPPRESS_EXCEPTIONS).build();
+    private final ResultCache cache;
 
     /**
-     * Constructs a new {@code JsonMask} object with the specified collection of filters.
+     * Limits on the masked data, or {@code null} if there are none.
+     */
+    private final MaskLimits limits;
+
+    /**
+     * Constructs a new {@code JsonMask} object configured by the specified builder.
      *
-     * @param filters the collection of filters to use for masking JSON data.
+     * @param builder the builder with the filters and options.
      * @throws IllegalArgumentException if the collection of filters is null or empty.
      */
-    private JsonMaskImpl(Collection<Filter> filters) {
-        assertNotEmpty(filters);
-        this.filters = filters.stream().sorted(Comparator.comparingInt(o -> o.getMasker().getOrder())).collect(Collectors.toUnmodifiableList());
+    private JsonMaskImpl(Builder builder) {
+        this(builder, builder.resolveFilters(), builder.cacheMaxEntries > 0
+                ? new ResultCache(builder.cacheMaxEntries, builder.cacheMaxBytes) : null);
+    }
+
+    /**
+     * Constructs a new {@code JsonMask} object with the specified filters and the options of the builder.
+     *
+     * @param builder the builder with the options and the property names masked at any depth.
+     * @param filters the filters.
+     * @param cache   the cache of masked results, or {@code null} if it is disabled.
+     * @throws IllegalArgumentException if there are neither filters nor masked property names.
+     */
+    private JsonMaskImpl(Builder builder, List<Filter> filters, ResultCache cache) {
+        KeyTable keys = builder.resolveKeys();
+        if (keys == null) {
+            assertNotEmpty(filters);
+        }
+        List<Filter> sorted = filters.stream()
+                .sorted(Comparator.comparingInt(o -> o.getMasker().getOrder()))
+                .collect(Collectors.toUnmodifiableList());
+        this.prefilter = builder.prefilter ? prefilter(sorted, keys) : null;
+        this.listener = builder.listener;
+        this.jsonpathConfig = Configuration.builder()
+                .jsonProvider(builder.jsonProvider != null ? builder.jsonProvider : new JsonSmartJsonProvider())
+                .mappingProvider(builder.mappingProvider != null ? builder.mappingProvider : new JsonSmartMappingProvider())
+                .options(ALWAYS_RETURN_LIST, SUPPRESS_EXCEPTIONS)
+                .build();
+        List<Pass> compiled = compilePasses(sorted, keys);
+        if (builder.bytecode && ASM_PRESENT
+                && jsonpathConfig.jsonProvider().getClass() == JsonSmartJsonProvider.class) {
+            compiled = compiled.stream().map(pass -> pass.generate(listener)).collect(Collectors.toList());
+        }
+        this.passes = compiled;
+        this.codec = JsonCodec.of(jsonpathConfig.jsonProvider());
+        this.batchExecutor = builder.batchExecutor;
+        this.batchChunkSize = builder.batchChunkSize;
+        this.cache = cache;
+        this.limits = builder.limits.isLimited() ? builder.limits : null;
+    }
+
+    /**
+     * Compiles the runs of the specified filters that the matcher supports, so that a document is traversed once
+     * for each run. Filters with the same masker order keep the order they were added in, so a filter the matcher
+     * does not support ends the run even if it has the same order.
+     * The property names masked at any depth are matched in the order of their maskers, after the filters
+     * with the same order.
+     *
+     * @param filters the sorted filters.
+     * @param keys    the property names masked at any depth, or {@code null}.
+     * @return the passes applying the filters.
+     */
+    private static List<Pass> compilePasses(List<Filter> filters, KeyTable keys) {
+        Set<Filter> keyFilters = keys != null ? Set.copyOf(keys.filters()) : Set.of();
+        List<Filter> sequence = new ArrayList<>(filters);
+        if (keys != null) {
+            sequence.addAll(keys.filters());
+        }
+        sequence.sort(Comparator.comparingInt(filter -> filter.getMasker().getOrder()));
+        List<Pass> passes = new ArrayList<>();
+        List<Filter> run = new ArrayList<>();
+        for (Filter filter : sequence) {
+            if (keyFilters.contains(filter) || FilterMatcher.supports(filter)) {
+                run.add(filter);
+                continue;
+            }
+            addTraversals(passes, run, keys, keyFilters);
+            passes.add(new Pass(filter));
+        }
+        addTraversals(passes, run, keys, keyFilters);
+        return passes;
+    }
+
+    /**
+     * Adds the traversals applying the run of filters, and clears the run. The run is split into as few traversals
+     * as possible, where the automaton of the whole run would be too large, or a filter of a node would be
+     * applied before a filter with a lower masker order matching inside the node.
+     */
+    private static void addTraversals(List<Pass> passes, List<Filter> run, KeyTable keys, Set<Filter> keyFilters) {
+        int from = 0;
+        while (from < run.size()) {
+            int to = run.size();
+            Pass pass = traversal(run.subList(from, to), keys, keyFilters);
+            if (pass == null) {
+                // the runs that can be compiled are the prefixes up to some length
+                int low = from;
+                int high = to;
+                while (high - low > 1) {
+                    int middle = (low + high) >>> 1;
+                    Pass candidate = traversal(run.subList(from, middle), keys, keyFilters);
+                    if (candidate != null) {
+                        low = middle;
+                        pass = candidate;
+                    } else {
+                        high = middle;
+                    }
+                }
+                to = pass != null ? low : from + 1;
+                if (pass == null) {
+                    pass = new Pass(run.get(from));
+                }
+            }
+            passes.add(pass);
+            from = to;
+        }
+        run.clear();
+    }
+
+    /**
+     * Compiles the specified filters into one traversal.
+     *
+     * @return the traversal, or {@code null} if the filters cannot be applied by one traversal.
+     */
+    private static Pass traversal(List<Filter> filters, KeyTable keys, Set<Filter> keyFilters) {
+        List<Filter> paths = new ArrayList<>();
+        Set<Filter> selectedKeys = new HashSet<>();
+        for (Filter filter : filters) {
+            if (keyFilters.contains(filter)) {
+                selectedKeys.add(filter);
+            } else {
+                paths.add(filter);
+            }
+        }
+        KeyTable selected = selectedKeys.isEmpty() ? null
+                : selectedKeys.size() == keyFilters.size() ? keys : keys.select(selectedKeys::contains);
+        try {
+            return new Pass(FilterMatcher.compile(paths, selected));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, JsonMaskImpl.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the prefilter of the specified filters and property names masked at any depth.
+     *
+     * @return the prefilter, or {@code null} if it is not applicable.
+     */
+    static KeyPrefilter prefilter(List<Filter> filters, KeyTable keys) {
+        if (keys == null) {
+            return KeyPrefilter.of(filters).orElse(null);
+        }
+        if (keys.isIgnoreCase()) {
+            // the raw text scan is case-sensitive
+            return null;
+        }
+        List<Filter> all = new ArrayList<>(filters);
+        all.addAll(keys.filters());
+        return KeyPrefilter.of(all).orElse(null);
     }
 
     /**
@@ -63,15 +303,293 @@ public class JsonMaskImpl implements JsonMask {
 
     /**
      * Masks the specified JSON input according to the configured filters and returns the masked result.
+     * If the input contains none of the property names required by the filters, it is returned as is.
+     * If the cache is enabled, see {@link Builder#cache(int, long)}, the result of a repeated input is taken from it.
      *
      * @param input the JSON data to be masked.
      * @return the masked JSON data.
+     * @throws IllegalArgumentException if the input is null.
      */
     @Override
     public String mask(String input) {
-        DocumentContext jsonContext = JsonPath.parse(input, jsonpathConfig);
-        filters.forEach(filter -> applyFilters(jsonContext, filter));
-        return jsonContext.jsonString();
+        assertNotNull(input);
+        return mask(input, codec::parse);
+    }
+
+    /**
+     * Masks the specified JSON inputs and returns the masked results in the same order.
+     * <p>
+     * The inputs are split into chunks that are masked in parallel by the executor set with
+     * {@link Builder#batchExecutor(Executor)}, the common fork-join pool by default. Each chunk reuses
+     * the state of one parser for all its inputs. Batches not larger than one chunk are masked by the calling thread.
+     *
+     * @param inputs the JSON data to be masked.
+     * @return the masked JSON data.
+     * @throws com.jayway.jsonpath.InvalidJsonException if any input is not valid JSON.
+     */
+    @Override
+    public List<String> maskAll(List<String> inputs) {
+        return maskAll(inputs, batchExecutor);
+    }
+
+    /**
+     * Masks the specified JSON inputs in parallel by the specified executor
+     * and returns the masked results in the same order, see {@link #maskAll(List)}.
+     *
+     * @param inputs   the JSON data to be masked.
+     * @param executor the executor masking the chunks of the batch.
+     * @return the masked JSON data.
+     * @throws com.jayway.jsonpath.InvalidJsonException if any input is not valid JSON.
+     */
+    public List<String> maskAll(List<String> inputs, Executor executor) {
+        assertNotNull(executor);
+        String[] results = new String[inputs.size()];
+        if (inputs.size() <= batchChunkSize) {
+            maskChunk(inputs, results, 0, inputs.size());
+            return Arrays.asList(results);
+        }
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < inputs.size(); from += batchChunkSize) {
+            int start = from;
+            int end = Math.min(from + batchChunkSize, inputs.size());
+            chunks.add(CompletableFuture.runAsync(() -> maskChunk(inputs, results, start, end), executor));
+        }
+        try {
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    private void maskChunk(List<String> inputs, String[] results, int from, int to) {
+        Function<String, Object> parser = codec.parser();
+        for (int i = from; i < to; i++) {
+            results[i] = mask(inputs.get(i), parser);
+        }
+    }
+
+    private String mask(String input, Function<String, Object> parser) {
+        if (limits == null) {
+            return mask(input, parser, 0);
+        }
+        try {
+            limits.checkLength(input.length());
+            return mask(input, parser, limits.deadline());
+        } catch (MaskLimitExceededException e) {
+            return fallback(e);
+        }
+    }
+
+    private String mask(String input, Function<String, Object> parser, long deadline) {
+        if (prefilter != null && !prefilter.mayMatch(input)) {
+            return input;
+        }
+        if (cache == null) {
+            return parseAndMask(input, parser, deadline);
+        }
+        ResultCache.Key key = ResultCache.key(input);
+        String masked = cache.get(key);
+        if (masked == null) {
+            masked = parseAndMask(input, parser, deadline);
+            cache.put(key, masked);
+        }
+        return masked;
+    }
+
+    private String parseAndMask(String input, Function<String, Object> parser, long deadline) {
+        if (limits != null && limits.limitsStructure()) {
+            limits.checkStructure(input);
+        }
+        return codec.toJson(applyFilters(parser.apply(input), jsonpathConfig, deadline));
+    }
+
+    /**
+     * Handles a document exceeding the limits according to their fallback.
+     *
+     * @param e the exception naming the exceeded limit.
+     * @return the placeholder.
+     * @throws MaskLimitExceededException if the fallback is {@link MaskLimits.Fallback#FAIL}.
+     */
+    private String fallback(MaskLimitExceededException e) {
+        if (limits.getFallback() == MaskLimits.Fallback.REDACT) {
+            return limits.getPlaceholder();
+        }
+        throw e;
+    }
+
+    /**
+     * Returns the statistics of the result cache, see {@link Builder#cache(int, long)}.
+     *
+     * @return the statistics, or an empty optional if the cache is disabled.
+     */
+    public Optional<CacheStats> getCacheStats() {
+        return Optional.ofNullable(cache).map(ResultCache::stats);
+    }
+
+    /**
+     * Masks the specified UTF-8 encoded JSON input according to the configured filters
+     * and returns the UTF-8 encoded masked result. The input is parsed without decoding it into a string first,
+     * unless the JSON provider only supports strings.
+     * If the input contains none of the property names required by the filters, the same array is returned.
+     *
+     * @param input the UTF-8 encoded JSON data to be masked.
+     * @return the UTF-8 encoded masked JSON data.
+     * @throws IllegalArgumentException if the input is null.
+     */
+    @Override
+    public byte[] mask(byte[] input) {
+        assertNotNull(input);
+        if (limits == null) {
+            return mask(input, 0);
+        }
+        try {
+            limits.checkLength(input.length);
+            return mask(input, limits.deadline());
+        } catch (MaskLimitExceededException e) {
+            return fallback(e).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] mask(byte[] input, long deadline) {
+        if (prefilter != null && !prefilter.mayMatch(input)) {
+            return input;
+        }
+        if (limits != null && limits.limitsStructure()) {
+            limits.checkStructure(input);
+        }
+        return codec.toJsonBytes(applyFilters(codec.parse(input), jsonpathConfig, deadline));
+    }
+
+    /**
+     * Reads UTF-8 encoded JSON data from the input stream, masks it according to the configured filters
+     * and writes the UTF-8 encoded masked result to the output stream. Neither stream is closed.
+     * If limits are set, the input is read into memory up to the maximum length and masked as a byte array.
+     *
+     * @param input  the stream of JSON data to be masked.
+     * @param output the stream the masked JSON data is written to.
+     * @throws IOException if reading or writing fails.
+     */
+    @Override
+    public void mask(InputStream input, OutputStream output) throws IOException {
+        if (limits != null) {
+            output.write(mask(limits.getMaxInputLength() == Integer.MAX_VALUE
+                    ? input.readAllBytes() : input.readNBytes(limits.getMaxInputLength() + 1)));
+            return;
+        }
+        codec.write(applyFilters(codec.parse(input), jsonpathConfig), output);
+    }
+
+    /**
+     * Reads JSON data from the reader, masks it according to the configured filters
+     * and writes the masked result to the writer. Neither the reader nor the writer is closed.
+     * If limits are set, the input is read into memory up to the maximum length and masked as a string.
+     *
+     * @param input  the reader of JSON data to be masked.
+     * @param output the writer the masked JSON data is written to.
+     * @throws IOException if reading or writing fails.
+     */
+    @Override
+    public void mask(Reader input, Writer output) throws IOException {
+        if (limits != null) {
+            output.write(mask(read(input, limits.getMaxInputLength())));
+            return;
+        }
+        codec.write(applyFilters(codec.parse(input), jsonpathConfig), output);
+    }
+
+    /**
+     * Reads the reader up to one character more than the maximum length, so that a longer input exceeds the limit.
+     */
+    private static String read(Reader input, int maxLength) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        long limit = maxLength + 1L;
+        int read;
+        while (text.length() < limit
+                && (read = input.read(buffer, 0, (int) Math.min(buffer.length, limit - text.length()))) >= 0) {
+            text.append(buffer, 0, read);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Masks the specified document in place, without serializing it. Nested objects must be mutable
+     * {@link Map} instances and nested arrays mutable {@link List} instances, other values are passed
+     * to the map functions as is.
+     *
+     * @param document the JSON document to be masked.
+     * @return the same document, masked.
+     */
+    @Override
+    public Map<String, Object> mask(Map<String, Object> document) {
+        Object masked = applyFilters(document, MAP_CONFIG);
+        if (masked != document) {
+            throw new IllegalStateException("The root of the document cannot be replaced in place");
+        }
+        return document;
+    }
+
+    /**
+     * Masks an already parsed document in place, without serializing it. The document is either a tree
+     * of the JSON provider of this instance, for example a Jackson {@code JsonNode} if the instance is built
+     * with {@link Builder#objectMapper}, or a tree of mutable {@link Map} and {@link List} instances.
+     * <p>
+     * Containers are modified in place. A new value is returned only if a filter matches the root of the document.
+     *
+     * @param document the JSON document to be masked.
+     * @param <T>      the type of the document.
+     * @return the masked document.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T maskTree(T document) {
+        JsonProvider provider = jsonpathConfig.jsonProvider();
+        boolean providerTree = provider.isMap(document) || provider.isArray(document);
+        boolean collection = document instanceof Map || document instanceof List;
+        return (T) applyFilters(document, providerTree || !collection ? jsonpathConfig : MAP_CONFIG);
+    }
+
+    /**
+     * Applies all filters to the given parsed JSON document.
+     *
+     * @param document the JSON document.
+     * @param config   the configuration of the JSON provider the document was parsed with.
+     * @return the masked document.
+     */
+    private Object applyFilters(Object document, Configuration config) {
+        return applyFilters(document, config, 0);
+    }
+
+    /**
+     * Applies all filters to the given parsed JSON document within the time budget.
+     *
+     * @param document the JSON document.
+     * @param config   the configuration of the JSON provider the document was parsed with.
+     * @param deadline the deadline of {@link MaskLimits#deadline()}, {@code 0} if there is none.
+     * @return the masked document.
+     * @throws MaskLimitExceededException if the deadline passes before or while the filters are applied.
+     */
+    private Object applyFilters(Object document, Configuration config, long deadline) {
+        MaskLimits.checkDeadline(deadline);
+        MaskLimits.Deadline nodeDeadline = MaskLimits.Deadline.of(deadline);
+        Object masked = document;
+        for (Pass pass : passes) {
+            if (pass.traversal != null) {
+                masked = pass.traversal.apply(masked, nodeDeadline);
+            } else if (pass.matcher != null) {
+                masked = pass.matcher.apply(config.jsonProvider(), masked, pass.matcher.root(), listener,
+                        nodeDeadline);
+            } else {
+                DocumentContext jsonContext = JsonPath.using(config).parse(masked);
+                applyFilters(jsonContext, pass.filter, pass.path);
+                masked = jsonContext.json();
+            }
+            MaskLimits.checkDeadline(deadline);
+        }
+        return masked;
     }
 
     /**
@@ -79,13 +597,80 @@ public class JsonMaskImpl implements JsonMask {
      *
      * @param jsonContext the JSON context to apply the filter to.
      * @param filter      the filter to apply.
+     * @param path        the compiled JSON path of the filter.
      */
-    private void applyFilters(DocumentContext jsonContext, Filter filter) {
+    private void applyFilters(DocumentContext jsonContext, Filter filter, JsonPath path) {
         if (REMOVE_MASKER.equals(filter.getMasker())) {
-            jsonContext.delete(filter.getJsonPath());
+            if (listener != MaskListener.NONE) {
+                List<?> matches = jsonContext.read(path);
+                matches.forEach(match -> listener.onMasked(REMOVE_MASKER));
+            }
+            jsonContext.delete(path);
             return;
         }
-        jsonContext.map(filter.getJsonPath(), (currentValue, configuration) -> filter.getMasker().getMapFunction().map(currentValue));
+        jsonContext.map(path, (currentValue, configuration) -> {
+            Object masked = filter.getMasker().getMapFunction().map(currentValue);
+            listener.onMasked(filter.getMasker());
+            return masked;
+        });
+    }
+
+    /**
+     * Returns the number of traversals applied by generated bytecode, see {@link Builder#bytecode(boolean)}.
+     *
+     * @return the number of generated traversals.
+     */
+    int generatedTraversals() {
+        return (int) passes.stream().filter(pass -> pass.traversal != null).count();
+    }
+
+    /**
+     * A pass over a document: a traversal with a compiled matcher, optionally generated as bytecode,
+     * or a filter evaluated by the {@code com.jayway.jsonpath} library.
+     */
+    private static final class Pass {
+        private final FilterMatcher matcher;
+        private final TraversalGenerator.Traversal traversal;
+        private final Filter filter;
+        private final JsonPath path;
+
+        private Pass(FilterMatcher matcher) {
+            this(matcher, null);
+        }
+
+        private Pass(FilterMatcher matcher, TraversalGenerator.Traversal traversal) {
+            this.matcher = matcher;
+            this.traversal = traversal;
+            this.filter = null;
+            this.path = null;
+        }
+
+        /**
+         * Creates a pass of a filter evaluated by the library. The path is compiled eagerly, so the first masked
+         * documents do not pay for it and invalid paths are reported when the mask is built.
+         */
+        private Pass(Filter filter) {
+            this.matcher = null;
+            this.traversal = null;
+            this.filter = filter;
+            try {
+                this.path = JsonPath.compile(filter.getJsonPath());
+            } catch (InvalidPathException e) {
+                throw new IllegalArgumentException("Invalid JSON path " + filter.getJsonPath(), e);
+            }
+        }
+
+        /**
+         * Returns a pass applying the traversal of the matcher by generated bytecode,
+         * or this pass if it has no matcher or the bytecode cannot be generated.
+         */
+        private Pass generate(MaskListener listener) {
+            if (matcher == null) {
+                return this;
+            }
+            TraversalGenerator.Traversal generated = TraversalGenerator.generate(matcher, listener);
+            return generated != null ? new Pass(matcher, generated) : this;
+        }
     }
 
     /**
@@ -96,6 +681,19 @@ public class JsonMaskImpl implements JsonMask {
         private final Map<String, Masker> maskers = new HashMap<>();
         private final List<Filter> filters = new ArrayList<>();
         private final ArrayList<Pair<String, FiltersBuilder>> filtersBuilders = new ArrayList<>();
+        private final Map<String, List<Filter>> keyFilters = new LinkedHashMap<>();
+        private final List<Pair<String, List<String>>> keyFiltersByMaskerName = new ArrayList<>();
+        private boolean ignoreKeyCase;
+        private boolean prefilter = true;
+        private boolean bytecode;
+        private MaskListener listener = MaskListener.NONE;
+        private JsonProvider jsonProvider;
+        private MappingProvider mappingProvider;
+        private Executor batchExecutor = ForkJoinPool.commonPool();
+        private int batchChunkSize = 64;
+        private int cacheMaxEntries;
+        private long cacheMaxBytes;
+        private MaskLimits limits = MaskLimits.NONE;
 
         private Builder() {
         }
@@ -211,19 +809,359 @@ public class JsonMaskImpl implements JsonMask {
             return this;
         }
 
+        /**
+         * Masks the properties with the specified names wherever they appear in a document, like the JSON paths
+         * {@code $..name}, but without evaluating JSON paths: every property name of a document is looked up once
+         * in a hash table, so the cost does not depend on the number of names.
+         *
+         * @param masker The Masker to apply to the values of the properties.
+         * @param names  The property names.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder filterKey(Masker masker, String... names) {
+            assertNotNull(masker);
+            assertTrue(names.length > 0, () -> "At least one property name is required");
+            masker(masker);
+            for (String name : names) {
+                keyFilters.computeIfAbsent(assertNotEmpty(name), n -> new ArrayList<>()).add(keyFilter(name, masker));
+            }
+            return this;
+        }
+
+        /**
+         * Masks the properties with the specified names wherever they appear in a document,
+         * see {@link #filterKey(Masker, String...)}.
+         *
+         * @param maskerName The name of the Masker to apply to the values of the properties.
+         * @param names      The property names.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder filterKey(String maskerName, String... names) {
+            return filterKey(maskerName, Arrays.asList(names));
+        }
+
+        /**
+         * Masks the properties with the specified names wherever they appear in a document,
+         * see {@link #filterKey(Masker, String...)}.
+         *
+         * @param maskerName The name of the Masker to apply to the values of the properties.
+         * @param names      The property names.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder filterKey(String maskerName, Collection<String> names) {
+            assertNotEmpty(maskerName);
+            assertNotEmpty(names);
+            names.forEach(Assert::assertNotEmpty);
+            keyFiltersByMaskerName.add(new Pair<>(maskerName, List.copyOf(names)));
+            return this;
+        }
+
+        /**
+         * Sets whether the property names of {@link #filterKey(Masker, String...)} are matched ignoring case,
+         * which is disabled by default. Ignoring case also disables the prefilter.
+         *
+         * @param ignoreKeyCase whether the case of property names is ignored.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder ignoreKeyCase(boolean ignoreKeyCase) {
+            this.ignoreKeyCase = ignoreKeyCase;
+            return this;
+        }
+
+        /**
+         * Creates the filter of a property name masked at any depth, with the equivalent JSON path.
+         */
+        private static Filter keyFilter(String name, Masker masker) {
+            String jsonPath = "$..['" + name.replace("\\", "\\\\").replace("'", "\\'") + "']";
+            return Filter.builder().jsonPath(jsonPath).masker(masker).build();
+        }
+
+        /**
+         * Enables or disables the raw-text prefilter, which is enabled by default.
+         * <p>
+         * The prefilter scans the input for the property names the filters require, such as {@code password}
+         * for {@code $..password}, whether quoted or not, and returns inputs without any of them unchanged
+         * instead of parsing them.
+         * Such inputs are neither validated nor reformatted.
+         *
+         * @param prefilter whether the prefilter is enabled.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder prefilter(boolean prefilter) {
+            this.prefilter = prefilter;
+            return this;
+        }
+
+        /**
+         * Enables or disables generating the traversals of compiled JSON paths as bytecode, which is disabled by default.
+         * <p>
+         * Every state of the matcher compiled from the filters becomes a method of a hidden class that compares
+         * property names and array indexes with constants and calls the map functions directly, and maskers returning
+         * a constant string are folded into the constant, so the JIT can inline the whole traversal. Matchers with
+         * more than 256 states, property names ignoring case and JSON providers
+         * other than {@link JsonSmartJsonProvider} are still interpreted, as they are when the bytecode cannot be
+         * generated, for example in a native image.
+         * <p>
+         * The bytecode is generated with ASM, an optional dependency: add {@code org.ow2.asm:asm} to the application,
+         * otherwise all traversals are interpreted.
+         *
+         * @param bytecode whether traversals are generated as bytecode.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder bytecode(boolean bytecode) {
+            this.bytecode = bytecode;
+            return this;
+        }
+
+        /**
+         * Sets the listener notified every time a masker is applied to a JSON value, for example to collect metrics.
+         *
+         * @param listener the listener.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder listener(MaskListener listener) {
+            assertNotNull(listener);
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Sets the JSON provider used to parse, modify and serialize JSON data,
+         * {@link JsonSmartJsonProvider} is used by default. It is ignored by {@link #buildStreaming()}.
+         *
+         * @param jsonProvider the JSON provider.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder jsonProvider(JsonProvider jsonProvider) {
+            assertNotNull(jsonProvider);
+            this.jsonProvider = jsonProvider;
+            return this;
+        }
+
+        /**
+         * Sets the mapping provider used by the {@code com.jayway.jsonpath} library,
+         * {@code JsonSmartMappingProvider} is used by default. It is ignored by {@link #buildStreaming()}.
+         *
+         * @param mappingProvider the mapping provider.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder mappingProvider(MappingProvider mappingProvider) {
+            assertNotNull(mappingProvider);
+            this.mappingProvider = mappingProvider;
+            return this;
+        }
+
+        /**
+         * Uses the specified Jackson object mapper to parse and serialize JSON data.
+         * Documents are represented as {@code JsonNode} trees, see {@link JacksonJsonNodeJsonProvider}.
+         * It is ignored by {@link #buildStreaming()}.
+         *
+         * @param objectMapper the object mapper.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            assertNotNull(objectMapper);
+            this.jsonProvider = new JacksonJsonNodeJsonProvider(objectMapper);
+            this.mappingProvider = new JacksonMappingProvider(objectMapper);
+            return this;
+        }
+
+        /**
+         * Sets the executor masking batches in parallel, see {@link JsonMaskImpl#maskAll(List)}.
+         * The common fork-join pool is used by default.
+         *
+         * @param batchExecutor the executor.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder batchExecutor(Executor batchExecutor) {
+            assertNotNull(batchExecutor);
+            this.batchExecutor = batchExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the number of inputs of a batch masked by one task, 64 by default.
+         *
+         * @param batchChunkSize the chunk size.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the chunk size is not positive.
+         */
+        public Builder batchChunkSize(int batchChunkSize) {
+            assertTrue(batchChunkSize > 0, () -> "Batch chunk size must be positive");
+            this.batchChunkSize = batchChunkSize;
+            return this;
+        }
+
+        /**
+         * Enables the cache of masked results for {@link JsonMaskImpl#mask(String)} and
+         * {@link JsonMaskImpl#maskAll(List)}, so repeated identical inputs are parsed and masked only once.
+         * The cache is disabled by default.
+         * <p>
+         * Inputs are looked up by a 128-bit hash, which is the only thing kept of them, so unmasked inputs are not
+         * retained by the cache. The least recently used entries are evicted
+         * once either limit is exceeded, entries larger than a share of the size limit are not cached.
+         * The listener is not notified about the maskers of results taken from the cache,
+         * and map functions must return the same value for the same input for cached results to stay correct.
+         *
+         * @param maxEntries the maximum number of cached results.
+         * @param maxBytes   the maximum estimated size of the cached results in bytes.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if a limit is not positive.
+         */
+        public Builder cache(int maxEntries, long maxBytes) {
+            assertTrue(maxEntries > 0, () -> "Maximum number of cache entries must be positive");
+            assertTrue(maxBytes > 0, () -> "Maximum cache size must be positive");
+            this.cacheMaxEntries = maxEntries;
+            this.cacheMaxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Sets the limits on the masked JSON data, which bound the time and memory spent on hostile input.
+         * There are no limits by default. They apply to serialized input, not to documents masked in place,
+         * and are ignored by {@link #buildStreaming()}.
+         *
+         * @param limits the limits.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder limits(MaskLimits limits) {
+            this.limits = assertNotNull(limits);
+            return this;
+        }
+
         /**
          * Builds the JsonMask object based on the filters that have been added.
+         * All JSON paths are compiled here, so the first masked documents are not slowed down by compilation.
          *
          * @return A new JsonMask instance.
+         * @throws IllegalArgumentException if a JSON path is invalid.
          */
         public JsonMaskImpl build() {
-            filters.addAll(filtersBuilders.stream()
+            return new JsonMaskImpl(this);
+        }
+
+        /**
+         * Compiles the filters that have been added into an automaton, for tools generating code that masks
+         * documents like the built {@link JsonMaskImpl} without interpreting JSON paths.
+         *
+         * @return the automaton of the filters.
+         * @throws IllegalArgumentException if a JSON path is not supported by the automaton, the case of property names
+         *                                  is ignored, there are neither filters nor property names, or a filter has
+         *                                  a lower masker order than a filter matching inside its node.
+         */
+        public MaskAutomaton buildAutomaton() {
+            List<Filter> filters = resolveFilters();
+            KeyTable keys = resolveKeys();
+            if (keys == null) {
+                assertNotEmpty(filters);
+            }
+            assertTrue(!ignoreKeyCase, () -> "Property names ignoring case are not supported by an automaton");
+            filters.forEach(filter -> assertTrue(FilterMatcher.supports(filter),
+                    () -> "JSON path " + filter.getJsonPath() + " is not supported by an automaton"));
+            List<Filter> sorted = filters.stream()
+                    .sorted(Comparator.comparingInt(filter -> filter.getMasker().getOrder()))
+                    .collect(Collectors.toList());
+            return new MaskAutomaton(FilterMatcher.compile(sorted, keys));
+        }
+
+        /**
+         * Builds a Jackson module masking the properties annotated with {@link Mask} at serialization time,
+         * with the maskers that have been added and the listener. Filters are not used by the module.
+         *
+         * @return A new MaskModule instance.
+         */
+        public MaskModule buildModule() {
+            return new MaskModule(Map.copyOf(maskers), listener);
+        }
+
+        /**
+         * Builds the StreamingJsonMask object based on the filters that have been added.
+         * The streaming implementation masks JSON data in a single pass without building a document tree.
+         *
+         * @return A new StreamingJsonMask instance.
+         * @throws IllegalArgumentException if any JSON path is not supported by {@link StreamingJsonMask},
+         *                                  or a filter has a lower masker order than a filter matching inside its node.
+         */
+        public StreamingJsonMask buildStreaming() {
+            return new StreamingJsonMask(resolveFilters(), resolveKeys(), prefilter, listener, null);
+        }
+
+        /**
+         * Builds a StreamingJsonMask that masks every element of the array at the specified JSON path
+         * as an independent document, so the memory used depends on the largest element, not on the whole input.
+         * <p>
+         * Filters starting with the elements of the array, such as {@code $.items[*].card.number}
+         * for the array {@code $.items}, are rewritten relative to an element ({@code $.card.number}) and applied by
+         * a {@link JsonMaskImpl} to each element in turn, so they may use any JSON path. Deep scan filters are applied
+         * both inside and outside the elements, and so are the property names of {@link #filterKey(Masker, String...)}.
+         * The other filters are applied outside the array
+         * and must be supported by {@link StreamingJsonMask}. The limits set with {@link #limits(MaskLimits)}
+         * apply to each element.
+         *
+         * @param arrayPath the definite JSON path of the array, {@code $} for a top-level array.
+         * @return A new StreamingJsonMask instance.
+         * @throws IllegalArgumentException if the JSON path of the array is not supported by {@link StreamingJsonMask},
+         *                                  or a filter selects an element itself or the array other than with {@code [*]}.
+         */
+        public StreamingJsonMask buildElementWise(String arrayPath) {
+            assertNotEmpty(arrayPath);
+            String elements = arrayPath + "[*]";
+            List<Filter> outside = new ArrayList<>();
+            List<Filter> inside = new ArrayList<>();
+            for (Filter filter : resolveFilters()) {
+                String jsonPath = filter.getJsonPath();
+                if (jsonPath.startsWith(elements)) {
+                    String relative = jsonPath.substring(elements.length());
+                    assertTrue(!relative.isEmpty(),
+                            () -> "JSON path " + jsonPath + " must select values inside the elements of " + arrayPath);
+                    inside.add(Filter.builder().jsonPath("$" + relative).masker(filter.getMasker()).build());
+                } else if (jsonPath.startsWith("$..")) {
+                    outside.add(filter);
+                    inside.add(filter);
+                } else {
+                    assertTrue(!jsonPath.startsWith(arrayPath + "[") && !jsonPath.startsWith(arrayPath + "."),
+                            () -> "JSON path " + jsonPath + " must select the elements of " + arrayPath + " with [*]");
+                    outside.add(filter);
+                }
+            }
+            KeyTable keys = resolveKeys();
+            if (inside.isEmpty() && keys == null) {
+                return new StreamingJsonMask(outside, null, prefilter, listener, null);
+            }
+            outside.add(Filter.builder().jsonPath(elements).masker(StreamingJsonMask.ELEMENT_MASKER).build());
+            return new StreamingJsonMask(outside, keys, prefilter, listener, new JsonMaskImpl(this, inside, null));
+        }
+
+        /**
+         * Resolves the filters added by masker name and returns them together with the other filters.
+         *
+         * @return the list of all filters.
+         */
+        private List<Filter> resolveFilters() {
+            List<Filter> resolved = new ArrayList<>(filters);
+            resolved.addAll(filtersBuilders.stream()
                     .map(p -> p.getRight().masker(
                             assertNotNull(maskers.get(p.getLeft()), () -> "Masker " + p.getLeft() + " not defined")
                     ).build())
                     .flatMap(Collection::stream)
                     .collect(Collectors.toList()));
-            return new JsonMaskImpl(filters);
+            return resolved;
+        }
+
+        /**
+         * Resolves the property names masked at any depth, including those added by masker name.
+         *
+         * @return the table of the names, or {@code null} if there are none.
+         */
+        private KeyTable resolveKeys() {
+            Map<String, List<Filter>> resolved = new LinkedHashMap<>();
+            keyFilters.forEach((name, filters) -> resolved.put(name, new ArrayList<>(filters)));
+            for (Pair<String, List<String>> pair : keyFiltersByMaskerName) {
+                Masker masker = assertNotNull(maskers.get(pair.getLeft()), () -> "Masker " + pair.getLeft() + " not defined");
+                pair.getRight().forEach(name ->
+                        resolved.computeIfAbsent(name, n -> new ArrayList<>()).add(keyFilter(name, masker)));
+            }
+            return KeyTable.of(resolved, ignoreKeyCase);
         }
 
         /**
@@ -0,0 +1,216 @@
+package com.butreik.dmask.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A sequential destination of JSON text units used by the streaming engine.
+ * <p>
+ * Raw units copied from a {@link JsonSource} are written as is, so the sink must use the same representation
+ * as the source. Replacement values are written as strings and encoded by the sink.
+ *
+ * @author Vladimir Rudnev
+ */
+abstract class JsonSink {
+
+    /**
+     * Writes a raw unit.
+     *
+     * @param unit the unit to write.
+     * @throws IOException if the underlying stream fails.
+     */
+    abstract void write(int unit) throws IOException;
+
+    /**
+     * Writes raw units.
+     *
+     * @param units  the units to write.
+     * @param length the number of units.
+     * @throws IOException if the underlying stream fails.
+     */
+    void write(char[] units, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            write(units[i]);
+        }
+    }
+
+    /**
+     * Writes the specified text, encoding it if necessary.
+     *
+     * @param text the text to write.
+     * @throws IOException if the underlying stream fails.
+     */
+    abstract void writeString(String text) throws IOException;
+
+    /**
+     * Flushes buffered units to the underlying stream, if any.
+     *
+     * @throws IOException if the underlying stream fails.
+     */
+    abstract void flush() throws IOException;
+
+    /**
+     * Creates a sink collecting chars in memory, see {@link CharSink#toString()}.
+     *
+     * @param capacity the initial capacity.
+     * @return the sink.
+     */
+    static CharSink chars(int capacity) {
+        return new CharSink(capacity, null);
+    }
+
+    /**
+     * Creates a sink writing chars to the specified writer.
+     *
+     * @param output the writer.
+     * @return the sink.
+     */
+    static CharSink chars(Writer output) {
+        return new CharSink(JsonSource.BUFFER_SIZE, output);
+    }
+
+    /**
+     * Creates a sink collecting UTF-8 bytes in memory, see {@link ByteSink#toByteArray()}.
+     *
+     * @param capacity the initial capacity.
+     * @return the sink.
+     */
+    static ByteSink bytes(int capacity) {
+        return new ByteSink(capacity, null);
+    }
+
+    /**
+     * Creates a sink writing UTF-8 bytes to the specified stream.
+     *
+     * @param output the stream.
+     * @return the sink.
+     */
+    static ByteSink bytes(OutputStream output) {
+        return new ByteSink(JsonSource.BUFFER_SIZE, output);
+    }
+
+    static final class CharSink extends JsonSink {
+        private final Writer output;
+        private char[] buffer;
+        private int length;
+
+        private CharSink(int capacity, Writer output) {
+            this.buffer = new char[Math.max(capacity, 16)];
+            this.output = output;
+        }
+
+        @Override
+        void write(int unit) throws IOException {
+            if (length == buffer.length) {
+                drain(1);
+            }
+            buffer[length++] = (char) unit;
+        }
+
+        @Override
+        void writeString(String text) throws IOException {
+            int textLength = text.length();
+            if (length + textLength > buffer.length) {
+                drain(textLength);
+            }
+            if (textLength > buffer.length) {
+                output.write(text);
+                return;
+            }
+            text.getChars(0, textLength, buffer, length);
+            length += textLength;
+        }
+
+        @Override
+        void flush() throws IOException {
+            if (output != null) {
+                output.write(buffer, 0, length);
+                length = 0;
+                output.flush();
+            }
+        }
+
+        private void drain(int required) throws IOException {
+            if (output == null) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + required));
+            } else {
+                output.write(buffer, 0, length);
+                length = 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, 0, length);
+        }
+    }
+
+    static final class ByteSink extends JsonSink {
+        private final OutputStream output;
+        private byte[] buffer;
+        private int length;
+
+        private ByteSink(int capacity, OutputStream output) {
+            this.buffer = new byte[Math.max(capacity, 16)];
+            this.output = output;
+        }
+
+        @Override
+        void write(int unit) throws IOException {
+            if (length == buffer.length) {
+                drain(1);
+            }
+            buffer[length++] = (byte) unit;
+        }
+
+        @Override
+        void writeString(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                int c = text.charAt(i);
+                if (c < 0x80) {
+                    write(c);
+                } else if (c < 0x800) {
+                    write(0xC0 | c >> 6);
+                    write(0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate((char) c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint((char) c, text.charAt(++i));
+                    write(0xF0 | cp >> 18);
+                    write(0x80 | cp >> 12 & 0x3F);
+                    write(0x80 | cp >> 6 & 0x3F);
+                    write(0x80 | cp & 0x3F);
+                } else if (Character.isSurrogate((char) c)) {
+                    write('?');
+                } else {
+                    write(0xE0 | c >> 12);
+                    write(0x80 | c >> 6 & 0x3F);
+                    write(0x80 | c & 0x3F);
+                }
+            }
+        }
+
+        @Override
+        void flush() throws IOException {
+            if (output != null) {
+                output.write(buffer, 0, length);
+                length = 0;
+                output.flush();
+            }
+        }
+
+        private void drain(int required) throws IOException {
+            if (output == null) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + required));
+            } else {
+                output.write(buffer, 0, length);
+                length = 0;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+}
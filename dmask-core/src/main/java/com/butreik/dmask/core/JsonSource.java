@@ -0,0 +1,176 @@
+package com.butreik.dmask.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A sequential source of JSON text units used by the streaming engine.
+ * <p>
+ * Units are either UTF-16 chars or UTF-8 bytes, see {@link #isBytes()}. All JSON structural characters are ASCII,
+ * so the engine tokenizes both representations in the same way and decodes only the strings it needs.
+ *
+ * @author Vladimir Rudnev
+ */
+abstract class JsonSource {
+
+    /**
+     * The size of the buffer used to read from streams.
+     */
+    static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Reads the next unit.
+     *
+     * @return the next unit, or {@code -1} at the end of input.
+     * @throws IOException if the underlying stream fails.
+     */
+    abstract int read() throws IOException;
+
+    /**
+     * Returns whether the units are UTF-8 bytes rather than UTF-16 chars.
+     *
+     * @return {@code true} for byte sources.
+     */
+    abstract boolean isBytes();
+
+    /**
+     * Decodes the specified units into a string.
+     *
+     * @param units  the units read from this source.
+     * @param length the number of units.
+     * @return the decoded string.
+     */
+    String decode(char[] units, int length) {
+        if (isBytes()) {
+            for (int i = 0; i < length; i++) {
+                if (units[i] >= 0x80) {
+                    byte[] bytes = new byte[length];
+                    for (int j = 0; j < length; j++) {
+                        bytes[j] = (byte) units[j];
+                    }
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return new String(units, 0, length);
+    }
+
+    /**
+     * Creates a source reading the chars of the specified string.
+     *
+     * @param input the JSON text.
+     * @return the source.
+     */
+    static JsonSource of(CharSequence input) {
+        return new CharSequenceSource(input);
+    }
+
+    /**
+     * Creates a source reading the specified UTF-8 bytes.
+     *
+     * @param input the JSON text encoded in UTF-8.
+     * @return the source.
+     */
+    static JsonSource of(byte[] input) {
+        return new ByteSource(input, input.length, null);
+    }
+
+    /**
+     * Creates a source reading UTF-8 bytes from the specified stream.
+     *
+     * @param input the stream of JSON text encoded in UTF-8.
+     * @return the source.
+     */
+    static JsonSource of(InputStream input) {
+        return new ByteSource(new byte[BUFFER_SIZE], 0, input);
+    }
+
+    /**
+     * Creates a source reading chars from the specified reader.
+     *
+     * @param input the reader of JSON text.
+     * @return the source.
+     */
+    static JsonSource of(Reader input) {
+        return new ReaderSource(input);
+    }
+
+    private static final class CharSequenceSource extends JsonSource {
+        private final CharSequence input;
+        private int pos;
+
+        private CharSequenceSource(CharSequence input) {
+            this.input = input;
+        }
+
+        @Override
+        int read() {
+            return pos < input.length() ? input.charAt(pos++) : -1;
+        }
+
+        @Override
+        boolean isBytes() {
+            return false;
+        }
+    }
+
+    private static final class ByteSource extends JsonSource {
+        private final byte[] buffer;
+        private final InputStream input;
+        private int length;
+        private int pos;
+
+        private ByteSource(byte[] buffer, int length, InputStream input) {
+            this.buffer = buffer;
+            this.length = length;
+            this.input = input;
+        }
+
+        @Override
+        int read() throws IOException {
+            if (pos == length) {
+                if (input == null || (length = input.read(buffer)) <= 0) {
+                    length = pos;
+                    return -1;
+                }
+                pos = 0;
+            }
+            return buffer[pos++] & 0xFF;
+        }
+
+        @Override
+        boolean isBytes() {
+            return true;
+        }
+    }
+
+    private static final class ReaderSource extends JsonSource {
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private final Reader input;
+        private int length;
+        private int pos;
+
+        private ReaderSource(Reader input) {
+            this.input = input;
+        }
+
+        @Override
+        int read() throws IOException {
+            if (pos == length) {
+                if ((length = input.read(buffer)) <= 0) {
+                    length = pos;
+                    return -1;
+                }
+                pos = 0;
+            }
+            return buffer[pos++];
+        }
+
+        @Override
+        boolean isBytes() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,706 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.InvalidJsonException;
+import net.minidev.json.JSONStyle;
+import net.minidev.json.JSONValue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a single JSON document from a {@link JsonSource} to a {@link JsonSink} in one pass.
+ * <p>
+ * The rewriter tracks the state of the {@link FilterMatcher} while tokenizing the input. Subtrees that cannot
+ * be matched by any filter are copied unit by unit without decoding. Values matched by a filter are decoded
+ * into the same Java types {@code com.jayway.jsonpath} produces, passed to the map functions and serialized back.
+ * Values matched by {@link Maskers#REMOVE_MASKER} are skipped together with their property names.
+ * Array elements selected by {@link StreamingJsonMask#ELEMENT_MASKER} are collected and masked by the element mask.
+ * <p>
+ * Instances are not thread-safe and are meant to rewrite exactly one document.
+ *
+ * @author Vladimir Rudnev
+ */
+final class JsonStreamRewriter {
+
+    /**
+     * The tokens expected next while a container is copied, see {@link #copyValue(boolean)}.
+     */
+    private static final int VALUE = 0;
+    private static final int FIRST_VALUE = 1;
+    private static final int NAME = 2;
+    private static final int FIRST_NAME = 3;
+    private static final int COLON = 4;
+    private static final int SEPARATOR = 5;
+
+    private final FilterMatcher matcher;
+    private final MaskListener listener;
+    private final JsonMask elementMask;
+    private final JsonSource in;
+    private JsonSink out;
+
+    /**
+     * The current unit, or {@code -1} at the end of input.
+     */
+    private int c;
+
+    /**
+     * The number of units read so far, used in error messages.
+     */
+    private long position;
+
+    /**
+     * Units that are read but not written yet, because the member they belong to may be removed.
+     */
+    private char[] pending = new char[64];
+    private int pendingLength;
+
+    /**
+     * Units of the string, literal or array element being decoded.
+     */
+    private char[] text = new char[64];
+    private int textLength;
+
+    /**
+     * A sink collecting raw units into {@link #text}, used to collect array elements.
+     */
+    private final JsonSink textSink = new JsonSink() {
+        @Override
+        void write(int unit) {
+            text(unit);
+        }
+
+        @Override
+        void writeString(String value) {
+            throw new UnsupportedOperationException("Only raw units are collected");
+        }
+
+        @Override
+        void flush() {
+        }
+    };
+
+    /**
+     * Container types of the subtree being copied: {@code true} for objects, {@code false} for arrays.
+     */
+    private boolean[] containers = new boolean[16];
+
+    JsonStreamRewriter(FilterMatcher matcher, MaskListener listener, JsonMask elementMask, JsonSource in, JsonSink out) {
+        this.matcher = matcher;
+        this.listener = listener;
+        this.elementMask = elementMask;
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Rewrites the document.
+     *
+     * @throws IOException          if the source or the sink fails.
+     * @throws InvalidJsonException if the input is not valid JSON.
+     */
+    void rewrite() throws IOException {
+        next();
+        copyWhitespace();
+        if (c == -1) {
+            throw invalid("unexpected end of input");
+        }
+        value(matcher.root());
+        copyWhitespace();
+        if (c != -1) {
+            throw invalid("unexpected character after the document");
+        }
+        out.flush();
+    }
+
+    private void value(int state) throws IOException {
+        if (state == FilterMatcher.DEAD) {
+            copyValue(true);
+            return;
+        }
+        Filter[] filters = matcher.filters(state);
+        if (elementMask != null && isElement(filters)) {
+            maskElement();
+            return;
+        }
+        if (filters.length > 0) {
+            out.writeString(JSONValue.toJSONString(readValue(state), JSONStyle.LT_COMPRESS));
+            return;
+        }
+        if (c == '{') {
+            object(state);
+        } else if (c == '[') {
+            array(state);
+        } else {
+            copyValue(true);
+        }
+    }
+
+    private void object(int state) throws IOException {
+        boolean names = matcher.hasNames(state);
+        boolean first = true;
+        out.write(c);
+        next();
+        pendWhitespace();
+        if (c == '}') {
+            closeContainer();
+            return;
+        }
+        while (true) {
+            if (c != '"') {
+                throw invalid("property name expected");
+            }
+            boolean escaped = pendString(names);
+            pendWhitespace();
+            if (c != ':') {
+                throw invalid("':' expected");
+            }
+            pend(c);
+            next();
+            pendWhitespace();
+            int nextState = names ? matcher.next(state, decode(escaped)) : matcher.nextOther(state);
+            first = member(nextState, first);
+            if (!separator('}')) {
+                return;
+            }
+        }
+    }
+
+    private void array(int state) throws IOException {
+        boolean first = true;
+        int index = 0;
+        out.write(c);
+        next();
+        pendWhitespace();
+        if (c == ']') {
+            closeContainer();
+            return;
+        }
+        while (true) {
+            first = member(matcher.next(state, index++), first);
+            if (!separator(']')) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes or skips a member of a container, whose name and leading whitespace are pending.
+     *
+     * @return whether no member of the container has been written yet.
+     */
+    private boolean member(int state, boolean first) throws IOException {
+        if (matcher.isRemoved(state)) {
+            pendingLength = 0;
+            copyValue(false);
+            listener.onMasked(Maskers.REMOVE_MASKER);
+            return first;
+        }
+        if (!first) {
+            out.write(',');
+        }
+        out.write(pending, pendingLength);
+        pendingLength = 0;
+        value(state);
+        return false;
+    }
+
+    /**
+     * Consumes the separator after a member of a container.
+     *
+     * @return {@code true} if another member follows, {@code false} if the container is closed.
+     */
+    private boolean separator(char close) throws IOException {
+        pendWhitespace();
+        if (c == ',') {
+            next();
+            pendWhitespace();
+            return true;
+        }
+        if (c != close) {
+            throw invalid("',' or '" + close + "' expected");
+        }
+        closeContainer();
+        return false;
+    }
+
+    private void closeContainer() throws IOException {
+        out.write(pending, pendingLength);
+        pendingLength = 0;
+        out.write(c);
+        next();
+    }
+
+    /**
+     * Masks an array element as an independent document with the element mask. Only the element is held in memory.
+     */
+    private void maskElement() throws IOException {
+        JsonSink sink = out;
+        textLength = 0;
+        out = textSink;
+        try {
+            copyValue(true);
+        } finally {
+            out = sink;
+        }
+        out.writeString(elementMask.mask(in.decode(text, textLength)));
+    }
+
+    private static boolean isElement(Filter[] filters) {
+        for (Filter filter : filters) {
+            if (filter.getMasker() == StreamingJsonMask.ELEMENT_MASKER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies or skips a complete value without matching. The value is checked as strictly as matched values are,
+     * although it is not decoded.
+     */
+    private void copyValue(boolean emit) throws IOException {
+        if (c == '"') {
+            copyString(emit);
+            return;
+        }
+        if (c != '{' && c != '[') {
+            literal(emit, false);
+            return;
+        }
+        int depth = 0;
+        int expected = VALUE;
+        do {
+            if (isWhitespace(c)) {
+                copyUnit(emit);
+                continue;
+            }
+            if (c == -1) {
+                throw invalid("unexpected end of input");
+            }
+            switch (expected) {
+                case NAME:
+                case FIRST_NAME:
+                    if (expected == FIRST_NAME && c == '}') {
+                        depth--;
+                        copyUnit(emit);
+                        expected = SEPARATOR;
+                    } else if (c == '"') {
+                        copyString(emit);
+                        expected = COLON;
+                    } else {
+                        throw invalid("property name expected");
+                    }
+                    break;
+                case COLON:
+                    if (c != ':') {
+                        throw invalid("':' expected");
+                    }
+                    copyUnit(emit);
+                    expected = VALUE;
+                    break;
+                case SEPARATOR:
+                    boolean object = containers[depth - 1];
+                    if (c == ',') {
+                        copyUnit(emit);
+                        expected = object ? NAME : VALUE;
+                    } else if (c == (object ? '}' : ']')) {
+                        depth--;
+                        copyUnit(emit);
+                    } else {
+                        throw invalid("',' or '" + (object ? '}' : ']') + "' expected");
+                    }
+                    break;
+                default:
+                    if (expected == FIRST_VALUE && c == ']') {
+                        depth--;
+                        copyUnit(emit);
+                        expected = SEPARATOR;
+                    } else if (c == '{' || c == '[') {
+                        if (depth == containers.length) {
+                            containers = Arrays.copyOf(containers, depth * 2);
+                        }
+                        containers[depth++] = c == '{';
+                        expected = c == '{' ? FIRST_NAME : FIRST_VALUE;
+                        copyUnit(emit);
+                    } else if (c == '"') {
+                        copyString(emit);
+                        expected = SEPARATOR;
+                    } else {
+                        literal(emit, false);
+                        expected = SEPARATOR;
+                    }
+            }
+        } while (depth > 0);
+    }
+
+    private void copyUnit(boolean emit) throws IOException {
+        if (emit) {
+            out.write(c);
+        }
+        next();
+    }
+
+    /**
+     * Copies or skips a number or one of the literals {@code true}, {@code false} and {@code null},
+     * collecting its units into {@link #text} if required.
+     *
+     * @return whether the literal is a number with a fraction or an exponent.
+     * @throws InvalidJsonException if the literal is not valid.
+     */
+    private boolean literal(boolean emit, boolean collect) throws IOException {
+        boolean decimal = false;
+        if (c == 't' || c == 'f' || c == 'n') {
+            String keyword = c == 't' ? "true" : c == 'f' ? "false" : "null";
+            for (int i = 0; i < keyword.length(); i++) {
+                if (c != keyword.charAt(i)) {
+                    throw invalid(keyword + " expected");
+                }
+                literalUnit(emit, collect);
+            }
+        } else {
+            if (c == '-') {
+                literalUnit(emit, collect);
+            }
+            if (c == '0') {
+                literalUnit(emit, collect);
+            } else {
+                digits(emit, collect);
+            }
+            if (c == '.') {
+                decimal = true;
+                literalUnit(emit, collect);
+                digits(emit, collect);
+            }
+            if (c == 'e' || c == 'E') {
+                decimal = true;
+                literalUnit(emit, collect);
+                if (c == '+' || c == '-') {
+                    literalUnit(emit, collect);
+                }
+                digits(emit, collect);
+            }
+        }
+        if (!isDelimiter(c)) {
+            throw invalid("unexpected character '" + (char) c + "' in literal");
+        }
+        return decimal;
+    }
+
+    private void digits(boolean emit, boolean collect) throws IOException {
+        if (c < '0' || c > '9') {
+            throw invalid(c == -1 ? "unexpected end of input" : "value expected");
+        }
+        do {
+            literalUnit(emit, collect);
+        } while (c >= '0' && c <= '9');
+    }
+
+    private void literalUnit(boolean emit, boolean collect) throws IOException {
+        if (collect) {
+            text(c);
+        }
+        copyUnit(emit);
+    }
+
+    private void copyString(boolean emit) throws IOException {
+        if (emit) {
+            out.write(c);
+        }
+        next();
+        int escape = 0;
+        while (c != '"' || escape != 0) {
+            escape = stringUnit(escape);
+            if (emit) {
+                out.write(c);
+            }
+            next();
+        }
+        if (emit) {
+            out.write(c);
+        }
+        next();
+    }
+
+    /**
+     * Validates the current unit of a string, as strictly as the parsers of the other providers do.
+     *
+     * @param escape the state returned for the previous unit, 0 for the first unit.
+     * @return 0 outside escape sequences, -1 after a backslash, or the number of hex digits left
+     * in a unicode escape sequence.
+     */
+    private int stringUnit(int escape) {
+        if (c == -1) {
+            throw invalid("unterminated string");
+        }
+        if (escape > 0) {
+            if (Character.digit(c, 16) < 0) {
+                throw invalid("invalid unicode escape");
+            }
+            return escape - 1;
+        }
+        if (escape < 0) {
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    return 0;
+                case 'u':
+                    return 4;
+                default:
+                    throw invalid("invalid escape character '" + (char) c + "'");
+            }
+        }
+        if (c < 0x20) {
+            throw invalid("unescaped control character in string");
+        }
+        return c == '\\' ? -1 : 0;
+    }
+
+    /**
+     * Reads a complete value into Java objects, applying the filters of the value and of its descendants.
+     */
+    private Object readValue(int state) throws IOException {
+        Object value;
+        if (c == '{') {
+            Map<String, Object> map = new LinkedHashMap<>();
+            next();
+            skipWhitespace();
+            if (c == '}') {
+                next();
+            } else {
+                do {
+                    if (c != '"') {
+                        throw invalid("property name expected");
+                    }
+                    String name = readString();
+                    skipWhitespace();
+                    if (c != ':') {
+                        throw invalid("':' expected");
+                    }
+                    next();
+                    skipWhitespace();
+                    int nextState = matcher.next(state, name);
+                    if (matcher.isRemoved(nextState)) {
+                        copyValue(false);
+                        listener.onMasked(Maskers.REMOVE_MASKER);
+                    } else {
+                        map.put(name, readValue(nextState));
+                    }
+                } while (readSeparator('}'));
+            }
+            value = map;
+        } else if (c == '[') {
+            List<Object> list = new ArrayList<>();
+            next();
+            skipWhitespace();
+            if (c == ']') {
+                next();
+            } else {
+                int index = 0;
+                do {
+                    int nextState = matcher.next(state, index++);
+                    if (matcher.isRemoved(nextState)) {
+                        copyValue(false);
+                        listener.onMasked(Maskers.REMOVE_MASKER);
+                    } else {
+                        list.add(readValue(nextState));
+                    }
+                } while (readSeparator(']'));
+            }
+            value = list;
+        } else if (c == '"') {
+            value = readString();
+        } else {
+            value = readLiteral();
+        }
+        Filter[] filters = matcher.filters(state);
+        return filters.length > 0 ? FilterMatcher.map(filters, value, listener) : value;
+    }
+
+    private boolean readSeparator(char close) throws IOException {
+        skipWhitespace();
+        if (c == ',') {
+            next();
+            skipWhitespace();
+            return true;
+        }
+        if (c != close) {
+            throw invalid("',' or '" + close + "' expected");
+        }
+        next();
+        return false;
+    }
+
+    private String readString() throws IOException {
+        textLength = 0;
+        boolean escaped = false;
+        int escape = 0;
+        next();
+        while (c != '"' || escape != 0) {
+            escape = stringUnit(escape);
+            escaped |= escape < 0;
+            text(c);
+            next();
+        }
+        next();
+        return decode(escaped);
+    }
+
+    private Object readLiteral() throws IOException {
+        textLength = 0;
+        boolean decimal = literal(false, true);
+        String literal = new String(text, 0, textLength);
+        switch (literal) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "null":
+                return null;
+            default:
+                if (decimal) {
+                    return Double.valueOf(literal);
+                }
+                if (textLength < 19) {
+                    long number = Long.parseLong(literal);
+                    return number == (int) number ? (Object) (int) number : (Object) number;
+                }
+                BigInteger number = new BigInteger(literal);
+                return number.bitLength() < 64 ? (Object) number.longValue() : number;
+        }
+    }
+
+    /**
+     * Adds the string at the current position to the pending units, collecting its content if required.
+     *
+     * @return whether the string contains escape sequences.
+     */
+    private boolean pendString(boolean collect) throws IOException {
+        textLength = 0;
+        boolean escaped = false;
+        int escape = 0;
+        pend(c);
+        next();
+        while (c != '"' || escape != 0) {
+            escape = stringUnit(escape);
+            escaped |= escape < 0;
+            pend(c);
+            if (collect) {
+                text(c);
+            }
+            next();
+        }
+        pend(c);
+        next();
+        return escaped;
+    }
+
+    private String decode(boolean escaped) {
+        String value = in.decode(text, textLength);
+        return escaped ? unescape(value) : value;
+    }
+
+    private String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch != '\\' || i + 1 == value.length()) {
+                result.append(ch);
+                continue;
+            }
+            ch = value.charAt(++i);
+            switch (ch) {
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= value.length()) {
+                        throw invalid("invalid unicode escape");
+                    }
+                    try {
+                        result.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                    } catch (NumberFormatException e) {
+                        throw invalid("invalid unicode escape");
+                    }
+                    i += 4;
+                    break;
+                default:
+                    result.append(ch);
+            }
+        }
+        return result.toString();
+    }
+
+    private void copyWhitespace() throws IOException {
+        while (isWhitespace(c)) {
+            out.write(c);
+            next();
+        }
+    }
+
+    private void pendWhitespace() throws IOException {
+        while (isWhitespace(c)) {
+            pend(c);
+            next();
+        }
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (isWhitespace(c)) {
+            next();
+        }
+    }
+
+    private void pend(int unit) {
+        if (pendingLength == pending.length) {
+            pending = Arrays.copyOf(pending, pendingLength * 2);
+        }
+        pending[pendingLength++] = (char) unit;
+    }
+
+    private void text(int unit) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, textLength * 2);
+        }
+        text[textLength++] = (char) unit;
+    }
+
+    private void next() throws IOException {
+        c = in.read();
+        position++;
+    }
+
+    private static boolean isWhitespace(int unit) {
+        return unit == ' ' || unit == '\n' || unit == '\r' || unit == '\t';
+    }
+
+    private static boolean isDelimiter(int unit) {
+        return unit == -1 || unit == ',' || unit == '}' || unit == ']' || unit == ':' || isWhitespace(unit);
+    }
+
+    private InvalidJsonException invalid(String message) {
+        return new InvalidJsonException("Invalid JSON at position " + position + ": " + message);
+    }
+}
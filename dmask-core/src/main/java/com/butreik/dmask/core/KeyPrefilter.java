@@ -0,0 +1,238 @@
+package com.butreik.dmask.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A raw-text scan that detects JSON documents which cannot be matched by any filter, before they are parsed.
+ * <p>
+ * Every supported JSON path requires some property name to be present in the document. The prefilter
+ * searches the input for all of these names at once, using an Aho-Corasick automaton over UTF-8 bytes.
+ * The {@code net.minidev.json} parser is permissive and also accepts single-quoted and unquoted property names,
+ * so a name followed by any character that may end a property name, such as a quote, a colon or whitespace,
+ * is a possible match. Escape sequences that could spell a property name differently are treated as a possible match.
+ *
+ * @author Vladimir Rudnev
+ */
+final class KeyPrefilter {
+
+    /**
+     * The characters that may follow a property name: the closing quote of a double-quoted or single-quoted name,
+     * or the colon or whitespace after an unquoted name.
+     */
+    private static final char[] NAME_ENDS = {'"', '\'', ':', ' ', '\t', '\n', '\r'};
+
+    /**
+     * Transitions of the automaton, indexed by {@code state * classes + class}.
+     */
+    private final int[] transitions;
+
+    /**
+     * Equivalence classes of bytes, class {@code 0} is any byte that does not occur in patterns.
+     */
+    private final int[] classes;
+
+    /**
+     * The number of byte classes.
+     */
+    private final int classCount;
+
+    /**
+     * Whether a state ends any pattern.
+     */
+    private final boolean[] matches;
+
+    private KeyPrefilter(int[] transitions, int[] classes, int classCount, boolean[] matches) {
+        this.transitions = transitions;
+        this.classes = classes;
+        this.classCount = classCount;
+        this.matches = matches;
+    }
+
+    /**
+     * Creates a prefilter for the specified filters.
+     *
+     * @param filters the filters.
+     * @return the prefilter, or an empty optional if some filter does not require any property name.
+     */
+    static Optional<KeyPrefilter> of(Collection<Filter> filters) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Filter filter : filters) {
+            Optional<CompiledPath> path = CompiledPath.compile(filter.getJsonPath());
+            if (path.isEmpty()) {
+                return Optional.empty();
+            }
+            List<String> required = requiredNames(path.get());
+            if (required.isEmpty()) {
+                return Optional.empty();
+            }
+            names.addAll(required);
+        }
+        return Optional.of(of(names));
+    }
+
+    /**
+     * Creates a prefilter searching for the specified property names.
+     *
+     * @param names the property names.
+     * @return the prefilter.
+     */
+    static KeyPrefilter of(Set<String> names) {
+        List<byte[]> patterns = new ArrayList<>();
+        patterns.add(new byte[]{'\\', 'u'});
+        boolean escapable = false;
+        for (String name : names) {
+            for (char end : NAME_ENDS) {
+                patterns.add((name + end).getBytes(StandardCharsets.UTF_8));
+            }
+            escapable |= name.chars().anyMatch(c -> c == '"' || c == '\'' || c == '\\' || c == '/' || c < 0x20);
+        }
+        if (escapable) {
+            patterns.add(new byte[]{'\\'});
+        }
+        return build(patterns);
+    }
+
+    /**
+     * Returns the names of the last step matching properties by name, any of which must be present in a match.
+     */
+    private static List<String> requiredNames(CompiledPath path) {
+        List<CompiledPath.Step> steps = path.getSteps();
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            if (!steps.get(i).getNames().isEmpty()) {
+                return steps.get(i).getNames();
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Checks whether the specified JSON text may contain any of the property names.
+     *
+     * @param input the JSON text.
+     * @return {@code false} if the text definitely contains none of the property names.
+     */
+    boolean mayMatch(CharSequence input) {
+        int state = 0;
+        for (int i = 0; i < input.length(); i++) {
+            int c = input.charAt(i);
+            if (c < 0x80) {
+                state = transitions[state * classCount + classes[c]];
+            } else {
+                if (Character.isHighSurrogate((char) c) && i + 1 < input.length()) {
+                    c = Character.toCodePoint((char) c, input.charAt(++i));
+                }
+                state = next(state, c);
+            }
+            if (matches[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the specified UTF-8 encoded JSON text may contain any of the property names.
+     *
+     * @param input the UTF-8 encoded JSON text.
+     * @return {@code false} if the text definitely contains none of the property names.
+     */
+    boolean mayMatch(byte[] input) {
+        int state = 0;
+        for (byte b : input) {
+            state = transitions[state * classCount + classes[b & 0xFF]];
+            if (matches[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Feeds the UTF-8 encoding of a non-ASCII code point to the automaton.
+     */
+    private int next(int state, int codePoint) {
+        if (codePoint < 0x800) {
+            state = step(state, 0xC0 | codePoint >> 6);
+        } else {
+            if (codePoint < 0x10000) {
+                state = step(state, 0xE0 | codePoint >> 12);
+            } else {
+                state = step(state, 0xF0 | codePoint >> 18);
+                state = step(state, 0x80 | codePoint >> 12 & 0x3F);
+            }
+            state = step(state, 0x80 | codePoint >> 6 & 0x3F);
+        }
+        return step(state, 0x80 | codePoint & 0x3F);
+    }
+
+    private int step(int state, int b) {
+        return transitions[state * classCount + classes[b]];
+    }
+
+    private static KeyPrefilter build(List<byte[]> patterns) {
+        int[] classes = new int[256];
+        int classCount = 1;
+        for (byte[] pattern : patterns) {
+            for (byte b : pattern) {
+                if (classes[b & 0xFF] == 0) {
+                    classes[b & 0xFF] = classCount++;
+                }
+            }
+        }
+
+        List<int[]> trie = new ArrayList<>();
+        List<Boolean> matches = new ArrayList<>();
+        trie.add(new int[classCount]);
+        matches.add(false);
+        for (byte[] pattern : patterns) {
+            int state = 0;
+            for (byte b : pattern) {
+                int cls = classes[b & 0xFF];
+                if (trie.get(state)[cls] == 0) {
+                    trie.get(state)[cls] = trie.size();
+                    trie.add(new int[classCount]);
+                    matches.add(false);
+                }
+                state = trie.get(state)[cls];
+            }
+            matches.set(state, true);
+        }
+
+        int[] transitions = new int[trie.size() * classCount];
+        int[] failure = new int[trie.size()];
+        boolean[] terminal = new boolean[trie.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < classCount; cls++) {
+            int child = trie.get(0)[cls];
+            transitions[cls] = child;
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        terminal[0] = matches.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            terminal[state] = matches.get(state) || terminal[failure[state]];
+            for (int cls = 0; cls < classCount; cls++) {
+                int child = trie.get(state)[cls];
+                int fallback = transitions[failure[state] * classCount + cls];
+                if (child != 0) {
+                    failure[child] = fallback;
+                    transitions[state * classCount + cls] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * classCount + cls] = fallback;
+                }
+            }
+        }
+        return new KeyPrefilter(transitions, classes, classCount, terminal);
+    }
+}
@@ -0,0 +1,192 @@
+package com.butreik.dmask.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * An open-addressing hash table of the property names masked wherever they appear in a document,
+ * see {@link JsonMaskImpl.Builder#filterKey(Masker, String...)}.
+ * <p>
+ * Names masked by the same maskers form a group, so the {@link FilterMatcher} needs one extra state per group
+ * and matcher state, however many names are configured. Looking up a name costs one hash computation
+ * and usually one comparison, and does not allocate, also when the case of names is ignored.
+ *
+ * @author Vladimir Rudnev
+ */
+final class KeyTable {
+
+    private static final int NO_GROUP = -1;
+
+    private final String[] names;
+    private final int[] groups;
+    private final Filter[][] groupFilters;
+    private final Map<String, List<Filter>> filtersByName;
+    private final List<Filter> filters;
+    private final boolean ignoreCase;
+    private final int mask;
+
+    private KeyTable(Map<String, List<Filter>> filtersByName, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        int capacity = Integer.highestOneBit(Math.max(filtersByName.size(), 1) * 2 - 1) << 1;
+        this.names = new String[capacity];
+        this.groups = new int[capacity];
+        this.mask = capacity - 1;
+        Map<List<Masker>, Integer> groupIds = new HashMap<>();
+        List<Filter[]> groupFilters = new ArrayList<>();
+        for (Map.Entry<String, List<Filter>> entry : filtersByName.entrySet()) {
+            List<Filter> sorted = entry.getValue().stream()
+                    .sorted(Comparator.comparingInt(filter -> filter.getMasker().getOrder()))
+                    .collect(Collectors.toList());
+            List<Masker> maskers = sorted.stream().map(Filter::getMasker).collect(Collectors.toList());
+            int group = groupIds.computeIfAbsent(maskers, m -> {
+                groupFilters.add(sorted.toArray(new Filter[0]));
+                return groupFilters.size() - 1;
+            });
+            int slot = hash(entry.getKey()) & mask;
+            while (names[slot] != null) {
+                slot = slot + 1 & mask;
+            }
+            names[slot] = entry.getKey();
+            groups[slot] = group;
+        }
+        this.groupFilters = groupFilters.toArray(new Filter[0][]);
+        this.filtersByName = filtersByName;
+        this.filters = filtersByName.values().stream().flatMap(List::stream).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Creates a table of the specified filters.
+     *
+     * @param filtersByName the filters of each property name, with JSON paths selecting the name at any depth.
+     * @param ignoreCase    whether the case of property names is ignored.
+     * @return the table, or {@code null} if there are no filters.
+     */
+    static KeyTable of(Map<String, List<Filter>> filtersByName, boolean ignoreCase) {
+        if (filtersByName.isEmpty()) {
+            return null;
+        }
+        if (!ignoreCase) {
+            return new KeyTable(filtersByName, false);
+        }
+        Map<String, List<Filter>> merged = new LinkedHashMap<>();
+        Map<String, String> firstNames = new HashMap<>();
+        filtersByName.forEach((name, filters) -> merged.computeIfAbsent(
+                firstNames.computeIfAbsent(fold(name), folded -> name), n -> new ArrayList<>()).addAll(filters));
+        return new KeyTable(merged, true);
+    }
+
+    /**
+     * Creates a table of the filters of this table accepted by the specified predicate.
+     *
+     * @param predicate the predicate of the kept filters.
+     * @return the table, or {@code null} if no filter is kept.
+     */
+    KeyTable select(Predicate<Filter> predicate) {
+        Map<String, List<Filter>> selected = new LinkedHashMap<>();
+        filtersByName.forEach((name, nameFilters) -> {
+            List<Filter> kept = nameFilters.stream().filter(predicate).collect(Collectors.toList());
+            if (!kept.isEmpty()) {
+                selected.put(name, kept);
+            }
+        });
+        return selected.isEmpty() ? null : new KeyTable(selected, ignoreCase);
+    }
+
+    /**
+     * Returns the group of the specified property name.
+     *
+     * @param name the property name.
+     * @return the group, or {@code -1} if the name is not in the table.
+     */
+    int group(String name) {
+        for (int slot = hash(name) & mask; names[slot] != null; slot = slot + 1 & mask) {
+            String candidate = names[slot];
+            if (ignoreCase ? candidate.equalsIgnoreCase(name) : candidate.equals(name)) {
+                return groups[slot];
+            }
+        }
+        return NO_GROUP;
+    }
+
+    /**
+     * Returns the group of every property name.
+     *
+     * @return the groups by property name.
+     */
+    Map<String, Integer> groups() {
+        Map<String, Integer> groupsByName = new LinkedHashMap<>();
+        for (int slot = 0; slot < names.length; slot++) {
+            if (names[slot] != null) {
+                groupsByName.put(names[slot], groups[slot]);
+            }
+        }
+        return groupsByName;
+    }
+
+    /**
+     * Returns the number of groups.
+     *
+     * @return the number of groups.
+     */
+    int groupCount() {
+        return groupFilters.length;
+    }
+
+    /**
+     * Returns the filters of the names of the specified group.
+     *
+     * @param group the group.
+     * @return the filters in the order of their application.
+     */
+    Filter[] filters(int group) {
+        return groupFilters[group];
+    }
+
+    /**
+     * Returns the filters of all names.
+     *
+     * @return the filters.
+     */
+    List<Filter> filters() {
+        return filters;
+    }
+
+    /**
+     * Checks whether the case of property names is ignored.
+     *
+     * @return {@code true} if the case is ignored.
+     */
+    boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    private int hash(String name) {
+        int hash;
+        if (ignoreCase) {
+            hash = 0;
+            for (int i = 0; i < name.length(); i++) {
+                hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+            }
+        } else {
+            hash = name.hashCode();
+        }
+        return hash ^ hash >>> 16;
+    }
+
+    /**
+     * Folds the case of a name the same way as {@link String#equalsIgnoreCase(String)}.
+     */
+    private static String fold(String name) {
+        StringBuilder folded = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            folded.append(Character.toLowerCase(Character.toUpperCase(name.charAt(i))));
+        }
+        return folded.toString();
+    }
+}
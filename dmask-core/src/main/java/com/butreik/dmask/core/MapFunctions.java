@@ -1,7 +1,5 @@
 package com.butreik.dmask.core;
 
-import java.util.Optional;
-
 /**
  * @author Vladimir Rudnev
  */
@@ -10,57 +8,69 @@ public interface MapFunctions {
     char DEFAULT_REPLACEMENT_CHAR = '*';
     String DEFAULT_REPLACEMENT_STRING = "******";
     Number DEFAULT_REPLACEMENT_NUMBER = 0;
+    int DEFAULT_TOKEN_LENGTH = 16;
+    int DEFAULT_TOKEN_MEMO_SIZE = 1024;
 
     /**
      * Returns a MapFunction that masks email addresses by replacing the characters before the "@" symbol with asterisks.
+     * The masked value is the only allocated object, other values are returned as is.
      * @return a MapFunction that masks email addresses
      */
     static MapFunction maskEmail() {
-        return input -> Optional.ofNullable(input)
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .map(str -> {
-                    int atIndex = str.indexOf('@');
-                    if (atIndex == -1) {
-                        return (Object) str;
-                    }
-                    String domain = str.substring(atIndex);
-                    String prefix = str.substring(0, atIndex);
-                    return String.valueOf(DEFAULT_REPLACEMENT_CHAR).repeat(prefix.length()) + domain;
-                })
-                .orElse(input);
+        return input -> {
+            if (!(input instanceof String)) {
+                return input;
+            }
+            String str = (String) input;
+            int atIndex = str.indexOf('@');
+            return atIndex == -1 ? str : MaskedStrings.mask(str, 0, atIndex);
+        };
     }
 
     /**
      * Returns a MapFunction that masks all characters in a string except the first character by replacing them with asterisks.
+     * The masked value is the only allocated object, other values are returned as is.
      * @return a MapFunction that masks all characters except the first one
      */
     static MapFunction maskExceptFirstCharacter() {
-        return input -> Optional.ofNullable(input)
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .filter(str -> str.length() > 1)
-                .map(str -> (Object) (str.charAt(0) + String.valueOf(DEFAULT_REPLACEMENT_CHAR).repeat(str.length() - 1)))
-                .orElse(input);
+        return input -> input instanceof String ? MaskedStrings.mask((String) input, 1, ((String) input).length()) : input;
     }
 
     /**
      * Returns a MapFunction that masks the characters in a string between the "from" and "to" indexes by replacing them with asterisks.
+     * The masked value is the only allocated object, other values are returned as is.
      * @param from the starting index of the characters to be masked
      * @param to the ending index (exclusive) of the characters to be masked
      * @return a MapFunction that masks characters between the "from" and "to" indexes
      */
     static MapFunction maskMiddleCharactersMaskers(int from, int to) {
-        return input -> Optional.ofNullable(input)
-                .filter(String.class::isInstance)
-                .map(String.class::cast)
-                .filter(str -> str.length() > from)
-                .map(str -> {
-                    String prefix = from > 0 ? str.substring(0, from) : "";
-                    String suffix = to < str.length() ? str.substring(to) : "";
-                    String middle = String.valueOf(DEFAULT_REPLACEMENT_CHAR).repeat(Math.min(str.length(), to) - from);
-                    return (Object) (prefix + middle + suffix);
-                })
-                .orElse(input);
+        return input -> input instanceof String ? MaskedStrings.mask((String) input, from, to) : input;
+    }
+
+    /**
+     * Returns a MapFunction that replaces strings and numbers with stable tokens, the HMAC-SHA256 of the value
+     * with the specified key, truncated to {@link #DEFAULT_TOKEN_LENGTH} base62 characters.
+     * Equal values are replaced with equal tokens, so masked data can still be joined on them. The tokens of
+     * the {@link #DEFAULT_TOKEN_MEMO_SIZE} most recently used values are memoized per thread, other values are returned as is.
+     * @param key the secret HMAC key
+     * @return a MapFunction that tokenizes values
+     * @throws IllegalArgumentException if the key is null or empty
+     */
+    static MapFunction tokenize(byte[] key) {
+        return tokenize(key, DEFAULT_TOKEN_LENGTH, DEFAULT_TOKEN_MEMO_SIZE);
+    }
+
+    /**
+     * Returns a MapFunction that replaces strings and numbers with stable tokens, the HMAC-SHA256 of the value
+     * with the specified key, truncated to the specified number of base62 characters.
+     * Each thread uses its own {@code Mac} and buffers, other values are returned as is.
+     * @param key the secret HMAC key
+     * @param tokenLength the number of characters of a token, from 1 to 32
+     * @param memoSize the number of tokens of the most recently used values memoized per thread, 0 to disable memoization
+     * @return a MapFunction that tokenizes values
+     * @throws IllegalArgumentException if the key is null or empty, or a size is out of range
+     */
+    static MapFunction tokenize(byte[] key, int tokenLength, int memoSize) {
+        return new Tokenizer(key, tokenLength, memoSize);
     }
 }
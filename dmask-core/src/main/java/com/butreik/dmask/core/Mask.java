@@ -0,0 +1,37 @@
+package com.butreik.dmask.core;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Masks the value of a property when the object is serialized by a Jackson {@code ObjectMapper}
+ * with a {@link MaskModule}, so that no JSON path is evaluated and the JSON is not parsed again.
+ * <p>
+ * The annotation is placed on a field, a getter or a constructor parameter of the property, like any
+ * Jackson annotation, and references a masker by name. The map function of the masker receives the Java value
+ * of the property, such as a {@code String} or a {@code Number}, and the returned value is serialized instead.
+ * Properties annotated with {@link Maskers#REMOVE_MASKER} are not written at all.
+ * <pre>{@code
+ * public class User {
+ *     @Mask(masker = "email-masker")
+ *     private String email;
+ * }
+ * }</pre>
+ *
+ * @author Vladimir Rudnev
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+public @interface Mask {
+
+    /**
+     * The name of the masker, which must be registered with the module.
+     *
+     * @return the masker name.
+     */
+    String masker();
+}
@@ -0,0 +1,125 @@
+package com.butreik.dmask.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A read-only view of the deterministic automaton the filters of a mask are compiled into,
+ * for tools generating code that masks documents without interpreting JSON paths, see
+ * {@link JsonMaskImpl.Builder#buildAutomaton()}.
+ * <p>
+ * Every state of the automaton describes the filters that may still match below a node of a document.
+ * Descending into an object property or an array element moves to the state of the property value or element,
+ * the state {@link #DEAD} means that nothing below the node is masked. The maskers of a state are applied
+ * to the node after its descendants are masked, nodes of removed states are removed from their parent.
+ * Property names masked at any depth are included in the transitions by name of every state.
+ *
+ * @author Vladimir Rudnev
+ */
+public final class MaskAutomaton {
+
+    /**
+     * The state in which no filter can match anymore.
+     */
+    public static final int DEAD = FilterMatcher.DEAD;
+
+    private final FilterMatcher matcher;
+    private final List<Map<String, Integer>> names;
+
+    MaskAutomaton(FilterMatcher matcher) {
+        this.matcher = matcher;
+        this.names = new ArrayList<>(matcher.size());
+        Map<String, Integer> keyGroups = matcher.keys() != null ? matcher.keys().groups() : Map.of();
+        for (int state = 0; state < matcher.size(); state++) {
+            Map<String, Integer> byName = new LinkedHashMap<>(matcher.names(state));
+            for (Map.Entry<String, Integer> key : keyGroups.entrySet()) {
+                Integer next = byName.get(key.getKey());
+                byName.put(key.getKey(), matcher.keyed(key.getValue(), next != null ? next : matcher.nextOther(state)));
+            }
+            names.add(Collections.unmodifiableMap(byName));
+        }
+    }
+
+    /**
+     * Returns the state of the root node of a document.
+     *
+     * @return the root state.
+     */
+    public int root() {
+        return matcher.root();
+    }
+
+    /**
+     * Returns the number of states, which are numbered from {@code 0}.
+     *
+     * @return the number of states.
+     */
+    public int size() {
+        return matcher.size();
+    }
+
+    /**
+     * Returns the transitions by explicitly configured property names.
+     *
+     * @param state the state of an object.
+     * @return the states of the property values by name.
+     */
+    public Map<String, Integer> names(int state) {
+        return names.get(state);
+    }
+
+    /**
+     * Returns the state of any property whose name is not explicitly configured.
+     *
+     * @param state the state of an object.
+     * @return the state of the property value.
+     */
+    public int otherName(int state) {
+        return matcher.nextOther(state);
+    }
+
+    /**
+     * Returns the transitions by explicitly configured array indexes.
+     *
+     * @param state the state of an array.
+     * @return the states of the elements by index.
+     */
+    public Map<Integer, Integer> indexes(int state) {
+        return Collections.unmodifiableMap(matcher.indexes(state));
+    }
+
+    /**
+     * Returns the state of any array element whose index is not explicitly configured.
+     *
+     * @param state the state of an array.
+     * @return the state of the element.
+     */
+    public int otherIndex(int state) {
+        return matcher.nextOtherIndex(state);
+    }
+
+    /**
+     * Returns the maskers to apply to the node in the specified state, excluding removal.
+     *
+     * @param state the state of the node.
+     * @return the maskers in the order of their application.
+     */
+    public List<Masker> maskers(int state) {
+        return Arrays.stream(matcher.filters(state)).map(Filter::getMasker).collect(Collectors.toList());
+    }
+
+    /**
+     * Checks whether the node in the specified state must be removed.
+     *
+     * @param state the state of the node.
+     * @return {@code true} if the node is matched by {@link Maskers#REMOVE_MASKER}.
+     */
+    public boolean isRemoved(int state) {
+        return matcher.isRemoved(state);
+    }
+}
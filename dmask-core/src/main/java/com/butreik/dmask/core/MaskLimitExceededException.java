@@ -0,0 +1,18 @@
+package com.butreik.dmask.core;
+
+/**
+ * Thrown when JSON data exceeds the {@link MaskLimits} of a {@link JsonMaskImpl} with {@link MaskLimits.Fallback#FAIL}.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskLimitExceededException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code MaskLimitExceededException} with the specified message.
+     *
+     * @param message the message naming the exceeded limit.
+     */
+    public MaskLimitExceededException(String message) {
+        super(message);
+    }
+}
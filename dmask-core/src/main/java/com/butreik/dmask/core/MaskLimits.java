@@ -0,0 +1,426 @@
+package com.butreik.dmask.core;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static com.butreik.dmask.core.Assert.assertNotEmpty;
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * Limits on the JSON data masked by a {@link JsonMaskImpl}, which bound the time and memory spent on hostile input,
+ * see {@link JsonMaskImpl.Builder#limits(MaskLimits)}.
+ * <p>
+ * The input length is checked before anything else. The nesting depth and the number of values are checked
+ * by a scan of the raw input before it is parsed, so deeply nested documents never reach the recursive parser.
+ * The time budget is checked after parsing, every {@link Deadline#INTERVAL} nodes of a traversal, between filters
+ * applied one by one and before serializing the result.
+ * A document exceeding a limit is handled by the {@link Fallback}.
+ *
+ * @author Vladimir Rudnev
+ */
+public final class MaskLimits {
+
+    /**
+     * No limits.
+     */
+    public static final MaskLimits NONE = builder().build();
+
+    /**
+     * The default placeholder returned instead of a document exceeding a limit, a JSON string.
+     */
+    public static final String DEFAULT_PLACEHOLDER = "\"" + MapFunctions.DEFAULT_REPLACEMENT_STRING + "\"";
+
+    private final int maxInputLength;
+    private final int maxDepth;
+    private final int maxNodes;
+    private final long timeBudgetNanos;
+    private final Fallback fallback;
+    private final String placeholder;
+
+    private MaskLimits(Builder builder) {
+        this.maxInputLength = builder.maxInputLength;
+        this.maxDepth = builder.maxDepth;
+        this.maxNodes = builder.maxNodes;
+        this.timeBudgetNanos = builder.timeBudgetNanos;
+        this.fallback = builder.fallback;
+        this.placeholder = builder.placeholder;
+    }
+
+    /**
+     * Returns a new builder of limits, without any limit by default.
+     *
+     * @return a new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the maximum length of an input in characters, or in bytes for UTF-8 encoded input.
+     *
+     * @return the maximum length, or {@link Integer#MAX_VALUE} if it is not limited.
+     */
+    public int getMaxInputLength() {
+        return maxInputLength;
+    }
+
+    /**
+     * Returns the maximum nesting depth of objects and arrays, the root container has depth 1.
+     *
+     * @return the maximum depth, or {@link Integer#MAX_VALUE} if it is not limited.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the maximum number of values of a document, counting objects, arrays and scalars but not property names.
+     *
+     * @return the maximum number of values, or {@link Integer#MAX_VALUE} if it is not limited.
+     */
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Returns the time budget of masking one input in nanoseconds.
+     *
+     * @return the time budget, or {@link Long#MAX_VALUE} if it is not limited.
+     */
+    public long getTimeBudgetNanos() {
+        return timeBudgetNanos;
+    }
+
+    /**
+     * Returns how a document exceeding a limit is handled.
+     *
+     * @return the fallback.
+     */
+    public Fallback getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Returns the JSON returned instead of a document exceeding a limit with {@link Fallback#REDACT}.
+     *
+     * @return the placeholder.
+     */
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    /**
+     * Checks whether the document structure has to be scanned before parsing.
+     */
+    boolean limitsStructure() {
+        return maxDepth != Integer.MAX_VALUE || maxNodes != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Checks whether any limit is set.
+     */
+    boolean isLimited() {
+        return maxInputLength != Integer.MAX_VALUE || limitsStructure() || timeBudgetNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Checks the length of an input.
+     *
+     * @throws MaskLimitExceededException if the input is longer than the limit.
+     */
+    void checkLength(int length) {
+        if (length > maxInputLength) {
+            throw new MaskLimitExceededException(
+                    "Input length " + length + " exceeds the limit of " + maxInputLength);
+        }
+    }
+
+    /**
+     * Returns the deadline of masking an input started now, see {@link #checkDeadline(long)}.
+     */
+    long deadline() {
+        return timeBudgetNanos == Long.MAX_VALUE ? 0 : System.nanoTime() + timeBudgetNanos;
+    }
+
+    /**
+     * Checks that the deadline returned by {@link #deadline()} has not passed.
+     *
+     * @throws MaskLimitExceededException if the deadline has passed.
+     */
+    static void checkDeadline(long deadline) {
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new MaskLimitExceededException("Masking exceeds the time budget");
+        }
+    }
+
+    /**
+     * The deadline of masking one input, checked by traversals once every {@link #INTERVAL} nodes,
+     * so that a large document cannot keep masking long after the budget is spent.
+     */
+    static final class Deadline {
+
+        /**
+         * The number of nodes visited between two reads of the clock.
+         */
+        static final int INTERVAL = 1024;
+
+        /**
+         * The deadline of masking without a time budget, which is never checked.
+         */
+        static final Deadline NONE = new Deadline(0);
+
+        private final long deadline;
+        private int countdown = INTERVAL;
+
+        private Deadline(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Returns the deadline checked by traversals for a deadline returned by {@link MaskLimits#deadline()}.
+         *
+         * @param deadline the deadline, {@code 0} if there is none.
+         * @return the deadline.
+         */
+        static Deadline of(long deadline) {
+            return deadline == 0 ? NONE : new Deadline(deadline);
+        }
+
+        /**
+         * Counts a visited node and checks the deadline every {@link #INTERVAL} nodes.
+         *
+         * @throws MaskLimitExceededException if the deadline has passed.
+         */
+        void node() {
+            if (deadline != 0 && --countdown == 0) {
+                countdown = INTERVAL;
+                checkDeadline(deadline);
+            }
+        }
+    }
+
+    /**
+     * Checks the nesting depth and the number of values of a JSON document without parsing it.
+     * Malformed input is left to the parser.
+     *
+     * @throws MaskLimitExceededException if the document exceeds a limit.
+     */
+    void checkStructure(CharSequence input) {
+        Scan scan = new Scan();
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '"') {
+                scan.value();
+                for (i++; i < input.length() && input.charAt(i) != '"'; i++) {
+                    if (input.charAt(i) == '\\') {
+                        i++;
+                    }
+                }
+            } else {
+                scan.token(c);
+            }
+        }
+    }
+
+    /**
+     * Checks the nesting depth and the number of values of a UTF-8 encoded JSON document without parsing it.
+     * Malformed input is left to the parser.
+     *
+     * @throws MaskLimitExceededException if the document exceeds a limit.
+     */
+    void checkStructure(byte[] input) {
+        Scan scan = new Scan();
+        for (int i = 0; i < input.length; i++) {
+            byte b = input[i];
+            if (b == '"') {
+                scan.value();
+                for (i++; i < input.length && input[i] != '"'; i++) {
+                    if (input[i] == '\\') {
+                        i++;
+                    }
+                }
+            } else if (b >= 0) {
+                scan.token((char) b);
+            }
+        }
+    }
+
+    /**
+     * The state of a structure scan: the kinds of the open containers and whether a value is expected next.
+     * Property names are strings that are not expected as values, so they are not counted.
+     */
+    private final class Scan {
+        private boolean[] arrays = new boolean[16];
+        private int depth;
+        private int nodes;
+        private boolean expectValue = true;
+
+        private void token(char c) {
+            switch (c) {
+                case '{':
+                case '[':
+                    value();
+                    if (++depth > maxDepth) {
+                        throw new MaskLimitExceededException("Nesting depth exceeds the limit of " + maxDepth);
+                    }
+                    if (depth == arrays.length) {
+                        arrays = Arrays.copyOf(arrays, depth * 2);
+                    }
+                    arrays[depth] = c == '[';
+                    expectValue = c == '[';
+                    break;
+                case '}':
+                case ']':
+                    depth = Math.max(depth - 1, 0);
+                    expectValue = false;
+                    break;
+                case ':':
+                    expectValue = true;
+                    break;
+                case ',':
+                    expectValue = arrays[depth];
+                    break;
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\r':
+                    break;
+                default:
+                    value();
+                    break;
+            }
+        }
+
+        private void value() {
+            if (expectValue) {
+                expectValue = false;
+                if (++nodes > maxNodes) {
+                    throw new MaskLimitExceededException("Number of values exceeds the limit of " + maxNodes);
+                }
+            }
+        }
+    }
+
+    /**
+     * How a document exceeding a limit is handled.
+     */
+    public enum Fallback {
+
+        /**
+         * A {@link MaskLimitExceededException} is thrown.
+         */
+        FAIL,
+
+        /**
+         * The placeholder is returned instead of the masked document, see {@link Builder#placeholder(String)}.
+         */
+        REDACT
+    }
+
+    /**
+     * Builder class for {@link MaskLimits}.
+     */
+    public static class Builder {
+        private int maxInputLength = Integer.MAX_VALUE;
+        private int maxDepth = Integer.MAX_VALUE;
+        private int maxNodes = Integer.MAX_VALUE;
+        private long timeBudgetNanos = Long.MAX_VALUE;
+        private Fallback fallback = Fallback.FAIL;
+        private String placeholder = DEFAULT_PLACEHOLDER;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum length of an input in characters, or in bytes for UTF-8 encoded input.
+         *
+         * @param maxInputLength the maximum length.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the length is not positive.
+         */
+        public Builder maxInputLength(int maxInputLength) {
+            assertTrue(maxInputLength > 0, () -> "Maximum input length must be positive");
+            this.maxInputLength = maxInputLength;
+            return this;
+        }
+
+        /**
+         * Sets the maximum nesting depth of objects and arrays, the root container has depth 1.
+         *
+         * @param maxDepth the maximum depth.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the depth is not positive.
+         */
+        public Builder maxDepth(int maxDepth) {
+            assertTrue(maxDepth > 0, () -> "Maximum depth must be positive");
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of values of a document, counting objects, arrays and scalars
+         * but not property names.
+         *
+         * @param maxNodes the maximum number of values.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the number is not positive.
+         */
+        public Builder maxNodes(int maxNodes) {
+            assertTrue(maxNodes > 0, () -> "Maximum number of values must be positive");
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        /**
+         * Sets the time budget of masking one input.
+         *
+         * @param timeBudget the time budget.
+         * @return The Builder instance, for chaining calls.
+         * @throws IllegalArgumentException if the budget is null or not positive.
+         */
+        public Builder timeBudget(Duration timeBudget) {
+            assertNotNull(timeBudget);
+            assertTrue(!timeBudget.isNegative() && !timeBudget.isZero(), () -> "Time budget must be positive");
+            try {
+                this.timeBudgetNanos = timeBudget.toNanos();
+            } catch (ArithmeticException e) {
+                // budgets beyond 292 years cannot be expressed in nanoseconds, so they are not limited
+                this.timeBudgetNanos = Long.MAX_VALUE;
+            }
+            return this;
+        }
+
+        /**
+         * Sets how a document exceeding a limit is handled, {@link Fallback#FAIL} by default.
+         *
+         * @param fallback the fallback.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder fallback(Fallback fallback) {
+            this.fallback = assertNotNull(fallback);
+            return this;
+        }
+
+        /**
+         * Sets the JSON returned instead of a document exceeding a limit with {@link Fallback#REDACT},
+         * {@link #DEFAULT_PLACEHOLDER} by default.
+         *
+         * @param placeholder the placeholder.
+         * @return The Builder instance, for chaining calls.
+         */
+        public Builder placeholder(String placeholder) {
+            this.placeholder = assertNotEmpty(placeholder);
+            return this;
+        }
+
+        /**
+         * Builds the limits.
+         *
+         * @return the limits.
+         */
+        public MaskLimits build() {
+            return new MaskLimits(this);
+        }
+    }
+}
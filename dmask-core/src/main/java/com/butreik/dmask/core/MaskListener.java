@@ -0,0 +1,26 @@
+package com.butreik.dmask.core;
+
+/**
+ * A callback notified every time a masker is applied to a JSON value, for example to count masked values
+ * per masker. It is invoked on the thread masking the document, once per matched value, so implementations
+ * must be thread-safe and cheap.
+ *
+ * @author Vladimir Rudnev
+ */
+@FunctionalInterface
+public interface MaskListener {
+
+    /**
+     * A listener that ignores all notifications.
+     */
+    MaskListener NONE = masker -> {
+    };
+
+    /**
+     * Called after the specified masker has been applied to a JSON value, or after a value has been removed
+     * by {@link Maskers#REMOVE_MASKER}.
+     *
+     * @param masker the applied masker.
+     */
+    void onMasked(Masker masker);
+}
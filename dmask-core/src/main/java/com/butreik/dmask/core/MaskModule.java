@@ -0,0 +1,200 @@
+package com.butreik.dmask.core;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.impl.PropertySerializerMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Maskers.REMOVE_MASKER;
+
+/**
+ * A Jackson module masking the properties annotated with {@link Mask} while objects are serialized, so annotated
+ * objects produce masked JSON in one pass, without parsing it again with a {@link JsonMask}.
+ * <p>
+ * The maskers are resolved by name against the maskers of a {@link JsonMaskImpl.Builder}, see
+ * {@link JsonMaskImpl.Builder#buildModule()}, and its listener is notified about every applied masker.
+ * Jackson builds and caches the serializer of each class once, so the annotations are looked up and the maskers
+ * resolved only the first time a class is serialized. Masked values are serialized with serializers cached
+ * per value type.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Supplier of the builder the maskers are resolved against, or {@code null} if they are already resolved.
+     */
+    private final transient Supplier<JsonMaskImpl.Builder> builder;
+
+    private transient volatile Map<String, Masker> maskers;
+    private transient volatile MaskListener listener;
+
+    /**
+     * Creates a module resolving the maskers against the supplied builder. The builder is supplied once,
+     * when the first class with an annotated property is serialized, which allows registering the module
+     * with an {@code ObjectMapper} the maskers themselves depend on.
+     *
+     * @param builder the supplier of the builder with the maskers and the listener.
+     */
+    public MaskModule(Supplier<JsonMaskImpl.Builder> builder) {
+        this(assertNotNull(builder), null, null);
+    }
+
+    /**
+     * Creates a module with resolved maskers, see {@link JsonMaskImpl.Builder#buildModule()}.
+     *
+     * @param maskers  the maskers by name.
+     * @param listener the listener notified about every applied masker.
+     */
+    MaskModule(Map<String, Masker> maskers, MaskListener listener) {
+        this(null, maskers, listener);
+    }
+
+    private MaskModule(Supplier<JsonMaskImpl.Builder> builder, Map<String, Masker> maskers, MaskListener listener) {
+        super(MaskModule.class.getSimpleName());
+        this.builder = builder;
+        this.listener = listener;
+        this.maskers = maskers;
+        setSerializerModifier(new MaskSerializerModifier());
+    }
+
+    /**
+     * Returns the masker with the specified name, resolving the maskers on the first call.
+     *
+     * @throws IllegalArgumentException if the masker is not defined.
+     */
+    private Masker masker(String name) {
+        if (maskers == null) {
+            resolve();
+        }
+        return assertNotNull(maskers.get(name), () -> "Masker " + name + " not defined");
+    }
+
+    private synchronized void resolve() {
+        if (maskers == null) {
+            MaskModule resolved = builder.get().buildModule();
+            listener = resolved.listener;
+            maskers = resolved.maskers;
+        }
+    }
+
+    /**
+     * Replaces the writers of annotated properties with masking writers.
+     */
+    private final class MaskSerializerModifier extends BeanSerializerModifier {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                         List<BeanPropertyWriter> beanProperties) {
+            for (int i = 0; i < beanProperties.size(); i++) {
+                BeanPropertyWriter writer = beanProperties.get(i);
+                Mask mask = writer.getAnnotation(Mask.class);
+                if (mask != null) {
+                    beanProperties.set(i, new MaskedPropertyWriter(writer, masker(mask.masker()), listener));
+                }
+            }
+            return beanProperties;
+        }
+    }
+
+    /**
+     * Writes a property masked by the map function of a masker.
+     */
+    private static final class MaskedPropertyWriter extends BeanPropertyWriter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Masker masker;
+        private final transient MaskListener listener;
+
+        private MaskedPropertyWriter(BeanPropertyWriter base, Masker masker, MaskListener listener) {
+            super(base);
+            this.masker = masker;
+            this.listener = listener;
+        }
+
+        private MaskedPropertyWriter(MaskedPropertyWriter base, PropertyName name) {
+            super(base, name);
+            this.masker = base.masker;
+            this.listener = base.listener;
+        }
+
+        @Override
+        protected BeanPropertyWriter _new(PropertyName newName) {
+            return new MaskedPropertyWriter(this, newName);
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            Object value = get(bean);
+            if (value == null && _suppressNulls) {
+                return;
+            }
+            if (masker == REMOVE_MASKER) {
+                listener.onMasked(masker);
+                return;
+            }
+            Object masked = mask(value);
+            if (masked == null && _suppressNulls) {
+                return;
+            }
+            gen.writeFieldName(_name);
+            serializeValue(masked, gen, prov);
+        }
+
+        @Override
+        public void serializeAsElement(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            Object value = get(bean);
+            if (masker == REMOVE_MASKER) {
+                listener.onMasked(masker);
+                // the positions of the other elements are kept
+                gen.writeNull();
+                return;
+            }
+            serializeValue(mask(value), gen, prov);
+        }
+
+        private Object mask(Object value) {
+            Object masked = masker.getMapFunction().map(value);
+            listener.onMasked(masker);
+            return masked;
+        }
+
+        private void serializeValue(Object value, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (value == null) {
+                if (_nullSerializer != null) {
+                    _nullSerializer.serialize(null, gen, prov);
+                } else {
+                    gen.writeNull();
+                }
+                return;
+            }
+            Class<?> type = value.getClass();
+            PropertySerializerMap serializers = _dynamicSerializers;
+            JsonSerializer<Object> serializer = serializers.serializerFor(type);
+            if (serializer == null) {
+                // the masked value may have another type than the property, such as a string replacing a list
+                PropertySerializerMap.SerializerAndMapResult result =
+                        serializers.findAndAddPrimarySerializer(type, prov, this);
+                _dynamicSerializers = result.map;
+                serializer = result.serializer;
+            }
+            serializer.serialize(value, gen, prov);
+        }
+    }
+}
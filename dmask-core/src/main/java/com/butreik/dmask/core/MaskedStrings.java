@@ -0,0 +1,71 @@
+package com.butreik.dmask.core;
+
+import java.util.Arrays;
+
+import static com.butreik.dmask.core.MapFunctions.DEFAULT_REPLACEMENT_CHAR;
+
+/**
+ * Builds masked copies of strings for the map functions of {@link MapFunctions}.
+ * <p>
+ * A masked copy is assembled in a per-thread scratch buffer and turned into a string once, so masking a value
+ * allocates nothing but the resulting string. Values longer than the scratch buffer use a temporary buffer.
+ *
+ * @author Vladimir Rudnev
+ */
+final class MaskedStrings {
+
+    /**
+     * The size of the per-thread scratch buffer.
+     */
+    static final int SCRATCH_SIZE = 1024;
+
+    /**
+     * A run of replacement characters copied into the buffer in chunks.
+     */
+    private static final char[] REPLACEMENT_RUN = new char[64];
+
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[SCRATCH_SIZE]);
+
+    static {
+        Arrays.fill(REPLACEMENT_RUN, DEFAULT_REPLACEMENT_CHAR);
+    }
+
+    private MaskedStrings() {
+    }
+
+    /**
+     * Replaces the characters of the value between the specified indexes with {@link MapFunctions#DEFAULT_REPLACEMENT_CHAR}.
+     *
+     * @param value the value to mask.
+     * @param from  the index of the first character to replace, inclusive.
+     * @param to    the index of the last character to replace, exclusive.
+     * @return the masked value, or the same value if no character has to be replaced.
+     */
+    static String mask(String value, int from, int to) {
+        from = Math.max(from, 0);
+        to = Math.min(to, value.length());
+        if (isMasked(value, from, to)) {
+            return value;
+        }
+        int length = value.length();
+        char[] buffer = length <= SCRATCH_SIZE ? SCRATCH.get() : new char[length];
+        value.getChars(0, from, buffer, 0);
+        for (int i = from; i < to; i += REPLACEMENT_RUN.length) {
+            System.arraycopy(REPLACEMENT_RUN, 0, buffer, i, Math.min(REPLACEMENT_RUN.length, to - i));
+        }
+        value.getChars(to, length, buffer, to);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Checks whether the characters between the specified indexes are replacement characters already.
+     */
+    private static boolean isMasked(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) != DEFAULT_REPLACEMENT_CHAR) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,7 @@
 package com.butreik.dmask.core;
 
+import java.util.List;
+
 import static com.butreik.dmask.core.MapFunctions.DEFAULT_REPLACEMENT_NUMBER;
 import static com.butreik.dmask.core.MapFunctions.DEFAULT_REPLACEMENT_STRING;
 
@@ -96,4 +98,40 @@ public interface Maskers {
      */
     Masker ISO_INSTANT_MASKER = Masker.builder().name("iso-instant-masker")
             .mapFunction(input -> "2000-01-01T00:00:00Z").build();
+
+    /**
+     * The predefined maskers registered by name by the Spring Boot starter and the Logback integration,
+     * so that configuration files can reference them.
+     */
+    List<Masker> DEFAULT_MASKERS = List.of(
+            REMOVE_MASKER,
+            NUMBER_MASKER,
+            SECRET_MASKER,
+            REPLACE_STRING_MASKER,
+            EMAIL_MASKER,
+            ISO_OFFSET_DATE_MASKER,
+            ISO_OFFSET_TIME_MASKER,
+            ISO_OFFSET_DATE_TIME,
+            ISO_LOCAL_DATE_MASKER,
+            ISO_LOCAL_TIME_MASKER,
+            ISO_LOCAL_DATE_TIME_MASKER,
+            ISO_INSTANT_MASKER,
+            EXCEPT_FIRST_CHARACTER_MASKER
+    );
+
+    /**
+     * The name of the masker created by {@link #tokenizeMasker(byte[])}.
+     */
+    String TOKENIZE_MASKER_NAME = "tokenize-masker";
+
+    /**
+     * Creates a masker that replaces strings and numbers with stable tokens derived from the specified key,
+     * see {@link MapFunctions#tokenize(byte[])}.
+     *
+     * @param key the secret HMAC key.
+     * @return the tokenize masker.
+     */
+    static Masker tokenizeMasker(byte[] key) {
+        return Masker.builder().name(TOKENIZE_MASKER_NAME).mapFunction(MapFunctions.tokenize(key)).build();
+    }
 }
@@ -0,0 +1,87 @@
+package com.butreik.dmask.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+
+/**
+ * The {@code ReloadableJsonMask} class decorates a {@link JsonMask} that can be replaced at runtime,
+ * for example when the masking rules are changed.
+ * <p>
+ * The decorated mask is held in an {@link AtomicReference}, so replacing it is an atomic swap and masking
+ * is wait-free: each call reads the reference once and is completed by the mask it read, so calls in progress
+ * during a swap never block and never see a partially built mask. A new mask should be fully built before it is set.
+ *
+ * @author Vladimir Rudnev
+ */
+public class ReloadableJsonMask implements JsonMask {
+
+    private final AtomicReference<JsonMask> delegate;
+
+    /**
+     * Creates a reloadable mask.
+     *
+     * @param jsonMask the initial JSON mask.
+     * @throws IllegalArgumentException if the mask is null.
+     */
+    public ReloadableJsonMask(JsonMask jsonMask) {
+        this.delegate = new AtomicReference<>(assertNotNull(jsonMask));
+    }
+
+    /**
+     * Returns the JSON mask currently used to mask inputs.
+     *
+     * @return the current JSON mask.
+     */
+    public JsonMask get() {
+        return delegate.get();
+    }
+
+    /**
+     * Replaces the JSON mask used by subsequent calls.
+     *
+     * @param jsonMask the new JSON mask.
+     * @return the replaced JSON mask.
+     * @throws IllegalArgumentException if the mask is null.
+     */
+    public JsonMask set(JsonMask jsonMask) {
+        return delegate.getAndSet(assertNotNull(jsonMask));
+    }
+
+    @Override
+    public String mask(String input) {
+        return delegate.get().mask(input);
+    }
+
+    @Override
+    public byte[] mask(byte[] input) {
+        return delegate.get().mask(input);
+    }
+
+    @Override
+    public void mask(InputStream input, OutputStream output) throws IOException {
+        delegate.get().mask(input, output);
+    }
+
+    @Override
+    public void mask(Reader input, Writer output) throws IOException {
+        delegate.get().mask(input, output);
+    }
+
+    @Override
+    public List<String> maskAll(List<String> inputs) {
+        return delegate.get().maskAll(inputs);
+    }
+
+    @Override
+    public Map<String, Object> mask(Map<String, Object> document) {
+        return delegate.get().mask(document);
+    }
+}
@@ -0,0 +1,246 @@
+package com.butreik.dmask.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded least-recently-used cache of masked results, keyed by a 128-bit MurmurHash3 of the input.
+ * <p>
+ * The cache is split into segments selected by the hash, each with its own lock, access order and share of the limits,
+ * so concurrent lookups of different inputs rarely contend. Entries keep only the key and the masked result,
+ * not the input, so the cache never holds unmasked data. Inputs with the same key share the result, which is
+ * negligible for the inputs of an application since keys are 128 bits long, but the hash is not cryptographic.
+ * The size of an entry is estimated as the size of its result plus a constant overhead.
+ *
+ * @author Vladimir Rudnev
+ */
+final class ResultCache {
+
+    /**
+     * The maximum number of segments.
+     */
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * The minimum number of entries of a segment, smaller caches have fewer segments to keep eviction close to LRU.
+     */
+    private static final int MIN_SEGMENT_ENTRIES = 64;
+
+    /**
+     * The estimated size of an entry in bytes, besides the chars of its result.
+     */
+    static final int ENTRY_OVERHEAD = 160;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache with the specified limits.
+     *
+     * @param maxEntries the maximum number of entries.
+     * @param maxBytes   the maximum estimated size of all entries in bytes.
+     */
+    ResultCache(int maxEntries, long maxBytes) {
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maxEntries / MIN_SEGMENT_ENTRIES)));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((maxEntries + count - 1) / count, (maxBytes + count - 1) / count);
+        }
+    }
+
+    /**
+     * Returns the cached result for the input of the specified key.
+     *
+     * @param key the key of the input, see {@link #key(String)}.
+     * @return the result, or {@code null} if it is not cached.
+     */
+    String get(Key key) {
+        String result = segment(key).get(key);
+        (result != null ? hits : misses).increment();
+        return result;
+    }
+
+    /**
+     * Caches the result for the input of the specified key, evicting the least recently used entries of the segment
+     * if necessary.
+     *
+     * @param key    the key of the input, see {@link #key(String)}.
+     * @param result the result.
+     */
+    void put(Key key, String result) {
+        segment(key).put(key, result);
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return the statistics.
+     */
+    CacheStats stats() {
+        long entries = 0;
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries += segment.size();
+                bytes += segment.bytes;
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries, bytes);
+    }
+
+    private Segment segment(Key key) {
+        return segments[(int) (key.high >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * Computes the key of the specified input, the x64 128-bit variant of MurmurHash3 of its UTF-16 units.
+     *
+     * @param input the input.
+     * @return the key.
+     */
+    static Key key(String input) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        int length = input.length();
+        long h1 = 0;
+        long h2 = 0;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            long k1 = units(input, i, 4);
+            long k2 = units(input, i + 4, 4);
+            h1 ^= mixK1(k1, c1, c2);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2, c1, c2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = length - i;
+        if (tail > 4) {
+            h2 ^= mixK2(units(input, i + 4, tail - 4), c1, c2);
+        }
+        if (tail > 0) {
+            h1 ^= mixK1(units(input, i, Math.min(tail, 4)), c1, c2);
+        }
+        h1 ^= length * 2L;
+        h2 ^= length * 2L;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new Key(h1, h2);
+    }
+
+    private static long units(String input, int from, int count) {
+        long k = 0;
+        for (int j = 0; j < count; j++) {
+            k |= (long) input.charAt(from + j) << (16 * j);
+        }
+        return k;
+    }
+
+    private static long mixK1(long k1, long c1, long c2) {
+        return Long.rotateLeft(k1 * c1, 31) * c2;
+    }
+
+    private static long mixK2(long k2, long c1, long c2) {
+        return Long.rotateLeft(k2 * c2, 33) * c1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * The 128-bit hash of an input.
+     */
+    static final class Key {
+        private final long high;
+        private final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) low;
+        }
+    }
+
+    /**
+     * A cached result together with its estimated size.
+     */
+    private static final class Entry {
+        private final String result;
+        private final long bytes;
+
+        private Entry(String result) {
+            this.result = result;
+            this.bytes = 2L * result.length() + ENTRY_OVERHEAD;
+        }
+    }
+
+    /**
+     * A segment of the cache in access order, guarded by its own monitor.
+     */
+    private final class Segment extends LinkedHashMap<Key, Entry> {
+
+        private final int maxEntries;
+        private final long maxBytes;
+        private long bytes;
+
+        private Segment(int maxEntries, long maxBytes) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized String get(Key key) {
+            Entry entry = super.get(key);
+            return entry != null ? entry.result : null;
+        }
+
+        private synchronized void put(Key key, String result) {
+            Entry entry = new Entry(result);
+            if (entry.bytes > maxBytes) {
+                return;
+            }
+            Entry previous = super.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.bytes;
+            }
+            bytes += entry.bytes;
+            Iterator<Map.Entry<Key, Entry>> eldest = entrySet().iterator();
+            while (size() > maxEntries || bytes > maxBytes) {
+                bytes -= eldest.next().getValue().bytes;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
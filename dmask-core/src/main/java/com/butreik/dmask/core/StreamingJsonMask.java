@@ -0,0 +1,186 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.spi.json.JsonProvider;
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.butreik.dmask.core.Assert.assertNotEmpty;
+import static com.butreik.dmask.core.Assert.assertNotNull;
+
+/**
+ * The {@code StreamingJsonMask} class masks JSON data in a single pass without building a document tree.
+ * <p>
+ * All filters are compiled into one matcher when the instance is built. The input is tokenized once, untouched
+ * parts of the document are copied to the output as is, and only values matched by a filter are decoded and
+ * passed to the map function of its masker. Filters are applied in the same order as in {@link JsonMaskImpl}.
+ * The input must be strictly valid JSON, also in the copied parts: unlike the permissive parser of
+ * {@link JsonMaskImpl}, the tokenizer rejects unquoted names, invalid literals and trailing commas.
+ * <p>
+ * Only JSON paths consisting of property names, array indexes, wildcards and deep scan are supported.
+ * Instances are created with {@link JsonMaskImpl.Builder#buildStreaming()} and are thread-safe.
+ *
+ * @author Vladimir Rudnev
+ */
+public class StreamingJsonMask implements JsonMask {
+
+    /**
+     * The provider used to traverse documents represented with {@code java.util} maps and lists.
+     */
+    private static final JsonProvider MAP_PROVIDER = new JsonSmartJsonProvider();
+
+    /**
+     * The masker of the filter selecting array elements masked by the element mask, it is never applied.
+     * It has the highest order, since the element mask applies the filters matching inside the elements.
+     */
+    static final Masker ELEMENT_MASKER = Masker.builder().name("element-masker").order(Integer.MAX_VALUE)
+            .mapFunction(input -> input).build();
+
+    /**
+     * The matcher compiled from the filters used to mask JSON data.
+     */
+    private final FilterMatcher matcher;
+
+    /**
+     * Prefilter detecting inputs that cannot be matched by any filter, or {@code null} if it is not applicable.
+     */
+    private final KeyPrefilter prefilter;
+
+    /**
+     * Listener notified about every applied masker.
+     */
+    private final MaskListener listener;
+
+    /**
+     * The mask of array elements selected by {@link #ELEMENT_MASKER}, or {@code null} if elements are not masked separately.
+     */
+    private final JsonMask elementMask;
+
+    /**
+     * Constructs a new {@code StreamingJsonMask} object with the specified filters, masking the array elements
+     * selected by a filter with {@link #ELEMENT_MASKER} as independent documents.
+     *
+     * @param filters     the collection of filters to use for masking JSON data.
+     * @param keys        the property names masked at any depth, or {@code null}.
+     * @param prefilter   whether inputs without any filtered property name are returned without tokenizing.
+     * @param listener    the listener notified about every applied masker.
+     * @param elementMask the mask of the selected array elements, or {@code null}.
+     * @throws IllegalArgumentException if there are neither filters nor masked property names, a JSON path
+     *                                  is not supported, or a filter has a lower masker order than a filter
+     *                                  matching inside its node.
+     */
+    StreamingJsonMask(Collection<Filter> filters, KeyTable keys, boolean prefilter, MaskListener listener,
+                      JsonMask elementMask) {
+        if (keys == null) {
+            assertNotEmpty(filters);
+        }
+        List<Filter> sorted = filters.stream().sorted(Comparator.comparingInt(o -> o.getMasker().getOrder())).collect(Collectors.toUnmodifiableList());
+        this.matcher = FilterMatcher.compile(sorted, keys);
+        this.prefilter = prefilter ? JsonMaskImpl.prefilter(sorted, keys) : null;
+        this.listener = assertNotNull(listener);
+        this.elementMask = elementMask;
+    }
+
+    /**
+     * Masks the specified JSON input according to the configured filters and returns the masked result.
+     *
+     * @param input the JSON data to be masked.
+     * @return the masked JSON data.
+     * @throws com.jayway.jsonpath.InvalidJsonException if the input is not valid JSON.
+     * @throws IllegalArgumentException if the input is null.
+     */
+    @Override
+    public String mask(String input) {
+        assertNotNull(input);
+        if (prefilter != null && !prefilter.mayMatch(input)) {
+            return input;
+        }
+        JsonSink.CharSink sink = JsonSink.chars(input.length());
+        rewrite(JsonSource.of(input), sink);
+        return sink.toString();
+    }
+
+    /**
+     * Masks the specified UTF-8 encoded JSON input without decoding the parts of it that are not masked.
+     *
+     * @param input the UTF-8 encoded JSON data to be masked.
+     * @return the UTF-8 encoded masked JSON data.
+     * @throws com.jayway.jsonpath.InvalidJsonException if the input is not valid JSON.
+     * @throws IllegalArgumentException if the input is null.
+     */
+    @Override
+    public byte[] mask(byte[] input) {
+        assertNotNull(input);
+        if (prefilter != null && !prefilter.mayMatch(input)) {
+            return input;
+        }
+        JsonSink.ByteSink sink = JsonSink.bytes(input.length);
+        rewrite(JsonSource.of(input), sink);
+        return sink.toByteArray();
+    }
+
+    /**
+     * Masks UTF-8 encoded JSON data while it is read from the input stream, using a constant amount of memory
+     * for the parts of the document that are not masked. Neither stream is closed.
+     *
+     * @param input  the stream of JSON data to be masked.
+     * @param output the stream the masked JSON data is written to.
+     * @throws IOException if reading or writing fails.
+     * @throws com.jayway.jsonpath.InvalidJsonException if the input is not valid JSON.
+     */
+    @Override
+    public void mask(InputStream input, OutputStream output) throws IOException {
+        new JsonStreamRewriter(matcher, listener, elementMask, JsonSource.of(input), JsonSink.bytes(output)).rewrite();
+    }
+
+    /**
+     * Masks JSON data while it is read from the reader, using a constant amount of memory
+     * for the parts of the document that are not masked. Neither the reader nor the writer is closed.
+     *
+     * @param input  the reader of JSON data to be masked.
+     * @param output the writer the masked JSON data is written to.
+     * @throws IOException if reading or writing fails.
+     * @throws com.jayway.jsonpath.InvalidJsonException if the input is not valid JSON.
+     */
+    @Override
+    public void mask(Reader input, Writer output) throws IOException {
+        new JsonStreamRewriter(matcher, listener, elementMask, JsonSource.of(input), JsonSink.chars(output)).rewrite();
+    }
+
+    /**
+     * Masks the specified document, represented with {@code java.util} maps and lists, in place
+     * by traversing it with the same matcher that is used for JSON text. Nested objects and arrays must be mutable.
+     * Documents are serialized and parsed again if array elements are masked separately.
+     *
+     * @param document the JSON document to be masked.
+     * @return the same document, masked.
+     */
+    @Override
+    public Map<String, Object> mask(Map<String, Object> document) {
+        if (elementMask != null) {
+            return JsonMask.super.mask(document);
+        }
+        if (matcher.apply(MAP_PROVIDER, document, matcher.root(), listener, MaskLimits.Deadline.NONE) != document) {
+            throw new IllegalStateException("The root of the document cannot be replaced in place");
+        }
+        return document;
+    }
+
+    private void rewrite(JsonSource source, JsonSink sink) {
+        try {
+            new JsonStreamRewriter(matcher, listener, elementMask, source, sink).rewrite();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.butreik.dmask.core;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * Replaces values with stable pseudonymous tokens: the HMAC-SHA256 of the UTF-8 encoded value,
+ * truncated and encoded in base62. Equal values have equal tokens for the same key, so masked data
+ * can still be joined on them, while the values cannot be recovered or guessed without the key.
+ * <p>
+ * Strings and numbers are tokenized, numbers by their decimal representation, other values are returned as is.
+ * Each thread uses its own {@link Mac} and buffers, so tokenizing a value allocates only the token and the inner
+ * digest of the JDK's HMAC implementation. Each thread optionally memoizes the tokens of its most recently used values,
+ * which are returned without any allocation.
+ *
+ * @author Vladimir Rudnev
+ */
+final class Tokenizer implements MapFunction {
+
+    /**
+     * The HMAC algorithm.
+     */
+    static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * The maximum length of a token, which holds about 190 bits of the MAC.
+     */
+    static final int MAX_TOKEN_LENGTH = 32;
+
+    private static final char[] BASE62 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private final SecretKeySpec key;
+    private final int tokenLength;
+    private final int memoSize;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(this::newState);
+
+    /**
+     * Creates a tokenizer.
+     *
+     * @param key         the HMAC key.
+     * @param tokenLength the number of base62 characters of a token.
+     * @param memoSize    the number of tokens memoized per thread, {@code 0} to disable memoization.
+     * @throws IllegalArgumentException if the key is empty or a length is out of range.
+     */
+    Tokenizer(byte[] key, int tokenLength, int memoSize) {
+        assertTrue(assertNotNull(key).length > 0, () -> "Tokenization key must not be empty");
+        assertTrue(tokenLength > 0 && tokenLength <= MAX_TOKEN_LENGTH,
+                () -> "Token length must be between 1 and " + MAX_TOKEN_LENGTH);
+        assertTrue(memoSize >= 0, () -> "Memo size must not be negative");
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        this.tokenLength = tokenLength;
+        this.memoSize = memoSize;
+        // fails fast if the algorithm is not available or the key is rejected
+        newState();
+    }
+
+    @Override
+    public Object map(Object input) {
+        if (input instanceof String) {
+            return tokenize((String) input);
+        }
+        if (input instanceof Number) {
+            return tokenize(input.toString());
+        }
+        return input;
+    }
+
+    private String tokenize(String value) {
+        State state = this.state.get();
+        if (state.memo == null) {
+            return state.tokenize(value);
+        }
+        String token = state.memo.get(value);
+        if (token == null) {
+            token = state.tokenize(value);
+            state.memo.put(value, token);
+        }
+        return token;
+    }
+
+    private State newState() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return new State(mac);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+
+    /**
+     * The MAC and the buffers of a thread.
+     */
+    private final class State {
+        private final Mac mac;
+        private final byte[] digest;
+        private final int[] limbs = new int[8];
+        private final char[] token = new char[tokenLength];
+        private byte[] utf8 = new byte[256];
+        private final Map<String, String> memo;
+
+        private State(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+            this.memo = memoSize == 0 ? null : new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > memoSize;
+                }
+            };
+        }
+
+        private String tokenize(String value) {
+            mac.update(utf8, 0, encode(value));
+            try {
+                mac.doFinal(digest, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            for (int i = 0; i < limbs.length; i++) {
+                limbs[i] = (digest[4 * i] & 0xff) << 24 | (digest[4 * i + 1] & 0xff) << 16
+                        | (digest[4 * i + 2] & 0xff) << 8 | digest[4 * i + 3] & 0xff;
+            }
+            // the digits of the digest as a big-endian number in base 62, least significant first
+            for (int i = 0; i < token.length; i++) {
+                long remainder = 0;
+                for (int j = 0; j < limbs.length; j++) {
+                    long dividend = remainder << 32 | limbs[j] & 0xffffffffL;
+                    limbs[j] = (int) (dividend / BASE62.length);
+                    remainder = dividend % BASE62.length;
+                }
+                token[i] = BASE62[(int) remainder];
+            }
+            return new String(token);
+        }
+
+        /**
+         * Encodes the value in UTF-8 into the buffer, growing it if necessary, and returns the number of bytes.
+         */
+        private int encode(String value) {
+            int maxLength = value.length() * 3;
+            if (utf8.length < maxLength) {
+                utf8 = new byte[Math.max(maxLength, utf8.length * 2)];
+            }
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    utf8[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    utf8[length++] = (byte) (0xc0 | c >> 6);
+                    utf8[length++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    utf8[length++] = (byte) (0xf0 | codePoint >> 18);
+                    utf8[length++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    utf8[length++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    utf8[length++] = (byte) (0x80 | codePoint & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    utf8[length++] = '?';
+                } else {
+                    utf8[length++] = (byte) (0xe0 | c >> 12);
+                    utf8[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    utf8[length++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.butreik.dmask.core;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.butreik.dmask.core.MapFunctions.DEFAULT_REPLACEMENT_STRING;
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFLT;
+import static org.objectweb.asm.Opcodes.IF_ICMPNE;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INSTANCEOF;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.ISUB;
+import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.SWAP;
+import static org.objectweb.asm.Opcodes.V11;
+
+/**
+ * Generates the bytecode of a {@link Traversal} of a {@link FilterMatcher}, see
+ * {@link JsonMaskImpl.Builder#bytecode(boolean)}.
+ * <p>
+ * Every reachable state of the matcher becomes a method of the generated class, which compares property names
+ * and array indexes with the constants of its transitions and calls the methods of the target states, so the JIT
+ * can inline the whole traversal instead of looking up transitions in tables. The map functions are stored in
+ * final fields and called directly, maskers of {@link Maskers} that return a constant string are folded into
+ * the constant, and the listener is not called at all if it is {@link MaskListener#NONE}.
+ * <p>
+ * The class is defined as a hidden class, so it is unloaded with the mask. Before Java 15 there are no hidden classes,
+ * and an ordinary class of this package would never be unloaded, so every mask built would leak one. The matcher
+ * is used there instead. Matchers with too many states or transitions are not generated either, since they are
+ * better served by the tables of the matcher than by long chains of comparisons.
+ *
+ * @author Vladimir Rudnev
+ */
+final class TraversalGenerator {
+
+    /**
+     * The maximum number of states of a generated traversal.
+     */
+    static final int MAX_STATES = 256;
+
+    /**
+     * The maximum number of property names or array indexes compared in a state.
+     */
+    static final int MAX_TRANSITIONS = 32;
+
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String MAP = Type.getInternalName(Map.class);
+    private static final String ENTRY = Type.getInternalName(Map.Entry.class);
+    private static final String ITERATOR = Type.getInternalName(java.util.Iterator.class);
+    private static final String LIST = Type.getInternalName(List.class);
+    private static final String MAP_FUNCTION = Type.getInternalName(MapFunction.class);
+    private static final String MASKER = Type.getInternalName(Masker.class);
+    private static final String LISTENER = Type.getInternalName(MaskListener.class);
+    private static final String DEADLINE = Type.getInternalName(MaskLimits.Deadline.class);
+    private static final String FUNCTION = "(Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String STATE = "(Ljava/lang/Object;L" + DEADLINE + ";)Ljava/lang/Object;";
+
+    /**
+     * The constant results of predefined maskers, folded into the generated code.
+     */
+    private static final Map<Masker, String> CONSTANTS = new IdentityHashMap<>();
+
+    static {
+        CONSTANTS.put(Maskers.SECRET_MASKER, DEFAULT_REPLACEMENT_STRING);
+        CONSTANTS.put(Maskers.REPLACE_STRING_MASKER, DEFAULT_REPLACEMENT_STRING);
+        CONSTANTS.put(Maskers.ISO_OFFSET_DATE_MASKER, "2000-01-01+01:00");
+        CONSTANTS.put(Maskers.ISO_OFFSET_TIME_MASKER, "00:00:00+01:00");
+        CONSTANTS.put(Maskers.ISO_OFFSET_DATE_TIME, "2000-01-01T00:00:00+01:00");
+        CONSTANTS.put(Maskers.ISO_LOCAL_DATE_MASKER, "2000-01-01");
+        CONSTANTS.put(Maskers.ISO_LOCAL_TIME_MASKER, "00:00");
+        CONSTANTS.put(Maskers.ISO_LOCAL_DATE_TIME_MASKER, "2000-01-01T00:00:00");
+        CONSTANTS.put(Maskers.ISO_INSTANT_MASKER, "2000-01-01T00:00:00Z");
+    }
+
+    private static final AtomicInteger CLASS_NUMBER = new AtomicInteger();
+
+    private static final Method DEFINE_HIDDEN_CLASS = defineHiddenClassMethod();
+
+    private final MaskAutomaton automaton;
+    private final boolean listening;
+    private final String className;
+    private final Map<Masker, Integer> maskerIds = new IdentityHashMap<>();
+    private final List<Masker> maskers = new ArrayList<>();
+
+    private TraversalGenerator(MaskAutomaton automaton, boolean listening) {
+        this.automaton = automaton;
+        this.listening = listening;
+        this.className = Type.getInternalName(TraversalGenerator.class) + "$Generated" + CLASS_NUMBER.incrementAndGet();
+        for (int state = 0; state < automaton.size(); state++) {
+            for (Masker masker : automaton.maskers(state)) {
+                if (!maskerIds.containsKey(masker)) {
+                    maskerIds.put(masker, maskers.size());
+                    maskers.add(masker);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates a traversal of the specified matcher applying the filters to documents of {@link Map}
+     * and {@link List} instances, like {@link FilterMatcher#apply} with the {@code net.minidev.json} provider.
+     *
+     * @param matcher  the matcher.
+     * @param listener the listener notified about every applied masker.
+     * @return the traversal, or {@code null} if the matcher is too large, matches property names ignoring case,
+     * the runtime has no hidden classes or the class cannot be generated.
+     */
+    static Traversal generate(FilterMatcher matcher, MaskListener listener) {
+        if (DEFINE_HIDDEN_CLASS == null || matcher.size() > MAX_STATES
+                || matcher.keys() != null && matcher.keys().isIgnoreCase()) {
+            return null;
+        }
+        MaskAutomaton automaton = new MaskAutomaton(matcher);
+        for (int state = 0; state < automaton.size(); state++) {
+            if (automaton.names(state).size() > MAX_TRANSITIONS || automaton.indexes(state).size() > MAX_TRANSITIONS) {
+                return null;
+            }
+        }
+        try {
+            TraversalGenerator generator = new TraversalGenerator(automaton, listener != MaskListener.NONE);
+            Class<?> type = define(generator.generate());
+            MapFunction[] functions = generator.maskers.stream().map(Masker::getMapFunction).toArray(MapFunction[]::new);
+            return (Traversal) type.getDeclaredConstructor(MapFunction[].class, Masker[].class, MaskListener.class)
+                    .newInstance(functions, generator.maskers.toArray(new Masker[0]), listener);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // the class cannot be defined, for example in a native image, the matcher is used instead
+            return null;
+        }
+    }
+
+    private byte[] generate() {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                // all merged types are interfaces of java.util, which avoids loading classes
+                return OBJECT;
+            }
+        };
+        writer.visit(V11, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, className, null, OBJECT,
+                new String[]{Type.getInternalName(Traversal.class)});
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, "functions", "[L" + MAP_FUNCTION + ";", null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, "maskers", "[L" + MASKER + ";", null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, "listener", "L" + LISTENER + ";", null, null).visitEnd();
+        generateConstructor(writer);
+
+        boolean[] reachable = reachableStates();
+        MethodVisitor apply = writer.visitMethod(ACC_PUBLIC, "apply", STATE, null, null);
+        apply.visitCode();
+        if (reachable[automaton.root()]) {
+            apply.visitVarInsn(ALOAD, 0);
+            apply.visitVarInsn(ALOAD, 1);
+            apply.visitVarInsn(ALOAD, 2);
+            apply.visitMethodInsn(INVOKESPECIAL, className, "s" + automaton.root(), STATE, false);
+        } else {
+            apply.visitVarInsn(ALOAD, 1);
+        }
+        apply.visitInsn(ARETURN);
+        apply.visitMaxs(0, 0);
+        apply.visitEnd();
+        for (int state = 0; state < automaton.size(); state++) {
+            if (reachable[state]) {
+                generateState(writer, state);
+            }
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private void generateConstructor(ClassWriter writer) {
+        MethodVisitor constructor = writer.visitMethod(ACC_PUBLIC, "<init>",
+                "([L" + MAP_FUNCTION + ";[L" + MASKER + ";L" + LISTENER + ";)V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        String[][] fields = {{"functions", "[L" + MAP_FUNCTION + ";"}, {"maskers", "[L" + MASKER + ";"},
+                {"listener", "L" + LISTENER + ";"}};
+        for (int i = 0; i < fields.length; i++) {
+            constructor.visitVarInsn(ALOAD, 0);
+            constructor.visitVarInsn(ALOAD, i + 1);
+            constructor.visitFieldInsn(PUTFIELD, className, fields[i][0], fields[i][1]);
+        }
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+    }
+
+    /**
+     * Generates the method of a state. The locals are the node (1), the deadline (2), the entry iterator
+     * or the list (3), the entry (4), the property name (5) and the element index (6).
+     */
+    private void generateState(ClassWriter writer, int state) {
+        MethodVisitor method = writer.visitMethod(ACC_PRIVATE, "s" + state, STATE, null, null);
+        method.visitCode();
+        method.visitVarInsn(ALOAD, 2);
+        method.visitMethodInsn(INVOKEVIRTUAL, DEADLINE, "node", "()V", false);
+        Label maskersLabel = new Label();
+        if (!automaton.names(state).isEmpty() || automaton.otherName(state) != MaskAutomaton.DEAD) {
+            generateObject(method, state, maskersLabel);
+        }
+        if (!automaton.indexes(state).isEmpty() || automaton.otherIndex(state) != MaskAutomaton.DEAD) {
+            generateArray(method, state, maskersLabel);
+        }
+        method.visitLabel(maskersLabel);
+        method.visitVarInsn(ALOAD, 1);
+        for (Masker masker : automaton.maskers(state)) {
+            int id = maskerIds.get(masker);
+            String constant = CONSTANTS.get(masker);
+            if (constant != null) {
+                method.visitInsn(POP);
+                method.visitLdcInsn(constant);
+            } else {
+                method.visitVarInsn(ALOAD, 0);
+                method.visitFieldInsn(GETFIELD, className, "functions", "[L" + MAP_FUNCTION + ";");
+                method.visitLdcInsn(id);
+                method.visitInsn(AALOAD);
+                method.visitInsn(SWAP);
+                method.visitMethodInsn(INVOKEINTERFACE, MAP_FUNCTION, "map", FUNCTION, true);
+            }
+            if (listening) {
+                method.visitVarInsn(ALOAD, 0);
+                method.visitFieldInsn(GETFIELD, className, "listener", "L" + LISTENER + ";");
+                method.visitVarInsn(ALOAD, 0);
+                method.visitFieldInsn(GETFIELD, className, "maskers", "[L" + MASKER + ";");
+                method.visitLdcInsn(id);
+                method.visitInsn(AALOAD);
+                method.visitMethodInsn(INVOKEINTERFACE, LISTENER, "onMasked", "(L" + MASKER + ";)V", true);
+            }
+        }
+        method.visitInsn(ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private void generateObject(MethodVisitor method, int state, Label maskersLabel) {
+        Label notObject = new Label();
+        Label loop = new Label();
+        method.visitVarInsn(ALOAD, 1);
+        method.visitTypeInsn(INSTANCEOF, MAP);
+        method.visitJumpInsn(IFEQ, notObject);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitTypeInsn(CHECKCAST, MAP);
+        method.visitMethodInsn(INVOKEINTERFACE, MAP, "entrySet", "()Ljava/util/Set;", true);
+        method.visitMethodInsn(INVOKEINTERFACE, "java/util/Set", "iterator", "()L" + ITERATOR + ";", true);
+        method.visitVarInsn(ASTORE, 3);
+        method.visitLabel(loop);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitMethodInsn(INVOKEINTERFACE, ITERATOR, "hasNext", "()Z", true);
+        method.visitJumpInsn(IFEQ, maskersLabel);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitMethodInsn(INVOKEINTERFACE, ITERATOR, "next", "()Ljava/lang/Object;", true);
+        method.visitTypeInsn(CHECKCAST, ENTRY);
+        method.visitVarInsn(ASTORE, 4);
+        Map<String, Integer> names = automaton.names(state);
+        if (!names.isEmpty()) {
+            method.visitVarInsn(ALOAD, 4);
+            method.visitMethodInsn(INVOKEINTERFACE, ENTRY, "getKey", "()Ljava/lang/Object;", true);
+            method.visitVarInsn(ASTORE, 5);
+        }
+        for (Map.Entry<String, Integer> name : names.entrySet()) {
+            Label other = new Label();
+            method.visitLdcInsn(name.getKey());
+            method.visitVarInsn(ALOAD, 5);
+            method.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+            method.visitJumpInsn(IFEQ, other);
+            generatePropertyTransition(method, name.getValue());
+            method.visitJumpInsn(GOTO, loop);
+            method.visitLabel(other);
+        }
+        generatePropertyTransition(method, automaton.otherName(state));
+        method.visitJumpInsn(GOTO, loop);
+        method.visitLabel(notObject);
+    }
+
+    private void generatePropertyTransition(MethodVisitor method, int next) {
+        if (next == MaskAutomaton.DEAD) {
+            return;
+        }
+        if (automaton.isRemoved(next)) {
+            method.visitVarInsn(ALOAD, 3);
+            method.visitMethodInsn(INVOKEINTERFACE, ITERATOR, "remove", "()V", true);
+            generateRemoved(method);
+            return;
+        }
+        method.visitVarInsn(ALOAD, 4);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 4);
+        method.visitMethodInsn(INVOKEINTERFACE, ENTRY, "getValue", "()Ljava/lang/Object;", true);
+        method.visitVarInsn(ALOAD, 2);
+        method.visitMethodInsn(INVOKESPECIAL, className, "s" + next, STATE, false);
+        method.visitMethodInsn(INVOKEINTERFACE, ENTRY, "setValue", FUNCTION, true);
+        method.visitInsn(POP);
+    }
+
+    private void generateArray(MethodVisitor method, int state, Label maskersLabel) {
+        Label loop = new Label();
+        Label next = new Label();
+        method.visitVarInsn(ALOAD, 1);
+        method.visitTypeInsn(INSTANCEOF, LIST);
+        method.visitJumpInsn(IFEQ, maskersLabel);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitTypeInsn(CHECKCAST, LIST);
+        method.visitVarInsn(ASTORE, 3);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitMethodInsn(INVOKEINTERFACE, LIST, "size", "()I", true);
+        method.visitInsn(ICONST_1);
+        method.visitInsn(ISUB);
+        method.visitVarInsn(ISTORE, 6);
+        method.visitLabel(loop);
+        method.visitVarInsn(ILOAD, 6);
+        method.visitJumpInsn(IFLT, maskersLabel);
+        for (Map.Entry<Integer, Integer> index : automaton.indexes(state).entrySet()) {
+            Label other = new Label();
+            method.visitVarInsn(ILOAD, 6);
+            method.visitLdcInsn(index.getKey());
+            method.visitJumpInsn(IF_ICMPNE, other);
+            generateElementTransition(method, index.getValue());
+            method.visitJumpInsn(GOTO, next);
+            method.visitLabel(other);
+        }
+        generateElementTransition(method, automaton.otherIndex(state));
+        method.visitLabel(next);
+        method.visitIincInsn(6, -1);
+        method.visitJumpInsn(GOTO, loop);
+    }
+
+    private void generateElementTransition(MethodVisitor method, int next) {
+        if (next == MaskAutomaton.DEAD) {
+            return;
+        }
+        if (automaton.isRemoved(next)) {
+            method.visitVarInsn(ALOAD, 3);
+            method.visitVarInsn(ILOAD, 6);
+            method.visitMethodInsn(INVOKEINTERFACE, LIST, "remove", "(I)Ljava/lang/Object;", true);
+            method.visitInsn(POP);
+            generateRemoved(method);
+            return;
+        }
+        method.visitVarInsn(ALOAD, 3);
+        method.visitVarInsn(ILOAD, 6);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitVarInsn(ILOAD, 6);
+        method.visitMethodInsn(INVOKEINTERFACE, LIST, "get", "(I)Ljava/lang/Object;", true);
+        method.visitVarInsn(ALOAD, 2);
+        method.visitMethodInsn(INVOKESPECIAL, className, "s" + next, STATE, false);
+        method.visitMethodInsn(INVOKEINTERFACE, LIST, "set", "(ILjava/lang/Object;)Ljava/lang/Object;", true);
+        method.visitInsn(POP);
+    }
+
+    private void generateRemoved(MethodVisitor method) {
+        if (!listening) {
+            return;
+        }
+        method.visitVarInsn(ALOAD, 0);
+        method.visitFieldInsn(GETFIELD, className, "listener", "L" + LISTENER + ";");
+        method.visitFieldInsn(GETSTATIC, Type.getInternalName(Maskers.class), "REMOVE_MASKER", "L" + MASKER + ";");
+        method.visitMethodInsn(INVOKEINTERFACE, LISTENER, "onMasked", "(L" + MASKER + ";)V", true);
+    }
+
+    /**
+     * Finds the states reachable from the root that have a method, which excludes the dead state
+     * and the states whose nodes are removed.
+     */
+    private boolean[] reachableStates() {
+        boolean[] reachable = new boolean[automaton.size()];
+        List<Integer> queue = new ArrayList<>();
+        queue.add(automaton.root());
+        while (!queue.isEmpty()) {
+            int state = queue.remove(queue.size() - 1);
+            if (state == MaskAutomaton.DEAD || reachable[state] || automaton.isRemoved(state)) {
+                continue;
+            }
+            reachable[state] = true;
+            queue.addAll(automaton.names(state).values());
+            queue.addAll(automaton.indexes(state).values());
+            queue.add(automaton.otherName(state));
+            queue.add(automaton.otherIndex(state));
+        }
+        return reachable;
+    }
+
+    /**
+     * Defines the class as a hidden class, which can be unloaded once the traversal is not referenced anymore.
+     */
+    private static Class<?> define(byte[] bytes) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Object options = Array.newInstance(DEFINE_HIDDEN_CLASS.getParameterTypes()[2].getComponentType(), 0);
+        return ((MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, bytes, true, options)).lookupClass();
+    }
+
+    /**
+     * Looks up {@code Lookup.defineHiddenClass} reflectively, so the library still runs on Java 11.
+     */
+    private static Method defineHiddenClassMethod() {
+        try {
+            Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            return MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, Array.newInstance(option, 0).getClass());
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A traversal applying the filters of a matcher to a document of {@link Map} and {@link List} instances.
+     */
+    interface Traversal {
+
+        /**
+         * Masks a document in place.
+         *
+         * @param document the root of the document.
+         * @param deadline the deadline of masking, checked for every visited node.
+         * @return the masked root, or the same root if it was masked in place.
+         * @throws MaskLimitExceededException if the deadline passes while the document is masked.
+         */
+        Object apply(Object document, MaskLimits.Deadline deadline);
+    }
+}
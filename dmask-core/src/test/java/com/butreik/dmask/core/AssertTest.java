@@ -78,5 +78,8 @@ public class AssertTest {
         assertTrue(true);
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> assertTrue(false));
         assertEquals("Condition expected to be true", exception.getMessage());
+        assertTrue(true, () -> "message");
+        exception = assertThrows(IllegalArgumentException.class, () -> assertTrue(false, () -> "message"));
+        assertEquals("message", exception.getMessage());
     }
 }
@@ -0,0 +1,96 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.InvalidJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The AsyncJsonMaskTest class contains test methods that test the functionality of the AsyncJsonMask class.
+ *
+ * @author Vladimir Rudnev
+ */
+public class AsyncJsonMaskTest {
+
+    private static final JsonMask JSON_MASK = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").build();
+
+    @Test
+    public void inlineTest() {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        JsonMask recording = input -> {
+            thread.set(Thread.currentThread());
+            return JSON_MASK.mask(input);
+        };
+        try (AsyncJsonMask asyncJsonMask = AsyncJsonMask.builder(recording).inlineThreshold(64).build()) {
+            CompletableFuture<String> result = asyncJsonMask.mask("{\"password\":\"Qwerty123\"}");
+
+            assertTrue(result.isDone());
+            assertEquals("{\"password\":\"******\"}", result.join());
+            assertEquals(Thread.currentThread(), thread.get());
+            assertTrue(asyncJsonMask.mask("{\"password\":").isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    public void executorTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        JsonMask recording = input -> {
+            thread.set(Thread.currentThread());
+            return JSON_MASK.mask(input);
+        };
+        try (AsyncJsonMask asyncJsonMask = AsyncJsonMask.builder(recording).executor(executor).inlineThreshold(8).build()) {
+            String result = asyncJsonMask.mask("{\"password\":\"Qwerty123\"}").get();
+            byte[] bytes = asyncJsonMask.mask("{\"password\":\"Qwerty123\"}".getBytes(StandardCharsets.UTF_8)).get();
+
+            assertEquals("{\"password\":\"******\"}", result);
+            assertEquals("{\"password\":\"******\"}", new String(bytes, StandardCharsets.UTF_8));
+            assertNotEquals(Thread.currentThread(), thread.get());
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> asyncJsonMask.mask("{\"password\":\"Qwerty123\"").get());
+            assertInstanceOf(InvalidJsonException.class, exception.getCause());
+        }
+        assertFalse(executor.isShutdown());
+        executor.shutdown();
+    }
+
+    @Test
+    public void workerPoolTest() throws Exception {
+        AsyncJsonMask asyncJsonMask = AsyncJsonMask.builder(JSON_MASK)
+                .inlineThreshold(-1)
+                .virtualThreads(false)
+                .workers(2)
+                .build();
+
+        assertEquals("{\"password\":\"******\"}", asyncJsonMask.mask("{\"password\":\"Qwerty123\"}").get());
+
+        asyncJsonMask.close();
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> asyncJsonMask.mask("{\"password\":\"Qwerty123\"}").get());
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    public void builderTest() {
+        AsyncJsonMask.Builder builder = AsyncJsonMask.builder(JSON_MASK);
+
+        assertThrows(IllegalArgumentException.class, () -> AsyncJsonMask.builder(null));
+        assertThrows(IllegalArgumentException.class, () -> builder.inlineThreshold(-2));
+        assertThrows(IllegalArgumentException.class, () -> builder.workers(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.queueCapacity(0));
+    }
+}
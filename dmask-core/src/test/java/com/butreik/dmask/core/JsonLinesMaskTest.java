@@ -0,0 +1,83 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.InvalidJsonException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The JsonLinesMaskTest class contains test methods that test the functionality of the JsonLinesMask class.
+ *
+ * @author Vladimir Rudnev
+ */
+public class JsonLinesMaskTest {
+
+    private static final JsonMask JSON_MASK = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").build();
+
+    private static final String INPUT = IntStream.range(0, 1000)
+            .mapToObj(i -> i % 100 == 0 ? "" : "{\"id\":" + i + ",\"password\":\"secret" + i + "\"}")
+            .collect(Collectors.joining("\r\n"));
+
+    private static final String EXPECTED = IntStream.range(0, 1000)
+            .mapToObj(i -> i % 100 == 0 ? "" : "{\"id\":" + i + ",\"password\":\"******\"}")
+            .collect(Collectors.joining("\n", "", "\n"));
+
+    @Test
+    public void maskSequentiallyTest() throws IOException {
+        StringWriter output = new StringWriter();
+
+        long lines = JsonLinesMask.builder(JSON_MASK).build().mask(new StringReader(INPUT), output);
+
+        assertEquals(1000, lines);
+        assertEquals(EXPECTED, output.toString());
+    }
+
+    @Test
+    public void maskInParallelTest() throws IOException {
+        JsonLinesMask jsonLinesMask = JsonLinesMask.builder(JSON_MASK)
+                .parallelism(4)
+                .batchSize(7)
+                .queueCapacity(2)
+                .build();
+        StringWriter output = new StringWriter();
+
+        long lines = jsonLinesMask.mask(new StringReader(INPUT), output);
+
+        assertEquals(1000, lines);
+        assertEquals(EXPECTED, output.toString());
+    }
+
+    @Test
+    public void maskFilesTest(@TempDir Path directory) throws IOException {
+        Path input = Files.writeString(directory.resolve("input.jsonl"), INPUT);
+        Path output = directory.resolve("output.jsonl");
+
+        JsonLinesMask.builder(JSON_MASK).parallelism(2).build().mask(input, output);
+
+        assertEquals(EXPECTED, Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void invalidLineTest() {
+        String input = "{\"password\":\"a\"}\n{\"password\":\n{\"password\":\"b\"}";
+
+        for (int parallelism : new int[]{1, 2}) {
+            JsonLinesMask jsonLinesMask = JsonLinesMask.builder(JSON_MASK).parallelism(parallelism).batchSize(1).build();
+            InvalidJsonException exception = assertThrows(InvalidJsonException.class,
+                    () -> jsonLinesMask.mask(new StringReader(input), new StringWriter()));
+            assertEquals("Line 2 is not valid JSON", exception.getMessage());
+        }
+    }
+}
@@ -1,8 +1,28 @@
 package com.butreik.dmask.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.InvalidJsonException;
 import org.json.JSONException;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 import static com.butreik.dmask.core.MapFunctions.maskMiddleCharactersMaskers;
 import static com.butreik.dmask.core.Maskers.EMAIL_MASKER;
 import static com.butreik.dmask.core.Maskers.EXCEPT_FIRST_CHARACTER_MASKER;
@@ -75,4 +95,394 @@ public class JsonMaskTest {
         //then
         assertEquals(maskedJson, result, true);
     }
+
+    @Test
+    public void maskArraysTest() throws JSONException {
+        // given
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(REMOVE_MASKER, "$.items[0]")
+                .filter(NUMBER_MASKER, "$.items[*].price")
+                .filter(SECRET_MASKER, "$['owner']['name']")
+                .build();
+
+        String inputJson = "{\"owner\":{\"name\":\"Julius\"},\"items\":[{\"price\":1},{\"price\":2},{\"price\":3}]}";
+        String maskedJson = "{\"owner\":{\"name\":\"******\"},\"items\":[{\"price\":0},{\"price\":0}]}";
+
+        //when
+        String result = jsonMask.mask(inputJson);
+        //then
+        assertEquals(maskedJson, result, true);
+    }
+
+    @Test
+    public void maskWithFilterExpressionTest() throws JSONException {
+        // given
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$.items[?(@.type == 'card')].number")
+                .filter(NUMBER_MASKER, "$..price")
+                .build();
+
+        String inputJson = "{\"items\":[{\"type\":\"card\",\"number\":\"4111\",\"price\":5},{\"type\":\"cash\",\"number\":\"1\"}]}";
+        String maskedJson = "{\"items\":[{\"type\":\"card\",\"number\":\"******\",\"price\":0},{\"type\":\"cash\",\"number\":\"1\"}]}";
+
+        //when
+        String result = jsonMask.mask(inputJson);
+        //then
+        assertEquals(maskedJson, result, true);
+    }
+
+    @Test
+    public void mixedFiltersOrderTest() throws JSONException {
+        // given
+        List<String> applied = new ArrayList<>();
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(appending("3", 3, applied), "$..number")
+                .filter(appending("2", 2, applied), "$.items[?(@.type == 'card')].number")
+                .filter(appending("1", 1, applied), "$..number")
+                .filter(REMOVE_MASKER, "$.items[?(@.type == 'cash')]")
+                .filter(REMOVE_MASKER, "$..secret")
+                .build();
+
+        String inputJson = "{\"items\":[{\"type\":\"card\",\"number\":\"x\",\"secret\":1},{\"type\":\"cash\",\"number\":\"y\"}]}";
+        String maskedJson = "{\"items\":[{\"type\":\"card\",\"number\":\"x123\"}]}";
+
+        //when
+        String result = jsonMask.mask(inputJson);
+        //then
+        assertEquals(maskedJson, result, true);
+        Assertions.assertEquals(List.of("1", "2", "3"), applied);
+    }
+
+    @Test
+    public void equalOrderFiltersTest() throws JSONException {
+        // given
+        List<String> applied = new ArrayList<>();
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(appending("1", 0, applied), "$..number")
+                .filter(appending("2", 0, applied), "$.items[?(@.type == 'card')].number")
+                .filter(appending("3", 0, applied), "$.items[*].number")
+                .build();
+
+        String inputJson = "{\"items\":[{\"type\":\"card\",\"number\":\"x\"}]}";
+        String maskedJson = "{\"items\":[{\"type\":\"card\",\"number\":\"x123\"}]}";
+
+        //when
+        String result = jsonMask.mask(inputJson);
+        //then
+        assertEquals(maskedJson, result, true);
+        Assertions.assertEquals(List.of("1", "2", "3"), applied);
+    }
+
+    @Test
+    public void nestedFiltersOrderTest() throws JSONException {
+        // given
+        List<String> applied = new ArrayList<>();
+        Masker outer = Masker.builder().name("outer").order(1).mapFunction(value -> {
+            applied.add("outer " + value);
+            return "hidden";
+        }).build();
+        Masker inner = appending("2", 2, applied);
+        String inputJson = "{\"a\":{\"b\":\"secret\"},\"c\":{\"b\":\"x\"}}";
+        String maskedJson = "{\"a\":\"hidden\",\"c\":{\"b\":\"x2\"}}";
+
+        for (boolean bytecode : new boolean[]{false, true}) {
+            for (boolean key : new boolean[]{false, true}) {
+                applied.clear();
+                JsonMaskImpl.Builder builder = JsonMaskImpl.builder().filter(outer, "$.a").bytecode(bytecode);
+                JsonMask jsonMask = (key ? builder.filterKey(inner, "b") : builder.filter(inner, "$..b")).build();
+
+                //when
+                String result = jsonMask.mask(inputJson);
+                //then
+                assertEquals(maskedJson, result, true);
+                Assertions.assertEquals(List.of("outer {b=secret}", "2"), applied);
+            }
+        }
+    }
+
+    private static Masker appending(String suffix, int order, List<String> applied) {
+        return Masker.builder().name("append-" + suffix).order(order).mapFunction(value -> {
+            applied.add(suffix);
+            return value + suffix;
+        }).build();
+    }
+
+    @Test
+    public void maskBytesAndStreamsTest() throws JSONException, IOException {
+        // given
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(EXCEPT_FIRST_CHARACTER_MASKER, "$.items[?(@.login)].login")
+                .build();
+
+        String inputJson = "{\"name\":\"Юлий\",\"password\":\"Qwerty123\",\"items\":[{\"login\":\"Цезарь\"}]}";
+        String maskedJson = "{\"name\":\"Юлий\",\"password\":\"******\",\"items\":[{\"login\":\"Ц*****\"}]}";
+
+        //when
+        byte[] bytes = jsonMask.mask(inputJson.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        jsonMask.mask(new ByteArrayInputStream(inputJson.getBytes(StandardCharsets.UTF_8)), stream);
+        StringWriter writer = new StringWriter();
+        jsonMask.mask(new StringReader(inputJson), writer);
+        //then
+        assertEquals(maskedJson, new String(bytes, StandardCharsets.UTF_8), true);
+        assertEquals(maskedJson, stream.toString(StandardCharsets.UTF_8), true);
+        assertEquals(maskedJson, writer.toString(), true);
+    }
+
+    @Test
+    public void listenerTest() {
+        // given
+        String inputJson = "{\"password\":\"Qwerty123\",\"items\":[{\"type\":\"card\",\"price\":5},{\"price\":7}]}";
+        Map<String, Integer> compiledHits = new TreeMap<>();
+        Map<String, Integer> legacyHits = new TreeMap<>();
+
+        //when
+        JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(NUMBER_MASKER, "$..price")
+                .filter(REMOVE_MASKER, "$.items[*].type")
+                .listener(masker -> compiledHits.merge(masker.getName(), 1, Integer::sum))
+                .build()
+                .mask(inputJson);
+        JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(NUMBER_MASKER, "$..price")
+                .filter(REMOVE_MASKER, "$.items[?(@.type)].type")
+                .listener(masker -> legacyHits.merge(masker.getName(), 1, Integer::sum))
+                .build()
+                .mask(inputJson);
+        //then
+        Map<String, Integer> expected = Map.of("number-masker", 2, "remove-masker", 1, "secret-masker", 1);
+        Assertions.assertEquals(expected, compiledHits);
+        Assertions.assertEquals(expected, legacyHits);
+    }
+
+    @Test
+    public void maskWithObjectMapperTest() throws JSONException, IOException {
+        // given
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .objectMapper(new ObjectMapper())
+                .filter(SECRET_MASKER, "$..password")
+                .filter(NUMBER_MASKER, "$.items[*].price")
+                .filter(REMOVE_MASKER, "$..documents")
+                .filter(EXCEPT_FIRST_CHARACTER_MASKER, "$.items[?(@.login)].login")
+                .build();
+
+        String inputJson = "{\"password\":\"Qwerty123\",\"documents\":[1,2],\"items\":[{\"login\":\"Цезарь\",\"price\":1.5}]}";
+        String maskedJson = "{\"password\":\"******\",\"items\":[{\"login\":\"Ц*****\",\"price\":0}]}";
+
+        //when
+        String result = jsonMask.mask(inputJson);
+        byte[] bytes = jsonMask.mask(inputJson.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        jsonMask.mask(new ByteArrayInputStream(inputJson.getBytes(StandardCharsets.UTF_8)), stream);
+        StringWriter writer = new StringWriter();
+        jsonMask.mask(new StringReader(inputJson), writer);
+        //then
+        assertEquals(maskedJson, result, true);
+        assertEquals(maskedJson, new String(bytes, StandardCharsets.UTF_8), true);
+        assertEquals(maskedJson, stream.toString(StandardCharsets.UTF_8), true);
+        assertEquals(maskedJson, writer.toString(), true);
+    }
+
+    @Test
+    public void maskMapInPlaceTest() {
+        // given
+        JsonMask compiled = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(REMOVE_MASKER, "$.items[*].type")
+                .build();
+        JsonMask legacy = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(REMOVE_MASKER, "$.items[?(@.type)].type")
+                .build();
+
+        for (JsonMask jsonMask : List.of(compiled, legacy)) {
+            Map<String, Object> item = new LinkedHashMap<>(Map.of("type", "card", "password", "1234"));
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("password", "Qwerty123");
+            document.put("items", new ArrayList<>(List.of(item)));
+
+            //when
+            Map<String, Object> result = jsonMask.mask(document);
+            //then
+            Assertions.assertSame(document, result);
+            Assertions.assertEquals(Map.of("password", "******", "items", List.of(Map.of("password", "******"))), document);
+        }
+    }
+
+    @Test
+    public void maskJsonNodeInPlaceTest() throws JSONException, IOException {
+        // given
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonMaskImpl jsonMask = JsonMaskImpl.builder()
+                .objectMapper(objectMapper)
+                .filter(SECRET_MASKER, "$..password")
+                .filter(REMOVE_MASKER, "$..documents")
+                .build();
+        JsonNode document = objectMapper.readTree("{\"password\":\"Qwerty123\",\"documents\":[1],\"items\":[{\"password\":1}]}");
+
+        //when
+        JsonNode result = jsonMask.maskTree(document);
+        //then
+        Assertions.assertSame(document, result);
+        assertEquals("{\"password\":\"******\",\"items\":[{\"password\":\"******\"}]}", document.toString(), true);
+    }
+
+    @Test
+    public void maskAllTest() {
+        // given
+        JsonMaskImpl jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .batchChunkSize(16)
+                .build();
+        List<String> inputs = IntStream.range(0, 500)
+                .mapToObj(i -> "{\"id\":" + i + ",\"password\":\"" + i + "\"}")
+                .collect(Collectors.toList());
+        List<String> expected = IntStream.range(0, 500)
+                .mapToObj(i -> "{\"id\":" + i + ",\"password\":\"******\"}")
+                .collect(Collectors.toList());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            //when
+            List<String> results = jsonMask.maskAll(inputs);
+            List<String> executorResults = jsonMask.maskAll(inputs, executor);
+            List<String> invalid = new ArrayList<>(inputs);
+            invalid.set(250, "{\"password\":");
+            //then
+            Assertions.assertEquals(expected, results);
+            Assertions.assertEquals(expected, executorResults);
+            Assertions.assertThrows(InvalidJsonException.class, () -> jsonMask.maskAll(invalid, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void cacheTest() {
+        // given
+        JsonMaskImpl jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .cache(2, 1024 * 1024)
+                .build();
+        String first = "{\"id\":1,\"password\":\"Qwerty123\"}";
+        String second = "{\"id\":2,\"password\":\"Qwerty123\"}";
+        String third = "{\"id\":3,\"password\":\"Qwerty123\"}";
+
+        //when
+        String masked = jsonMask.mask(first);
+        List<String> results = jsonMask.maskAll(List.of(first, second, first, third, second));
+        //then
+        Assertions.assertEquals(masked, results.get(0));
+        Assertions.assertEquals(masked, results.get(2));
+        Assertions.assertNotEquals(masked, results.get(1));
+        Assertions.assertEquals(results.get(1), results.get(4));
+        CacheStats stats = jsonMask.getCacheStats().orElseThrow();
+        Assertions.assertEquals(2, stats.getHits());
+        Assertions.assertEquals(4, stats.getMisses());
+        Assertions.assertEquals(2, stats.getEvictions());
+        Assertions.assertEquals(2, stats.getEntries());
+        // only the results are kept, not the unmasked inputs
+        Assertions.assertEquals(2L * (results.get(1).length() + results.get(3).length()) + 2 * ResultCache.ENTRY_OVERHEAD,
+                stats.getBytes());
+        Assertions.assertTrue(JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").build()
+                .getCacheStats().isEmpty());
+    }
+
+    @Test
+    public void filterKeyTest() throws JSONException {
+        // given
+        String[] names = IntStream.range(0, 500).mapToObj(i -> "key" + i).toArray(String[]::new);
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder()
+                .filter(NUMBER_MASKER, "$.items[*].price")
+                .filterKey(SECRET_MASKER, "password", "token")
+                .filterKey(SECRET_MASKER, names)
+                .filterKey(REMOVE_MASKER, "documents");
+        String inputJson = "{\"token\":\"a\",\"Token\":\"b\",\"key499\":\"c\",\"documents\":[1],"
+                + "\"items\":[{\"price\":5,\"password\":\"d\",\"PASSWORD\":\"e\",\"card\":{\"token\":\"f\"}}]}";
+        String maskedJson = "{\"token\":\"******\",\"Token\":\"b\",\"key499\":\"******\","
+                + "\"items\":[{\"price\":0,\"password\":\"******\",\"PASSWORD\":\"e\",\"card\":{\"token\":\"******\"}}]}";
+        String ignoreCaseJson = "{\"token\":\"******\",\"Token\":\"******\",\"key499\":\"******\","
+                + "\"items\":[{\"price\":0,\"password\":\"******\",\"PASSWORD\":\"******\",\"card\":{\"token\":\"******\"}}]}";
+
+        //when
+        String result = builder.build().mask(inputJson);
+        String streamingResult = builder.buildStreaming().mask(inputJson);
+        String ignoreCaseResult = builder.ignoreKeyCase(true).build().mask(inputJson);
+        // a filter expression is evaluated by jsonpath, the names are matched afterwards
+        String legacyResult = builder.filter(SECRET_MASKER, "$.items[?(@.price > 100)].card").build().mask(inputJson);
+        //then
+        assertEquals(maskedJson, result, true);
+        assertEquals(maskedJson, streamingResult, true);
+        assertEquals(ignoreCaseJson, ignoreCaseResult, true);
+        assertEquals(ignoreCaseJson, legacyResult, true);
+        assertEquals("{\"id\":0,\"token\":\"******\"}", JsonMaskImpl.builder()
+                .masker(NUMBER_MASKER)
+                .filterKey(NUMBER_MASKER.getName(), "id")
+                .filterKey(SECRET_MASKER, "token")
+                .build().mask("{\"id\":1,\"token\":\"a\"}"), true);
+    }
+
+    @Test
+    public void bytecodeTest() throws JSONException {
+        // given
+        Masker phoneMasker = Masker.builder().name("phone-masker").mapFunction(maskMiddleCharactersMaskers(2, 9)).build();
+        String inputJson = "{\"password\":\"Qwerty123\",\"phone\":\"+71234567890\",\"birthDate\":\"1990-05-01\","
+                + "\"items\":[{\"type\":\"card\",\"price\":5,\"token\":\"a\"},{\"price\":7,\"tags\":[\"x\",\"y\"]}],"
+                + "\"nested\":{\"items\":[{\"price\":1}],\"token\":{\"value\":\"b\"}}}";
+        Map<String, Integer> generatedHits = new TreeMap<>();
+        Map<String, Integer> interpretedHits = new TreeMap<>();
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(NUMBER_MASKER, "$..price")
+                .filter(REMOVE_MASKER, "$.items[*].type")
+                .filter(ISO_LOCAL_DATE_MASKER, "$.birthDate")
+                .filter(phoneMasker, "$.phone")
+                .filter(SECRET_MASKER, "$.items[1].tags[0]")
+                .filterKey(SECRET_MASKER, "token");
+
+        //when
+        JsonMaskImpl generated = builder.bytecode(true)
+                .listener(masker -> generatedHits.merge(masker.getName(), 1, Integer::sum))
+                .build();
+        JsonMaskImpl interpreted = builder.bytecode(false)
+                .listener(masker -> interpretedHits.merge(masker.getName(), 1, Integer::sum))
+                .build();
+        String result = generated.mask(inputJson);
+        String expected = interpreted.mask(inputJson);
+        //then
+        assertEquals(expected, result, true);
+        Assertions.assertEquals(interpretedHits, generatedHits);
+        Assertions.assertEquals(1, generated.generatedTraversals());
+        Assertions.assertEquals(0, interpreted.generatedTraversals());
+        Assertions.assertEquals(0, builder.bytecode(true).ignoreKeyCase(true).build().generatedTraversals());
+        Assertions.assertEquals(0, JsonMaskImpl.builder().bytecode(true)
+                .filterKey(SECRET_MASKER, IntStream.range(0, 500).mapToObj(i -> "key" + i).toArray(String[]::new))
+                .build().generatedTraversals());
+        Assertions.assertEquals(0, JsonMaskImpl.builder().bytecode(true).objectMapper(new ObjectMapper())
+                .filter(SECRET_MASKER, "$..password").build().generatedTraversals());
+        Map<String, Object> document = new LinkedHashMap<>(Map.of("password", "a"));
+        Assertions.assertEquals(Map.of("password", "******"), JsonMaskImpl.builder().bytecode(true)
+                .filter(SECRET_MASKER, "$..password").build().mask(document));
+    }
+
+    @Test
+    public void invalidJsonPathTest() {
+        // paths evaluated by jsonpath are compiled when the mask is built, not on the first document
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder().filter(SECRET_MASKER, "$.items[?(@.price >");
+        Assertions.assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    @Test
+    public void nullInputTest() {
+        // the prefilter must not turn a null input into a NullPointerException
+        JsonMaskImpl jsonMask = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").build();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> jsonMask.mask((String) null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> jsonMask.mask((byte[]) null));
+        JsonMask streaming = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").buildStreaming();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> streaming.mask((String) null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> streaming.mask((byte[]) null));
+    }
 }
@@ -0,0 +1,78 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.InvalidJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static com.butreik.dmask.core.Maskers.NUMBER_MASKER;
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyPrefilterTest {
+
+    @Test
+    public void mayMatchTest() {
+        KeyPrefilter prefilter = KeyPrefilter.of(Set.of("password", "номер"));
+
+        assertTrue(prefilter.mayMatch("{\"user\":{\"password\":\"x\"}}"));
+        assertTrue(prefilter.mayMatch("{\"номер\":1}"));
+        assertTrue(prefilter.mayMatch("{\"номер\":1}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(prefilter.mayMatch("{\"pass\\u0077ord\":\"x\"}"));
+        assertFalse(prefilter.mayMatch("{\"passwords\":\"x\",\"login\":\"password1\",\"emoji\":\"😀\"}"));
+        assertFalse(prefilter.mayMatch("{\"номера\":1}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(prefilter.mayMatch("{\"text\":\"line\\nline\"}"));
+    }
+
+    @Test
+    public void permissiveNamesTest() {
+        KeyPrefilter prefilter = KeyPrefilter.of(Set.of("password"));
+
+        assertTrue(prefilter.mayMatch("{password:\"x\"}"));
+        assertTrue(prefilter.mayMatch("{ password : \"x\"}"));
+        assertTrue(prefilter.mayMatch("{'password':'x'}"));
+        assertTrue(prefilter.mayMatch("{'password':'x'}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(prefilter.mayMatch("{passwords:\"x\"}"));
+
+        // the json-smart parser accepts unquoted and single-quoted property names, the streaming parser rejects them
+        String maskedJson = "{\"password\":\"******\"}";
+        JsonMask jsonMask = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").build();
+        JsonMask streamingMask = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").buildStreaming();
+        for (String input : List.of("{password:\"x\"}", "{'password':'x'}")) {
+            assertEquals(maskedJson, jsonMask.mask(input));
+            assertThrows(InvalidJsonException.class, () -> streamingMask.mask(input));
+            assertEquals(maskedJson, new String(jsonMask.mask(input.getBytes(StandardCharsets.UTF_8)),
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void requiredNamesTest() {
+        assertTrue(KeyPrefilter.of(List.of(
+                Filter.builder().masker(SECRET_MASKER).jsonPath("$..password").build(),
+                Filter.builder().masker(NUMBER_MASKER).jsonPath("$.items[*]['price','amount']").build()
+        )).orElseThrow().mayMatch("{\"items\":[{\"amount\":1}]}"));
+        assertFalse(KeyPrefilter.of(List.of(
+                Filter.builder().masker(NUMBER_MASKER).jsonPath("$[*]").build()
+        )).isPresent());
+        assertFalse(KeyPrefilter.of(List.of(
+                Filter.builder().masker(NUMBER_MASKER).jsonPath("$.items[?(@.price)]").build()
+        )).isPresent());
+    }
+
+    @Test
+    public void inputReturnedByReferenceTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").build();
+        String input = "{ \"login\" : \"user\" }";
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+
+        assertSame(input, jsonMask.mask(input));
+        assertSame(bytes, jsonMask.mask(bytes));
+    }
+}
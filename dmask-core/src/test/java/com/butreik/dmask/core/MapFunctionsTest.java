@@ -2,7 +2,16 @@ package com.butreik.dmask.core;
 
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MapFunctionsTest {
 
@@ -26,4 +35,52 @@ public class MapFunctionsTest {
         assertEquals("testStr***", MapFunctions.maskMiddleCharactersMaskers(7, 15).map("testString"));
         assertEquals("testString", MapFunctions.maskMiddleCharactersMaskers(10, 15).map("testString"));
     }
+
+    @Test
+    public void unchangedInputTest() {
+        String masked = "S*****";
+        String longValue = "x".repeat(MaskedStrings.SCRATCH_SIZE * 2);
+        assertSame(masked, MapFunctions.maskExceptFirstCharacter().map(masked));
+        assertSame(masked, MapFunctions.maskMiddleCharactersMaskers(6, 9).map(masked));
+        assertSame("@domain.com", MapFunctions.maskEmail().map("@domain.com"));
+        assertEquals(15, MapFunctions.maskEmail().map(15));
+        assertEquals("x" + "*".repeat(longValue.length() - 1), MapFunctions.maskExceptFirstCharacter().map(longValue));
+    }
+
+    @Test
+    public void tokenizeTest() throws Exception {
+        byte[] key = "secret-key".getBytes(StandardCharsets.UTF_8);
+        MapFunction tokenize = MapFunctions.tokenize(key);
+        MapFunction notMemoized = MapFunctions.tokenize(key, 32, 0);
+        String value = "customer-\u00e9\u20ac\ud83d\ude00";
+
+        Object token = tokenize.map(value);
+
+        assertEquals(MapFunctions.DEFAULT_TOKEN_LENGTH, ((String) token).length());
+        assertTrue(((String) token).chars().allMatch(Character::isLetterOrDigit));
+        assertEquals(token, tokenize.map(value));
+        assertEquals(token, MapFunctions.tokenize(key).map(value));
+        assertEquals(token, notMemoized.map(value).toString().substring(0, MapFunctions.DEFAULT_TOKEN_LENGTH));
+        assertNotEquals(token, tokenize.map("customer-2"));
+        assertNotEquals(token, MapFunctions.tokenize("other-key".getBytes(StandardCharsets.UTF_8)).map(value));
+        assertEquals(tokenize.map("42"), tokenize.map(42));
+        assertEquals(true, tokenize.map(true));
+        assertEquals(expectedToken(key, value, 32), notMemoized.map(value));
+        assertThrows(IllegalArgumentException.class, () -> MapFunctions.tokenize(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> MapFunctions.tokenize(key, 33, 0));
+    }
+
+    private static String expectedToken(byte[] key, String value, int length) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        BigInteger number = new BigInteger(1, mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        String alphabet = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            BigInteger[] quotientAndRemainder = number.divideAndRemainder(BigInteger.valueOf(62));
+            token.append(alphabet.charAt(quotientAndRemainder[1].intValue()));
+            number = quotientAndRemainder[0];
+        }
+        return token.toString();
+    }
 }
@@ -0,0 +1,147 @@
+package com.butreik.dmask.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The MaskLimitsTest class contains test methods that test the limits of the JsonMaskImpl class.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskLimitsTest {
+
+    private static final String INPUT = "{\"password\": \"Qwerty123\", \"items\": [1, {\"a\": [true, null]}, \"x\"]}";
+
+    @Test
+    public void withinLimitsTest() {
+        JsonMask jsonMask = jsonMask(MaskLimits.builder()
+                .maxInputLength(INPUT.length())
+                .maxDepth(4)
+                .maxNodes(9)
+                .timeBudget(Duration.ofMinutes(1))
+                .build());
+
+        assertEquals("{\"password\":\"******\",\"items\":[1,{\"a\":[true,null]},\"x\"]}", jsonMask.mask(INPUT));
+    }
+
+    @Test
+    public void failTest() {
+        assertThrows(MaskLimitExceededException.class,
+                () -> jsonMask(MaskLimits.builder().maxInputLength(INPUT.length() - 1).build()).mask(INPUT));
+        assertThrows(MaskLimitExceededException.class,
+                () -> jsonMask(MaskLimits.builder().maxDepth(3).build()).mask(INPUT));
+        assertThrows(MaskLimitExceededException.class,
+                () -> jsonMask(MaskLimits.builder().maxNodes(8).build()).mask(INPUT.getBytes(StandardCharsets.UTF_8)));
+        String deep = "[".repeat(100_000) + "]".repeat(100_000);
+        assertThrows(MaskLimitExceededException.class,
+                () -> jsonMask(MaskLimits.builder().maxDepth(64).build()).mask("{\"password\": " + deep + "}"));
+    }
+
+    @Test
+    public void timeBudgetTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(input -> {
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return input;
+                }, "$..password")
+                .filter(SECRET_MASKER, "$..items[?(@.a)].a")
+                .limits(MaskLimits.builder().timeBudget(Duration.ofMillis(1)).build())
+                .build();
+
+        assertThrows(MaskLimitExceededException.class, () -> jsonMask.mask(INPUT));
+    }
+
+    @Test
+    public void traversalTimeBudgetTest() {
+        String input = "[" + "{\"password\": 1},".repeat(5000) + "{}]";
+
+        for (boolean bytecode : new boolean[]{false, true}) {
+            AtomicInteger calls = new AtomicInteger();
+            JsonMask jsonMask = JsonMaskImpl.builder()
+                    .filter(value -> {
+                        if (calls.getAndIncrement() == 0) {
+                            sleep(300);
+                        }
+                        return value;
+                    }, "$..password")
+                    .limits(MaskLimits.builder().timeBudget(Duration.ofMillis(200)).build())
+                    .bytecode(bytecode)
+                    .build();
+
+            assertThrows(MaskLimitExceededException.class, () -> jsonMask.mask(input));
+            // the deadline is checked while the document is traversed, not only once it is masked
+            assertTrue(calls.get() > 0 && calls.get() < 5000, () -> calls.get() + " values masked");
+        }
+        assertEquals(Long.MAX_VALUE,
+                MaskLimits.builder().timeBudget(Duration.ofSeconds(Long.MAX_VALUE)).build().getTimeBudgetNanos());
+    }
+
+    @Test
+    public void redactTest() throws IOException {
+        JsonMask jsonMask = jsonMask(MaskLimits.builder()
+                .maxNodes(8)
+                .fallback(MaskLimits.Fallback.REDACT)
+                .build());
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        StringWriter writer = new StringWriter();
+
+        jsonMask.mask(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8)), stream);
+        jsonMask.mask(new StringReader(INPUT), writer);
+
+        assertEquals(MaskLimits.DEFAULT_PLACEHOLDER, jsonMask.mask(INPUT));
+        assertArrayEquals(MaskLimits.DEFAULT_PLACEHOLDER.getBytes(StandardCharsets.UTF_8),
+                jsonMask.mask(INPUT.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(List.of(MaskLimits.DEFAULT_PLACEHOLDER, "{\"password\":\"******\"}"),
+                jsonMask.maskAll(List.of(INPUT, "{\"password\": 1}")));
+        assertEquals(MaskLimits.DEFAULT_PLACEHOLDER, stream.toString(StandardCharsets.UTF_8));
+        assertEquals(MaskLimits.DEFAULT_PLACEHOLDER, writer.toString());
+    }
+
+    @Test
+    public void streamLengthTest() throws IOException {
+        JsonMask jsonMask = jsonMask(MaskLimits.builder()
+                .maxInputLength(INPUT.length() - 1)
+                .fallback(MaskLimits.Fallback.REDACT)
+                .placeholder("{}")
+                .build());
+        StringWriter writer = new StringWriter();
+
+        jsonMask.mask(new StringReader(INPUT + " ".repeat(100_000)), writer);
+
+        assertEquals("{}", writer.toString());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static JsonMask jsonMask(MaskLimits limits) {
+        return JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .limits(limits)
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.butreik.dmask.core;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.butreik.dmask.core.Maskers.EMAIL_MASKER;
+import static com.butreik.dmask.core.Maskers.ISO_LOCAL_DATE_MASKER;
+import static com.butreik.dmask.core.Maskers.NUMBER_MASKER;
+import static com.butreik.dmask.core.Maskers.REMOVE_MASKER;
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
+
+/**
+ * Tests of masking annotated properties with {@link MaskModule}.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskModuleTest {
+
+    @Test
+    public void maskModuleTest() throws Exception {
+        // given
+        Map<String, Integer> hits = new TreeMap<>();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(JsonMaskImpl.builder()
+                .masker(SECRET_MASKER)
+                .masker(EMAIL_MASKER)
+                .masker(NUMBER_MASKER)
+                .masker(REMOVE_MASKER)
+                .masker(ISO_LOCAL_DATE_MASKER)
+                .listener(masker -> hits.merge(masker.getName(), 1, Integer::sum))
+                .buildModule());
+        User user = new User("Ivan", "ivan@example.com", "Qwerty123", 42, LocalDate.of(1990, 5, 1),
+                List.of("a", "b"), null);
+
+        //when
+        String json = objectMapper.writeValueAsString(List.of(user, user));
+        //then
+        String expected = "{\"name\":\"Ivan\",\"email\":\"****@example.com\",\"password\":\"******\",\"pin\":0,"
+                + "\"birthDate\":\"2000-01-01\",\"tags\":\"******\"}";
+        assertEquals("[" + expected + "," + expected + "]", json, true);
+        Assertions.assertEquals(Map.of("email-masker", 2, "iso-local-date-masker", 2, "number-masker", 2,
+                "remove-masker", 2, "secret-masker", 4), hits);
+    }
+
+    @Test
+    public void lazyMaskModuleTest() throws Exception {
+        // given
+        AtomicInteger supplied = new AtomicInteger();
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new MaskModule(() -> {
+            supplied.incrementAndGet();
+            return JsonMaskImpl.builder().masker(SECRET_MASKER).masker(Masker.builder().name("email-masker")
+                    .mapFunction(input -> "hidden").build());
+        }));
+        Secret secret = new Secret();
+        secret.token = "abc";
+
+        //when
+        int suppliedBefore = supplied.get();
+        String secretJson = objectMapper.writeValueAsString(secret);
+        //then
+        Assertions.assertEquals(0, suppliedBefore);
+        Assertions.assertEquals(1, supplied.get());
+        assertEquals("{\"token\":\"******\"}", secretJson, true);
+        Assertions.assertThrows(JsonMappingException.class, () -> objectMapper.writeValueAsString(new Unknown()));
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class User {
+        private final String name;
+        @Mask(masker = "email-masker")
+        private final String email;
+        private final String password;
+        @Mask(masker = "number-masker")
+        private final int pin;
+        @Mask(masker = "iso-local-date-masker")
+        private final LocalDate birthDate;
+        @Mask(masker = "secret-masker")
+        private final List<String> tags;
+        @Mask(masker = "secret-masker")
+        private final String comment;
+
+        public User(String name, String email, String password, int pin, LocalDate birthDate, List<String> tags,
+                    String comment) {
+            this.name = name;
+            this.email = email;
+            this.password = password;
+            this.pin = pin;
+            this.birthDate = birthDate;
+            this.tags = tags;
+            this.comment = comment;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        @Mask(masker = "secret-masker")
+        public String getPassword() {
+            return password;
+        }
+
+        public int getPin() {
+            return pin;
+        }
+
+        public LocalDate getBirthDate() {
+            return birthDate;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public String getComment() {
+            return comment;
+        }
+
+        @Mask(masker = "remove-masker")
+        public String getInternalId() {
+            return "id-" + pin;
+        }
+    }
+
+    public static class Secret {
+        @Mask(masker = "secret-masker")
+        public String token;
+    }
+
+    public static class Unknown {
+        @Mask(masker = "unknown-masker")
+        public String value = "a";
+    }
+}
@@ -0,0 +1,60 @@
+package com.butreik.dmask.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The MaskersTest class contains test methods that test the predefined maskers of the Maskers interface.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskersTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    /**
+     * An upper bound of the size of a string with the specified number of Latin-1 characters,
+     * including the header of the string object and its array.
+     */
+    private static long stringSize(int length) {
+        return 64 + length;
+    }
+
+    @Test
+    public void allocationTest() throws IllegalAccessException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        List<Masker> maskers = new ArrayList<>();
+        for (Field field : Maskers.class.getFields()) {
+            if (field.getType() == Masker.class) {
+                maskers.add((Masker) field.get(null));
+            }
+        }
+        maskers.add(Maskers.tokenizeMasker("secret-key".getBytes(StandardCharsets.UTF_8)));
+        for (Masker masker : maskers) {
+            String input = masker == Maskers.EMAIL_MASKER ? "prefix@domain.com" : "Qwerty123";
+            Object result = masker.getMapFunction().map(input);
+            // constant replacements are not allocated at all
+            long budget = result != masker.getMapFunction().map(input) ? stringSize(((String) result).length()) : 0;
+
+            for (int i = 0; i < ITERATIONS; i++) {
+                masker.getMapFunction().map(input);
+            }
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < ITERATIONS; i++) {
+                masker.getMapFunction().map(input);
+            }
+            long allocated = (threads.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+
+            assertTrue(allocated <= budget, masker.getName() + " allocates " + allocated + " bytes per value, "
+                                           + "the budget is " + budget);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.butreik.dmask.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.butreik.dmask.core.Maskers.REMOVE_MASKER;
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The ReloadableJsonMaskTest class contains test methods that test the functionality of the ReloadableJsonMask class.
+ *
+ * @author Vladimir Rudnev
+ */
+public class ReloadableJsonMaskTest {
+
+    private static final String INPUT = "{\"password\":\"Qwerty123\",\"token\":\"abc\"}";
+    private static final String SECRET = "{\"password\":\"******\",\"token\":\"abc\"}";
+    private static final String REMOVED = "{\"password\":\"Qwerty123\"}";
+
+    private static final JsonMask SECRET_MASK = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").build();
+    private static final JsonMask REMOVE_MASK = JsonMaskImpl.builder().filter(REMOVE_MASKER, "$..token").build();
+
+    @Test
+    public void swapTest() {
+        ReloadableJsonMask jsonMask = new ReloadableJsonMask(SECRET_MASK);
+        assertEquals(SECRET, jsonMask.mask(INPUT));
+
+        assertSame(SECRET_MASK, jsonMask.set(REMOVE_MASK));
+
+        assertSame(REMOVE_MASK, jsonMask.get());
+        assertEquals(REMOVED, jsonMask.mask(INPUT));
+    }
+
+    @Test
+    public void concurrentSwapTest() throws Exception {
+        ReloadableJsonMask jsonMask = new ReloadableJsonMask(SECRET_MASK);
+        Set<String> results = ConcurrentHashMap.newKeySet();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] readers = new Future<?>[4];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = executor.submit(() -> {
+                    while (running.get()) {
+                        results.add(jsonMask.mask(INPUT));
+                    }
+                });
+            }
+            for (int i = 0; i < 1000; i++) {
+                jsonMask.set(i % 2 == 0 ? REMOVE_MASK : SECRET_MASK);
+            }
+            running.set(false);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // every call is completed by one of the masks, never by a mix of both
+        assertTrue(Set.of(SECRET, REMOVED).containsAll(results), () -> "Unexpected results " + results);
+    }
+}
@@ -0,0 +1,265 @@
+package com.butreik.dmask.core;
+
+import com.jayway.jsonpath.InvalidJsonException;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.butreik.dmask.core.MapFunctions.maskMiddleCharactersMaskers;
+import static com.butreik.dmask.core.Maskers.EMAIL_MASKER;
+import static com.butreik.dmask.core.Maskers.EXCEPT_FIRST_CHARACTER_MASKER;
+import static com.butreik.dmask.core.Maskers.ISO_LOCAL_DATE_MASKER;
+import static com.butreik.dmask.core.Maskers.NUMBER_MASKER;
+import static com.butreik.dmask.core.Maskers.REMOVE_MASKER;
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The StreamingJsonMaskTest class contains test methods that test the functionality of the StreamingJsonMask class.
+ *
+ * @author Vladimir Rudnev
+ */
+public class StreamingJsonMaskTest {
+
+    private static final String INPUT_JSON = "{\n" +
+                                             "    \"id\":15,\n" +
+                                             "    \"fullName\":\"Julius Caesar\",\n" +
+                                             "    \"phone\":\"+123456789123\",\n" +
+                                             "    \"email\":\"prefix@domain.com\",\n" +
+                                             "    \"amount\":3.14,\n" +
+                                             "    \"birthday\": \"1990-10-10\",\n" +
+                                             "    \"login\": \"userlogin\",\n" +
+                                             "    \"password\":\"Qwerty123\",\n" +
+                                             "    \"anyField\":\"value\",\n" +
+                                             "    \"documents\":[\n" +
+                                             "        {\n" +
+                                             "            \"id\":123\n" +
+                                             "        },\n" +
+                                             "        {\n" +
+                                             "            \"id\":234\n" +
+                                             "        }\n" +
+                                             "    ]\n" +
+                                             "}";
+
+    private static JsonMaskImpl.Builder builder() {
+        return JsonMaskImpl.builder()
+                .filter(input -> "Full Name", "$..fullName")
+                .masker(Masker.builder()
+                        .name("phone-masker")
+                        .mapFunction(maskMiddleCharactersMaskers(2, 9))
+                        .build())
+                .filter("phone-masker", "$..phone")
+                .filter(SECRET_MASKER, "$..password")
+                .filter(NUMBER_MASKER, filtersBuilder -> filtersBuilder
+                        .jsonPath("$..id")
+                        .jsonPath("$..amount"))
+                .filter(EMAIL_MASKER, "$..email")
+                .filter(EXCEPT_FIRST_CHARACTER_MASKER, "$..login")
+                .filter(REMOVE_MASKER, "$..documents")
+                .filter(ISO_LOCAL_DATE_MASKER, "$..birthday");
+    }
+
+    @Test
+    public void maskTest() throws JSONException {
+        String maskedJson = "{\n" +
+                            "    \"id\":0,\n" +
+                            "    \"fullName\":\"Full Name\",\n" +
+                            "    \"phone\":\"+1*******9123\",\n" +
+                            "    \"email\":\"******@domain.com\",\n" +
+                            "    \"amount\":0,\n" +
+                            "    \"birthday\": \"2000-01-01\",\n" +
+                            "    \"login\": \"u********\",\n" +
+                            "    \"password\":\"******\",\n" +
+                            "    \"anyField\":\"value\"\n" +
+                            "}";
+
+        String result = builder().buildStreaming().mask(INPUT_JSON);
+
+        JSONAssert.assertEquals(maskedJson, result, true);
+    }
+
+    @Test
+    public void sameResultAsJsonMaskImplTest() throws JSONException {
+        JsonMask streaming = builder().buildStreaming();
+        JsonMask dom = builder().build();
+
+        JSONAssert.assertEquals(dom.mask(INPUT_JSON), streaming.mask(INPUT_JSON), true);
+    }
+
+    @Test
+    public void preservesUntouchedTextTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$.user.password")
+                .filter(REMOVE_MASKER, "$.items[1]")
+                .filter(NUMBER_MASKER, "$.items[*].price")
+                .filter(SECRET_MASKER, "$['na\\\"me']")
+                .buildStreaming();
+
+        String input = "{ \"user\" : { \"password\" : \"x\\\"y\", \"login\":\"a\\u0062c\" },\n" +
+                       "  \"items\": [ {\"price\": 1.5e3}, {\"price\": 2}, {\"price\": -3, \"tags\": [true, null]} ],\n" +
+                       "  \"na\\\"me\": [1, {\"a\": \"ж\"}] }";
+        String expected = "{ \"user\" : { \"password\" : \"******\", \"login\":\"a\\u0062c\" },\n" +
+                          "  \"items\": [ {\"price\": 0}, {\"price\": 0, \"tags\": [true, null]} ],\n" +
+                          "  \"na\\\"me\": \"******\" }";
+
+        assertEquals(expected, jsonMask.mask(input));
+    }
+
+    @Test
+    public void unsupportedJsonPathTest() {
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..items[?(@.price > 10)]");
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, builder::buildStreaming);
+        assertEquals("JSON path $..items[?(@.price > 10)] is not supported", exception.getMessage());
+    }
+
+    @Test
+    public void nestedFiltersOrderTest() {
+        Masker outer = Masker.builder().name("outer").order(1).mapFunction(value -> "hidden").build();
+        Masker inner = Masker.builder().name("inner").order(2).mapFunction(value -> "x").build();
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder().filter(outer, "$.a").filter(inner, "$.a.b");
+
+        IllegalArgumentException streaming = assertThrows(IllegalArgumentException.class, builder::buildStreaming);
+        IllegalArgumentException automaton = assertThrows(IllegalArgumentException.class, builder::buildAutomaton);
+        String message = "JSON path $.a has a lower masker order than $.a.b matching inside it,"
+                + " they cannot be applied by one traversal";
+        assertEquals(message, streaming.getMessage());
+        assertEquals(message, automaton.getMessage());
+        assertEquals("{\"a\":\"hidden\"}", builder.build().mask("{\"a\":{\"b\":1}}"));
+    }
+
+    @Test
+    public void invalidJsonTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder().filter(SECRET_MASKER, "$..password").buildStreaming();
+
+        assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"password\": \"secret\""));
+        assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"password\": [1, 2}"));
+        assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"password\": 1} 2"));
+    }
+
+    @Test
+    public void invalidCopiedJsonTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder().filter(SECRET_MASKER, "$.password").buildStreaming();
+
+        for (String value : List.of("tru", "nul", "01", "1.", "-", "1e", ".5", "+1", "NaN", "[1 2]", "[1,]", "[,1]",
+                "{\"b\" 1}", "{b: 1}", "{\"b\": 1,}", "[{\"b\": [1}]")) {
+            assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"a\": " + value + ", \"password\": 1}"), value);
+            assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"password\": " + value + "}"), value);
+        }
+        String valid = "{\"a\": [true, false, null, 0, -1.5e+3, 2E-2, {\"b\": {}}, []], \"password\": 1}";
+        assertEquals("{\"a\": [true, false, null, 0, -1.5e+3, 2E-2, {\"b\": {}}, []], \"password\": \"******\"}",
+                jsonMask.mask(valid));
+    }
+
+    @Test
+    public void invalidStringsTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder().filter(SECRET_MASKER, "$.password").buildStreaming();
+
+        for (String value : List.of("\"x\\qy\"", "\"\\u12\"", "\"\\u12zz\"", "\"\\u+12a\"", "\"a\tb\"", "\"a\u0000b\"")) {
+            assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"a\": " + value + ", \"password\": 1}"), value);
+            assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{" + value + ": 1, \"password\": 1}"), value);
+            assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"password\": " + value + "}"), value);
+            assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"password\": {\"a\": " + value + "}}"), value);
+        }
+        String valid = "{\"a\": \"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00E9\", \"password\": \"\\u00e9\"}";
+        assertEquals("{\"a\": \"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00E9\", \"password\": \"******\"}", jsonMask.mask(valid));
+    }
+
+    @Test
+    public void maskBytesAndStreamsTest() throws IOException {
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(EXCEPT_FIRST_CHARACTER_MASKER, "$..login")
+                .buildStreaming();
+
+        String input = "{\"name\": \"Юлий 😀\", \"password\": \"Qwerty123\", \"items\": [{\"login\": \"Цезарь\"}]}";
+        String expected = "{\"name\": \"Юлий 😀\", \"password\": \"******\", \"items\": [{\"login\": \"Ц*****\"}]}";
+
+        byte[] bytes = jsonMask.mask(input.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        jsonMask.mask(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), stream);
+        StringWriter writer = new StringWriter();
+        jsonMask.mask(new StringReader(input), writer);
+
+        assertEquals(expected, new String(bytes, StandardCharsets.UTF_8));
+        assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+        assertEquals(expected, writer.toString());
+    }
+
+    @Test
+    public void maskMapInPlaceTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$..password")
+                .filter(REMOVE_MASKER, "$.items[0]")
+                .buildStreaming();
+
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("password", "Qwerty123");
+        document.put("items", new ArrayList<>(List.of(1, Map.of("id", 2))));
+
+        Map<String, Object> result = jsonMask.mask(document);
+
+        assertSame(document, result);
+        assertEquals(Map.of("password", "******", "items", List.of(Map.of("id", 2))), document);
+    }
+
+    @Test
+    public void maskElementWiseTest() throws IOException {
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$.data.items[*].cards[?(@.type == 'visa')].number")
+                .filter(REMOVE_MASKER, "$.data.items[*].note")
+                .filter(EXCEPT_FIRST_CHARACTER_MASKER, "$..login")
+                .filter(SECRET_MASKER, "$.meta.token")
+                .buildElementWise("$.data.items");
+
+        String input = "{\"meta\": {\"token\": \"t\", \"login\": \"admin\"}, \"data\": {\"items\": [" +
+                       "{\"login\": \"Цезарь\", \"note\": \"x\", \"cards\": [{\"type\": \"visa\", \"number\": \"4111\"}," +
+                       " {\"type\": \"amex\", \"number\": \"3782\"}]}, {\"id\": 2} ]}}";
+        String expected = "{\"meta\": {\"token\": \"******\", \"login\": \"a****\"}, \"data\": {\"items\": [" +
+                          "{\"login\":\"Ц*****\",\"cards\":[{\"type\":\"visa\",\"number\":\"******\"}," +
+                          "{\"type\":\"amex\",\"number\":\"3782\"}]}, {\"id\":2} ]}}";
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        jsonMask.mask(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), stream);
+
+        assertEquals(expected, jsonMask.mask(input));
+        assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void maskTopLevelArrayElementWiseTest() {
+        JsonMask jsonMask = JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$[*].card.number")
+                .buildElementWise("$");
+
+        assertEquals("[{\"card\":{\"number\":\"******\"}},{\"id\":1}]",
+                jsonMask.mask("[{\"card\": {\"number\": \"4111\"}},{\"id\":1}]"));
+        assertThrows(InvalidJsonException.class, () -> jsonMask.mask("[{\"card\": {\"number\": }}]"));
+    }
+
+    @Test
+    public void unsupportedElementWiseFilterTest() {
+        IllegalArgumentException element = assertThrows(IllegalArgumentException.class, () -> JsonMaskImpl.builder()
+                .filter(REMOVE_MASKER, "$.items[*]")
+                .buildElementWise("$.items"));
+        IllegalArgumentException index = assertThrows(IllegalArgumentException.class, () -> JsonMaskImpl.builder()
+                .filter(SECRET_MASKER, "$.items[0].password")
+                .buildElementWise("$.items"));
+
+        assertEquals("JSON path $.items[*] must select values inside the elements of $.items", element.getMessage());
+        assertEquals("JSON path $.items[0].password must select the elements of $.items with [*]", index.getMessage());
+    }
+}
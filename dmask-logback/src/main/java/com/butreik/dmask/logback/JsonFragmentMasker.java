@@ -0,0 +1,174 @@
+package com.butreik.dmask.logback;
+
+import com.butreik.dmask.core.JsonMask;
+import com.jayway.jsonpath.InvalidJsonException;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * Masks the JSON objects and arrays embedded in free text, such as log messages.
+ * <p>
+ * The text is scanned for balanced brackets, skipping string literals. A fragment is a candidate only if it
+ * starts like JSON: an object opening with a property name or closing immediately, or an array of objects or arrays.
+ * Text without any candidate, including every message without brackets, is returned as is without copying.
+ * <p>
+ * The cost of masking is bounded by the number of fragments masked or rescanned per text and by their length.
+ * Candidates longer than the limit, or beyond the number of fragments, are replaced with {@link #OMITTED}
+ * instead of being masked, so they cannot leak unmasked data. Candidates that are not valid JSON are left as is.
+ *
+ * @author Vladimir Rudnev
+ */
+public class JsonFragmentMasker {
+
+    /**
+     * The text replacing JSON fragments that are not masked because of the limits.
+     */
+    public static final String OMITTED = "[json omitted]";
+
+    /**
+     * The default maximum length of a masked fragment.
+     */
+    public static final int DEFAULT_MAX_FRAGMENT_LENGTH = 64 * 1024;
+
+    /**
+     * The default maximum number of fragments masked per text.
+     */
+    public static final int DEFAULT_MAX_FRAGMENTS = 8;
+
+    private final JsonMask jsonMask;
+    private final int maxFragmentLength;
+    private final int maxFragments;
+
+    /**
+     * Constructs a new {@code JsonFragmentMasker} with the default limits.
+     *
+     * @param jsonMask the JSON mask used to mask fragments.
+     */
+    public JsonFragmentMasker(JsonMask jsonMask) {
+        this(jsonMask, DEFAULT_MAX_FRAGMENT_LENGTH, DEFAULT_MAX_FRAGMENTS);
+    }
+
+    /**
+     * Constructs a new {@code JsonFragmentMasker} with the specified limits.
+     *
+     * @param jsonMask          the JSON mask used to mask fragments.
+     * @param maxFragmentLength the maximum length of a masked fragment.
+     * @param maxFragments      the maximum number of fragments masked per text.
+     * @throws IllegalArgumentException if the JSON mask is null or a limit is not positive.
+     */
+    public JsonFragmentMasker(JsonMask jsonMask, int maxFragmentLength, int maxFragments) {
+        assertTrue(maxFragmentLength > 0, () -> "Maximum fragment length must be positive");
+        assertTrue(maxFragments > 0, () -> "Maximum number of fragments must be positive");
+        this.jsonMask = assertNotNull(jsonMask);
+        this.maxFragmentLength = maxFragmentLength;
+        this.maxFragments = maxFragments;
+    }
+
+    /**
+     * Masks the JSON fragments of the specified text.
+     *
+     * @param text the text.
+     * @return the text with masked JSON fragments, or the same text if it has none.
+     */
+    public String mask(String text) {
+        if (text == null || text.indexOf('{') < 0 && text.indexOf('[') < 0) {
+            return text;
+        }
+        StringBuilder result = null;
+        int copied = 0;
+        int fragments = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if ((c != '{' && c != '[') || !startsLikeJson(text, i)) {
+                i++;
+                continue;
+            }
+            int end = end(text, i);
+            if (end < 0) {
+                // an unclosed bracket may still contain fragments, the number of rescans is limited as well
+                if (++fragments > maxFragments) {
+                    // the rest of the text may contain fragments that are not masked anymore
+                    if (result == null) {
+                        result = new StringBuilder(text.length());
+                    }
+                    result.append(text, copied, i).append(OMITTED);
+                    copied = text.length();
+                    break;
+                }
+                i++;
+                continue;
+            }
+            String replacement;
+            if (fragments >= maxFragments || end - i > maxFragmentLength) {
+                replacement = OMITTED;
+            } else {
+                fragments++;
+                replacement = maskFragment(text.substring(i, end));
+            }
+            if (replacement != null) {
+                if (result == null) {
+                    result = new StringBuilder(text.length());
+                }
+                result.append(text, copied, i).append(replacement);
+                copied = end;
+            }
+            i = end;
+        }
+        if (result == null) {
+            return text;
+        }
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    /**
+     * Masks a fragment, returning {@code null} if it is left as is.
+     */
+    private String maskFragment(String fragment) {
+        try {
+            String masked = jsonMask.mask(fragment);
+            return masked.equals(fragment) ? null : masked;
+        } catch (InvalidJsonException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the bracket at the specified index is followed by what a JSON object or array of containers
+     * starts with, so plain text in brackets is not parsed.
+     */
+    private static boolean startsLikeJson(String text, int start) {
+        int next = start + 1;
+        while (next < text.length() && Character.isWhitespace(text.charAt(next))) {
+            next++;
+        }
+        if (next == text.length()) {
+            return false;
+        }
+        char c = text.charAt(next);
+        return text.charAt(start) == '{' ? c == '"' || c == '}' : c == '{' || c == '[';
+    }
+
+    /**
+     * Returns the index after the bracket closing the one at the specified index, or {@code -1} if it is not closed.
+     */
+    private static int end(String text, int start) {
+        int depth = 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                for (i++; i < text.length() && text.charAt(i) != '"'; i++) {
+                    if (text.charAt(i) == '\\') {
+                        i++;
+                    }
+                }
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
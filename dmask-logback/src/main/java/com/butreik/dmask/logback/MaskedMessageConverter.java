@@ -0,0 +1,48 @@
+package com.butreik.dmask.logback;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.List;
+
+/**
+ * A conversion word masking the JSON fragments of the formatted message, used instead of {@code %msg}.
+ * It is registered in the logback configuration and accepts the classpath resource with filters
+ * in the {@code bmask.yaml} format, the maximum fragment length and the maximum number of fragments as options:
+ * <pre>
+ * &lt;conversionRule conversionWord="maskedMsg" converterClass="com.butreik.dmask.logback.MaskedMessageConverter"/&gt;
+ * &lt;pattern&gt;%d %-5level %logger - %maskedMsg{bmask.yaml, 65536, 8}%n&lt;/pattern&gt;
+ * </pre>
+ * Masking runs on the logging thread, use {@link MaskingAsyncAppender} to mask off it.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskedMessageConverter extends ClassicConverter {
+
+    private JsonFragmentMasker masker;
+
+    @Override
+    public void start() {
+        List<String> options = getOptionList();
+        String resource = option(options, 0, YamlJsonMaskLoader.DEFAULT_RESOURCE);
+        try {
+            masker = new JsonFragmentMasker(YamlJsonMaskLoader.loadResource(resource).build(),
+                    Integer.parseInt(option(options, 1, String.valueOf(JsonFragmentMasker.DEFAULT_MAX_FRAGMENT_LENGTH))),
+                    Integer.parseInt(option(options, 2, String.valueOf(JsonFragmentMasker.DEFAULT_MAX_FRAGMENTS))));
+        } catch (RuntimeException e) {
+            addError("Failed to configure JSON masking with " + resource, e);
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        // a converter that failed to start must not write unmasked messages
+        return masker != null ? masker.mask(event.getFormattedMessage()) : JsonFragmentMasker.OMITTED;
+    }
+
+    private static String option(List<String> options, int index, String defaultValue) {
+        return options != null && options.size() > index ? options.get(index).trim() : defaultValue;
+    }
+}
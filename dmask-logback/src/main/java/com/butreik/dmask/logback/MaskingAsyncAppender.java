@@ -0,0 +1,111 @@
+package com.butreik.dmask.logback;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+
+/**
+ * An {@link AsyncAppender} masking the JSON fragments of messages on its worker thread,
+ * so the logging thread only formats the message and enqueues the event. The attached appender receives events
+ * with masked messages and can use the plain {@code %msg} conversion word.
+ * <pre>
+ * &lt;appender name="ASYNC" class="com.butreik.dmask.logback.MaskingAsyncAppender"&gt;
+ *     &lt;resource&gt;bmask.yaml&lt;/resource&gt;
+ *     &lt;appender-ref ref="FILE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ * Queueing is configured as for {@link AsyncAppender}, note that events may be discarded when the queue is full.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskingAsyncAppender extends AsyncAppender {
+
+    private String resource = YamlJsonMaskLoader.DEFAULT_RESOURCE;
+    private int maxFragmentLength = JsonFragmentMasker.DEFAULT_MAX_FRAGMENT_LENGTH;
+    private int maxFragments = JsonFragmentMasker.DEFAULT_MAX_FRAGMENTS;
+    private volatile JsonFragmentMasker masker;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        try {
+            masker = new JsonFragmentMasker(YamlJsonMaskLoader.loadResource(resource).build(),
+                    maxFragmentLength, maxFragments);
+        } catch (RuntimeException e) {
+            addError("Failed to configure JSON masking with " + resource, e);
+            return;
+        }
+        super.start();
+    }
+
+    /**
+     * Attaches the appender receiving events with masked messages.
+     *
+     * @param newAppender the appender.
+     */
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        MaskingAppender appender = new MaskingAppender(newAppender);
+        appender.setContext(getContext());
+        appender.start();
+        super.addAppender(appender);
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * Sets the classpath resource with filters in the {@code bmask.yaml} format.
+     *
+     * @param resource the name of the classpath resource.
+     */
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    public int getMaxFragmentLength() {
+        return maxFragmentLength;
+    }
+
+    public void setMaxFragmentLength(int maxFragmentLength) {
+        this.maxFragmentLength = maxFragmentLength;
+    }
+
+    public int getMaxFragments() {
+        return maxFragments;
+    }
+
+    public void setMaxFragments(int maxFragments) {
+        this.maxFragments = maxFragments;
+    }
+
+    /**
+     * Masks the message of events on the worker thread and passes them to the attached appender.
+     */
+    private final class MaskingAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+        private final Appender<ILoggingEvent> delegate;
+
+        private MaskingAppender(Appender<ILoggingEvent> delegate) {
+            this.delegate = delegate;
+            setName(delegate.getName());
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            String message = event.getFormattedMessage();
+            String masked = masker.mask(message);
+            delegate.doAppend(masked == message ? event : new MaskedLoggingEvent(event, masked));
+        }
+
+        @Override
+        public void stop() {
+            delegate.stop();
+            super.stop();
+        }
+    }
+}
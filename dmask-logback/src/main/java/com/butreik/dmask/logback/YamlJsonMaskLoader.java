@@ -0,0 +1,110 @@
+package com.butreik.dmask.logback;
+
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.Maskers;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+
+/**
+ * Loads the filters of a {@link JsonMaskImpl} from a YAML file in the format of {@code bmask.yaml}
+ * used by {@code dmask-spring-boot-starter}:
+ * <pre>
+ * json-mask:
+ *   maskers:
+ *     secret-masker:
+ *       - $..password
+ *   keys:
+ *     secret-masker:
+ *       - token
+ *   ignore-key-case: true
+ * </pre>
+ * The predefined maskers of {@link Maskers} are registered, so they can be referenced by name.
+ * The {@code tokenize-masker} is registered as well if {@code json-mask.tokenize.key} is set.
+ *
+ * @author Vladimir Rudnev
+ */
+public final class YamlJsonMaskLoader {
+
+    /**
+     * The name of the classpath resource read by default.
+     */
+    public static final String DEFAULT_RESOURCE = "bmask.yaml";
+
+    private YamlJsonMaskLoader() {
+    }
+
+    /**
+     * Creates a builder with the filters of the specified classpath resource.
+     *
+     * @param resource the name of the classpath resource.
+     * @return a builder of {@link JsonMaskImpl} with the predefined maskers and the filters of the resource.
+     * @throws IllegalArgumentException if the resource does not exist or is not in the expected format.
+     */
+    public static JsonMaskImpl.Builder loadResource(String resource) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = YamlJsonMaskLoader.class.getClassLoader();
+        }
+        try (InputStream input = assertNotNull(classLoader.getResourceAsStream(resource),
+                () -> "Resource " + resource + " is not found")) {
+            return load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a builder with the filters of the specified YAML document.
+     *
+     * @param input the YAML document, which is not closed.
+     * @return a builder of {@link JsonMaskImpl} with the predefined maskers and the filters of the document.
+     * @throws IllegalArgumentException if the document is not in the expected format.
+     */
+    public static JsonMaskImpl.Builder load(InputStream input) {
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder();
+        Maskers.DEFAULT_MASKERS.forEach(builder::masker);
+        Object root = child(new Yaml().load(input), "json-mask");
+        Object tokenizeKey = child(child(root, "tokenize"), "key");
+        if (tokenizeKey != null) {
+            builder.masker(Maskers.tokenizeMasker(String.valueOf(tokenizeKey).getBytes(StandardCharsets.UTF_8)));
+        }
+        builder.ignoreKeyCase(Boolean.parseBoolean(String.valueOf(child(root, "ignore-key-case"))));
+        forEachValue(child(root, "keys"), "json-mask.keys must be a map of masker names to property names",
+                builder::filterKey);
+        forEachValue(child(root, "maskers"), "json-mask.maskers must be a map of masker names to JSON paths",
+                builder::filter);
+        return builder;
+    }
+
+    /**
+     * Passes every value of a map of masker names to a value or a list of values to the consumer.
+     */
+    private static void forEachValue(Object map, String message, BiConsumer<String, String> consumer) {
+        if (map == null) {
+            return;
+        }
+        if (!(map instanceof Map)) {
+            throw new IllegalArgumentException(message);
+        }
+        ((Map<?, ?>) map).forEach((maskerName, values) -> {
+            if (values instanceof List) {
+                ((List<?>) values).forEach(value -> consumer.accept(String.valueOf(maskerName), String.valueOf(value)));
+            } else if (values != null) {
+                consumer.accept(String.valueOf(maskerName), String.valueOf(values));
+            }
+        });
+    }
+
+    private static Object child(Object node, String name) {
+        return node instanceof Map ? ((Map<?, ?>) node).get(name) : null;
+    }
+}
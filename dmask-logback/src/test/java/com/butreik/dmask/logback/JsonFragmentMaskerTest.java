@@ -0,0 +1,48 @@
+package com.butreik.dmask.logback;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The JsonFragmentMaskerTest class contains test methods that test the functionality of the JsonFragmentMasker class.
+ *
+ * @author Vladimir Rudnev
+ */
+public class JsonFragmentMaskerTest {
+
+    private static final JsonFragmentMasker MASKER =
+            new JsonFragmentMasker(YamlJsonMaskLoader.loadResource("bmask.yaml").build(), 64, 2);
+
+    @Test
+    public void maskFragmentsTest() {
+        assertEquals("login {\"password\":\"******\"} failed for [{\"email\":\"****@domain.com\"}]",
+                MASKER.mask("login {\"password\": \"Qwerty123\"} failed for [{\"email\": \"name@domain.com\"}]"));
+        assertEquals("unclosed {\"a\": {\"password\":\"******\"}",
+                MASKER.mask("unclosed {\"a\": {\"password\": \"x}\"}"));
+    }
+
+    @Test
+    public void passThroughTest() {
+        String plain = "user logged in";
+        String brackets = "[main] map {a=1} list [1, 2] {\"name\": \"}\"} {\"password\": ";
+
+        assertSame(plain, MASKER.mask(plain));
+        assertSame(brackets, MASKER.mask(brackets));
+        assertSame(null, MASKER.mask(null));
+    }
+
+    @Test
+    public void limitsTest() {
+        String large = "{\"password\": \"" + "x".repeat(64) + "\"}";
+
+        assertEquals("large " + JsonFragmentMasker.OMITTED, MASKER.mask("large " + large));
+        assertEquals("{\"password\":\"******\"} {\"password\":\"******\"} " + JsonFragmentMasker.OMITTED,
+                MASKER.mask("{\"password\": 1} {\"password\": 2} {\"password\": 3}"));
+        assertEquals("a {\"a\": {\"b\": " + JsonFragmentMasker.OMITTED,
+                MASKER.mask("a {\"a\": {\"b\": {\"c\": x {\"password\":\"hunter2\"}"));
+        assertThrows(IllegalArgumentException.class, () -> new JsonFragmentMasker(null));
+    }
+}
@@ -0,0 +1,85 @@
+package com.butreik.dmask.logback;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.PatternLayout;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.MapFunctions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The MaskingLogbackTest class contains test methods that test the logback converter and appender masking JSON.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskingLogbackTest {
+
+    @Test
+    public void converterTest() {
+        LoggerContext context = new LoggerContext();
+        PatternLayout layout = new PatternLayout();
+        layout.setContext(context);
+        layout.getInstanceConverterMap().put("maskedMsg", MaskedMessageConverter.class.getName());
+        layout.setPattern("%level %maskedMsg{bmask.yaml}");
+        layout.start();
+        Logger logger = context.getLogger("test");
+
+        String result = layout.doLayout(new LoggingEvent(Logger.class.getName(), logger, Level.INFO,
+                "request {}", null, new Object[]{"{\"password\": \"Qwerty123\"}"}));
+
+        assertEquals("INFO request {\"password\":\"******\"}", result);
+    }
+
+    @Test
+    public void appenderTest() {
+        LoggerContext context = new LoggerContext();
+        ListAppender<ILoggingEvent> list = new ListAppender<>();
+        list.setContext(context);
+        list.start();
+        MaskingAsyncAppender appender = new MaskingAsyncAppender();
+        appender.setContext(context);
+        appender.addAppender(list);
+        appender.start();
+        Logger logger = context.getLogger("test");
+        logger.addAppender(appender);
+
+        logger.info("request {}", "{\"email\": \"name@domain.com\"}");
+        logger.info("plain {}", "text");
+        appender.stop();
+
+        assertEquals(2, list.list.size());
+        assertEquals("request {\"email\":\"****@domain.com\"}", list.list.get(0).getFormattedMessage());
+        assertNull(list.list.get(0).getArgumentArray());
+        assertEquals("plain text", list.list.get(1).getFormattedMessage());
+        assertInstanceOf(LoggingEvent.class, list.list.get(1));
+    }
+
+    @Test
+    public void tokenizeMaskerTest() {
+        String yaml = "json-mask:\n  tokenize:\n    key: secret-key\n  maskers:\n    tokenize-masker:\n      - $..customerId\n";
+        JsonMask jsonMask = YamlJsonMaskLoader.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8))).build();
+        Object token = MapFunctions.tokenize("secret-key".getBytes(StandardCharsets.UTF_8)).map("C-42");
+
+        assertEquals("{\"customerId\":\"" + token + "\"}", jsonMask.mask("{\"customerId\": \"C-42\"}"));
+    }
+
+    @Test
+    public void keysTest() {
+        String yaml = "json-mask:\n  ignore-key-case: true\n  keys:\n    secret-masker:\n      - token\n      - password\n";
+        JsonMask jsonMask = YamlJsonMaskLoader.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8))).build();
+
+        assertEquals("{\"Token\":\"******\",\"user\":{\"password\":\"******\"}}",
+                jsonMask.mask("{\"Token\": \"a\", \"user\": {\"password\": \"b\"}}"));
+    }
+}
@@ -0,0 +1,474 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import com.jayway.jsonpath.InvalidJsonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.butreik.dmask.core.Assert.assertNotNull;
+import static com.butreik.dmask.core.Assert.assertTrue;
+
+/**
+ * A servlet filter logging the masked JSON bodies of requests and responses.
+ * <p>
+ * Bodies are not buffered: the bytes the application reads from the request and writes to the response pass through
+ * as usual, and the first {@code maxBodySize} bytes of each are copied aside. Only bodies with a JSON content type,
+ * {@code application/json} or a {@code +json} subtype, are captured. Once the response is complete, the captured
+ * bodies are masked and passed to the {@link MaskedBodyLogger} on the executor, so masking does not add
+ * to the latency of the response. Exchanges rejected by the executor are not logged.
+ * <p>
+ * Bodies larger than the limit cannot be parsed, so they are logged as {@link #TRUNCATED} rather than in part,
+ * bodies that are not valid JSON as {@link #INVALID}, and bodies that cannot be masked otherwise as {@link #FAILED}.
+ * Bodies are decoded with the charset of their content type, UTF-8 if it has none. Unmasked data is never logged.
+ *
+ * @author Vladimir Rudnev
+ */
+public class JsonBodyMaskingFilter extends OncePerRequestFilter {
+
+    /**
+     * The text logged instead of a body larger than the limit.
+     */
+    public static final String TRUNCATED = "[json body too large]";
+
+    /**
+     * The text logged instead of a body that is not valid JSON.
+     */
+    public static final String INVALID = "[invalid json body]";
+
+    /**
+     * The text logged instead of a body that cannot be masked for another reason, such as the limits of the mask.
+     */
+    public static final String FAILED = "[json body not masked]";
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonBodyMaskingFilter.class);
+
+    private final JsonMask jsonMask;
+    private final Executor executor;
+    private final MaskedBodyLogger bodyLogger;
+    private final int maxBodySize;
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * Constructs a new {@code JsonBodyMaskingFilter} masking bodies with its own pool of daemon threads,
+     * which is shut down when the filter is destroyed.
+     *
+     * @param jsonMask      the JSON mask used to mask bodies.
+     * @param bodyLogger    the logger of masked bodies.
+     * @param maxBodySize   the maximum number of bytes captured from each body.
+     * @param threads       the number of threads masking bodies.
+     * @param queueCapacity the number of exchanges waiting to be masked, further exchanges are not logged.
+     * @throws IllegalArgumentException if an argument is null or a size is not positive.
+     */
+    public JsonBodyMaskingFilter(JsonMask jsonMask, MaskedBodyLogger bodyLogger, int maxBodySize,
+                                 int threads, int queueCapacity) {
+        this(jsonMask, newExecutor(threads, queueCapacity), bodyLogger, maxBodySize, true);
+    }
+
+    /**
+     * Constructs a new {@code JsonBodyMaskingFilter} masking bodies with the specified executor,
+     * which is not shut down by the filter.
+     *
+     * @param jsonMask    the JSON mask used to mask bodies.
+     * @param executor    the executor masking and logging bodies.
+     * @param bodyLogger  the logger of masked bodies.
+     * @param maxBodySize the maximum number of bytes captured from each body.
+     * @throws IllegalArgumentException if an argument is null or the size is not positive.
+     */
+    public JsonBodyMaskingFilter(JsonMask jsonMask, Executor executor, MaskedBodyLogger bodyLogger, int maxBodySize) {
+        this(jsonMask, executor, bodyLogger, maxBodySize, false);
+    }
+
+    private JsonBodyMaskingFilter(JsonMask jsonMask, Executor executor, MaskedBodyLogger bodyLogger, int maxBodySize,
+                                  boolean ownsExecutor) {
+        assertTrue(maxBodySize > 0, () -> "Maximum body size must be positive");
+        this.jsonMask = assertNotNull(jsonMask);
+        this.executor = assertNotNull(executor);
+        this.bodyLogger = assertNotNull(bodyLogger);
+        this.maxBodySize = maxBodySize;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+    }
+
+    private static ExecutorService newExecutor(int threads, int queueCapacity) {
+        assertTrue(threads > 0, () -> "Number of threads must be positive");
+        assertTrue(queueCapacity > 0, () -> "Queue capacity must be positive");
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "json-mask-web-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Shuts down the pool of the filter, if it has one, letting it log the exchanges already submitted.
+     */
+    @Override
+    public void destroy() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String contentType = request.getContentType();
+        CapturingRequest capturingRequest = new CapturingRequest(request,
+                isJson(contentType) ? new Capture(maxBodySize, charset(contentType)) : null);
+        CapturingResponse capturingResponse = new CapturingResponse(response, maxBodySize);
+        try {
+            filterChain.doFilter(capturingRequest, capturingResponse);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        capturingResponse.flushWriter();
+                        submit(request, capturingRequest.capture, capturingResponse);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                capturingResponse.flushWriter();
+                submit(request, capturingRequest.capture, capturingResponse);
+            }
+        }
+    }
+
+    /**
+     * Hands the captured bodies to the executor, reading everything needed from the request on the calling thread.
+     */
+    private void submit(HttpServletRequest request, Capture requestBody, CapturingResponse response) {
+        Capture responseBody = response.capture;
+        if (isEmpty(requestBody) && isEmpty(responseBody)) {
+            return;
+        }
+        String method = request.getMethod();
+        String uri = request.getRequestURI();
+        int status = response.getStatus();
+        try {
+            executor.execute(() -> bodyLogger.log(method, uri, status, mask(requestBody), mask(responseBody)));
+        } catch (RejectedExecutionException e) {
+            logger.debug("The masked bodies of {} {} are not logged, the executor is busy", method, uri);
+        }
+    }
+
+    private String mask(Capture capture) {
+        if (isEmpty(capture)) {
+            return null;
+        }
+        if (capture.truncated) {
+            return TRUNCATED;
+        }
+        try {
+            if (capture.charset.equals(StandardCharsets.UTF_8)) {
+                return new String(jsonMask.mask(capture.toByteArray()), StandardCharsets.UTF_8);
+            }
+            return jsonMask.mask(new String(capture.toByteArray(), capture.charset));
+        } catch (InvalidJsonException e) {
+            return INVALID;
+        } catch (RuntimeException e) {
+            logger.debug("A JSON body cannot be masked", e);
+            return FAILED;
+        }
+    }
+
+    private static boolean isEmpty(Capture capture) {
+        return capture == null || capture.size == 0 && !capture.truncated;
+    }
+
+    /**
+     * Checks whether the content type is {@code application/json} or has a {@code +json} subtype, ignoring parameters.
+     */
+    static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int end = contentType.indexOf(';');
+        String mediaType = (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+        return mediaType.equals("application/json") || mediaType.endsWith("+json");
+    }
+
+    /**
+     * Returns the charset of the {@code charset} parameter of the content type, or UTF-8 if there is none
+     * or it is not supported.
+     */
+    static Charset charset(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).trim().equalsIgnoreCase("charset")) {
+                String name = parameter.substring(separator + 1).trim().replace("\"", "");
+                try {
+                    return Charset.forName(name);
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * The first bytes of a body, up to the limit.
+     */
+    private static final class Capture {
+        private final int limit;
+        private final Charset charset;
+        private byte[] bytes = new byte[256];
+        private int size;
+        private boolean truncated;
+
+        private Capture(int limit, Charset charset) {
+            this.limit = limit;
+            this.charset = charset;
+        }
+
+        private void write(int b) {
+            if (ensureCapacity(1)) {
+                bytes[size++] = (byte) b;
+            }
+        }
+
+        private void write(byte[] b, int off, int len) {
+            if (ensureCapacity(len)) {
+                System.arraycopy(b, off, bytes, size, len);
+                size += len;
+            }
+        }
+
+        private boolean ensureCapacity(int len) {
+            if (truncated || len > limit - size) {
+                truncated = true;
+                bytes = null;
+                return false;
+            }
+            if (size + len > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.min(limit, Math.max(size + len, bytes.length * 2)));
+            }
+            return true;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+
+    /**
+     * A request copying the bytes read from its body.
+     */
+    private static final class CapturingRequest extends HttpServletRequestWrapper {
+        private final Capture capture;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        private CapturingRequest(HttpServletRequest request, Capture capture) {
+            super(request);
+            this.capture = capture;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (capture == null) {
+                return super.getInputStream();
+            }
+            if (inputStream == null) {
+                inputStream = new CapturingInputStream(super.getInputStream(), capture);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (capture == null) {
+                return super.getReader();
+            }
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * A response copying the bytes written to its body if its content type is JSON when writing starts.
+     */
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+        private final int maxBodySize;
+        private Capture capture;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        private CapturingResponse(HttpServletResponse response, int maxBodySize) {
+            super(response);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                String contentType = getContentType();
+                if (isJson(contentType)) {
+                    capture = new Capture(maxBodySize, charset(contentType));
+                    outputStream = new CapturingOutputStream(super.getOutputStream(), capture);
+                } else {
+                    outputStream = super.getOutputStream();
+                }
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            super.flushBuffer();
+        }
+
+        private void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+
+    private static final class CapturingInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+        private final Capture capture;
+
+        private CapturingInputStream(ServletInputStream delegate, Capture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                capture.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            if (read > 0) {
+                capture.write(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class CapturingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private final Capture capture;
+
+        private CapturingOutputStream(ServletOutputStream delegate, Capture capture) {
+            this.delegate = delegate;
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.ReloadableJsonMask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Rebuilds the {@link JsonMask} bean when the masking rules change and swaps it in atomically,
+ * so the rules can be changed without restarting the application.
+ * <p>
+ * The rules are bound from the {@code json-mask} properties of the environment. If a rules file is set,
+ * it is added as the property source with the highest precedence and checked for changes periodically.
+ * A reload can also be requested with {@link #reload()}, which the starter does on
+ * a Spring Cloud {@code EnvironmentChangeEvent} of {@code json-mask} properties.
+ * <p>
+ * Masks are built by a single daemon thread, so reloads never run concurrently and never block masking.
+ * Masking is switched to the new mask with {@link ReloadableJsonMask}: calls in progress complete with the old
+ * rules, subsequent calls use the new ones. Rules that fail to build are logged and the current mask is kept.
+ *
+ * @author Vladimir Rudnev
+ */
+public class JsonMaskReloader implements DisposableBean {
+
+    /**
+     * The name of the property source of the rules file.
+     */
+    public static final String PROPERTY_SOURCE_NAME = "json-mask-reload";
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonMaskReloader.class);
+
+    private final Function<MaskerProperties, JsonMask> factory;
+    private final ConfigurableEnvironment environment;
+    private final Path location;
+    private final ScheduledThreadPoolExecutor executor;
+    private final ReloadableJsonMask jsonMask;
+    private byte[] content;
+
+    /**
+     * Creates a reloader and builds the initial mask.
+     *
+     * @param factory     the function building a mask of the masking properties.
+     * @param environment the environment the masking properties are bound from.
+     * @param location    the rules file, or {@code null} if there is no rules file.
+     * @param interval    the interval of checking the rules file for changes.
+     */
+    public JsonMaskReloader(Function<MaskerProperties, JsonMask> factory, ConfigurableEnvironment environment,
+                            Path location, Duration interval) {
+        this.factory = factory;
+        this.environment = environment;
+        this.location = location;
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "json-mask-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (location != null) {
+            updateRulesFile();
+        }
+        this.jsonMask = new ReloadableJsonMask(build());
+        if (location != null) {
+            long delay = interval.toMillis();
+            executor.scheduleWithFixedDelay(this::checkRulesFile, delay, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns the mask that is switched to the rebuilt masks.
+     *
+     * @return the reloadable mask.
+     */
+    public ReloadableJsonMask getJsonMask() {
+        return jsonMask;
+    }
+
+    /**
+     * Rebuilds the mask of the current environment in the background.
+     *
+     * @return a future completed when the new mask is swapped in or fails to build.
+     */
+    public Future<?> reload() {
+        return executor.submit(this::swap);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void checkRulesFile() {
+        try {
+            if (updateRulesFile()) {
+                swap();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Cannot reload the masking rules of {}", location, e);
+        }
+    }
+
+    private void swap() {
+        try {
+            jsonMask.set(build());
+            logger.info("Masking rules reloaded");
+        } catch (RuntimeException e) {
+            logger.error("Cannot reload the masking rules, the current rules are kept", e);
+        }
+    }
+
+    private JsonMask build() {
+        MaskerProperties properties = Binder.get(environment)
+                .bind("json-mask", MaskerProperties.class)
+                .orElseGet(MaskerProperties::new);
+        return factory.apply(properties);
+    }
+
+    /**
+     * Replaces the property source of the rules file if its content has changed.
+     * A missing or unreadable file leaves the current rules in place.
+     *
+     * @return whether the property source has been replaced.
+     */
+    private boolean updateRulesFile() {
+        byte[] newContent;
+        try {
+            newContent = Files.readAllBytes(location);
+        } catch (NoSuchFileException e) {
+            logger.debug("The rules file {} does not exist", location);
+            return false;
+        } catch (IOException e) {
+            logger.warn("Cannot read the rules file {}", location, e);
+            return false;
+        }
+        if (Arrays.equals(content, newContent)) {
+            return false;
+        }
+        content = newContent;
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ByteArrayResource(newContent, location.toString()));
+        PropertiesPropertySource source = new PropertiesPropertySource(PROPERTY_SOURCE_NAME, yaml.getObject());
+        MutablePropertySources propertySources = environment.getPropertySources();
+        if (propertySources.contains(PROPERTY_SOURCE_NAME)) {
+            propertySources.replace(PROPERTY_SOURCE_NAME, source);
+        } else {
+            propertySources.addFirst(source);
+        }
+        return true;
+    }
+}
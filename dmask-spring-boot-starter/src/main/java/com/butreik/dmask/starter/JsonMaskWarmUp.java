@@ -0,0 +1,108 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Warms up the JIT compiler by masking sample payloads while the application context is refreshed,
+ * so the first requests after a start are not slowed down by interpreted code.
+ * <p>
+ * The payloads are masked by a mask built of the same rules as the {@link JsonMask} bean but without its listener,
+ * so the warm-up is not recorded by the metrics and does not fill the result cache. The warm-up runs once
+ * all singletons are created, before the application reports it is ready. It never fails the start:
+ * an error stops the warm-up and is logged.
+ * <p>
+ * A resource with the {@code .jsonl} extension holds one payload per line, any other resource holds one payload.
+ *
+ * @author Vladimir Rudnev
+ */
+public class JsonMaskWarmUp implements SmartInitializingSingleton {
+
+    /**
+     * The location of the sample payloads shipped with the starter.
+     */
+    public static final String DEFAULT_PAYLOADS = "classpath:/META-INF/dmask/warm-up.jsonl";
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonMaskWarmUp.class);
+
+    private final Supplier<JsonMask> factory;
+    private final List<Resource> payloads;
+    private final int iterations;
+
+    /**
+     * Creates a warm-up.
+     *
+     * @param factory    the function building the mask to warm up.
+     * @param payloads   the resources of the sample payloads.
+     * @param iterations the number of times each payload is masked.
+     */
+    public JsonMaskWarmUp(Supplier<JsonMask> factory, List<Resource> payloads, int iterations) {
+        this.factory = factory;
+        this.payloads = payloads;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        run();
+    }
+
+    /**
+     * Masks each sample payload the configured number of times, as a string and as bytes.
+     *
+     * @return the number of masked payloads.
+     * @throws UncheckedIOException if a payload resource cannot be read.
+     */
+    public int run() {
+        List<String> inputs = readPayloads();
+        List<byte[]> byteInputs = new ArrayList<>(inputs.size());
+        inputs.forEach(input -> byteInputs.add(input.getBytes(StandardCharsets.UTF_8)));
+        long start = System.nanoTime();
+        int masked = 0;
+        try {
+            JsonMask jsonMask = factory.get();
+            for (int i = 0; i < iterations; i++) {
+                for (int j = 0; j < inputs.size(); j++) {
+                    jsonMask.mask(inputs.get(j));
+                    jsonMask.mask(byteInputs.get(j));
+                    masked += 2;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("JSON mask warm-up stopped after {} payloads", masked, e);
+            return masked;
+        }
+        logger.info("JSON mask warmed up with {} payloads in {} ms", masked, (System.nanoTime() - start) / 1_000_000);
+        return masked;
+    }
+
+    private List<String> readPayloads() {
+        List<String> inputs = new ArrayList<>();
+        for (Resource resource : payloads) {
+            String content;
+            try (InputStream input = resource.getInputStream()) {
+                content = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read the warm-up payloads of " + resource, e);
+            }
+            String filename = resource.getFilename();
+            if (filename != null && filename.endsWith(".jsonl")) {
+                content.lines().filter(line -> !line.isBlank()).forEach(inputs::add);
+            } else {
+                inputs.add(content);
+            }
+        }
+        return inputs;
+    }
+}
@@ -1,20 +1,52 @@
 package com.butreik.dmask.starter;
 
+import com.butreik.dmask.core.AsyncJsonMask;
 import com.butreik.dmask.core.JsonMask;
 import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.MapFunctions;
+import com.butreik.dmask.core.MaskListener;
+import com.butreik.dmask.core.MaskModule;
 import com.butreik.dmask.core.Masker;
 import com.butreik.dmask.core.Maskers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.web.filter.OncePerRequestFilter;
+import reactor.core.publisher.Mono;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  *
@@ -29,46 +61,78 @@ public class MaskAutoConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(MaskAutoConfiguration.class);
 
+    /**
+     * The name of the {@link JsonMask} bean created by the starter.
+     */
+    static final String JSON_MASK_BEAN_NAME = "jsonMask";
+
     /**
      * Creates a {@link JsonMask} bean that can be used to mask JSON data.
      * The configuration of the maskers and filters is done using {@link JsonMaskConfigurer} and {@link MaskerProperties}.
+     * Configurers are applied in their {@link Order}, configurers of the starter are applied first.
+     * If {@code json-mask.reload.enabled} is set, the mask of the {@link JsonMaskReloader} is returned.
      * @param jsonMaskConfigurers ObjectProvider for {@link JsonMaskConfigurer} beans.
      * @param maskerProperties Configuration properties for JSON masking.
+     * @param jsonMaskReloader ObjectProvider for the {@link JsonMaskReloader} bean.
      * @return A {@link JsonMask} instance that can be used to mask JSON data.
      */
     @Bean
     @ConditionalOnProperty(name = "json-mask.enabled", havingValue = "true", matchIfMissing = true)
     public JsonMask jsonMask(ObjectProvider<JsonMaskConfigurer> jsonMaskConfigurers,
-                             MaskerProperties maskerProperties) {
-        JsonMaskImpl.Builder builder = JsonMaskImpl.builder();
-        gwtDefaultMaskers().forEach(builder::masker);
-        jsonMaskConfigurers.stream().forEach(configurer -> configurer.configure(builder));
-        maskerProperties.getMaskers().forEach((maskerMame, paths) ->
-                builder.filter(maskerMame, filtersBuilder -> filtersBuilder.jsonPath(paths)));
+                             MaskerProperties maskerProperties,
+                             ObjectProvider<JsonMaskReloader> jsonMaskReloader) {
+        JsonMaskReloader reloader = jsonMaskReloader.getIfAvailable();
+        JsonMask jsonMask = reloader != null ? reloader.getJsonMask()
+                : build(jsonMaskConfigurers.orderedStream(), maskerProperties);
         logger.info("MaskAutoConfiguration finished successfully");
+        return jsonMask;
+    }
+
+    /**
+     * Builds a {@link JsonMaskImpl} of the masking properties, with the default maskers and the configurers applied.
+     * @param jsonMaskConfigurers The {@link JsonMaskConfigurer} beans in their order.
+     * @param maskerProperties Configuration properties for JSON masking.
+     * @return A new {@link JsonMaskImpl}.
+     */
+    static JsonMask build(Stream<JsonMaskConfigurer> jsonMaskConfigurers, MaskerProperties maskerProperties) {
+        JsonMaskImpl.Builder builder = builder(jsonMaskConfigurers, maskerProperties);
+        MaskerProperties.Cache cache = maskerProperties.getCache();
+        if (cache.isEnabled()) {
+            builder.cache(cache.getMaxEntries(), cache.getMaxBytes());
+        }
         return builder.build();
     }
 
     /**
-     * Returns a list of default maskers that are used if no custom maskers are configured.
-     * @return List of default maskers.
-     */
-    private List<Masker> gwtDefaultMaskers() {
-        return List.of(
-                Maskers.REMOVE_MASKER,
-                Maskers.NUMBER_MASKER,
-                Maskers.SECRET_MASKER,
-                Maskers.REPLACE_STRING_MASKER,
-                Maskers.EMAIL_MASKER,
-                Maskers.ISO_OFFSET_DATE_MASKER,
-                Maskers.ISO_OFFSET_TIME_MASKER,
-                Maskers.ISO_OFFSET_DATE_TIME,
-                Maskers.ISO_LOCAL_DATE_MASKER,
-                Maskers.ISO_LOCAL_TIME_MASKER,
-                Maskers.ISO_LOCAL_DATE_TIME_MASKER,
-                Maskers.ISO_INSTANT_MASKER,
-                Maskers.EXCEPT_FIRST_CHARACTER_MASKER
-        );
+     * Creates a {@link JsonMaskImpl.Builder} of the masking properties, with the default maskers and the configurers applied.
+     * The result cache is not set, so that masks warming up the JIT compiler process every input.
+     * @param jsonMaskConfigurers The {@link JsonMaskConfigurer} beans in their order.
+     * @param maskerProperties Configuration properties for JSON masking.
+     * @return A configured builder.
+     */
+    static JsonMaskImpl.Builder builder(Stream<JsonMaskConfigurer> jsonMaskConfigurers, MaskerProperties maskerProperties) {
+        JsonMaskImpl.Builder builder = JsonMaskImpl.builder()
+                .batchChunkSize(maskerProperties.getBatch().getChunkSize())
+                .limits(maskerProperties.getLimits().toMaskLimits())
+                .bytecode(maskerProperties.isBytecode());
+        Maskers.DEFAULT_MASKERS.forEach(builder::masker);
+        MaskerProperties.Tokenize tokenize = maskerProperties.getTokenize();
+        if (tokenize.getKey() != null) {
+            builder.masker(Masker.builder().name(Maskers.TOKENIZE_MASKER_NAME)
+                    .mapFunction(MapFunctions.tokenize(tokenize.getKey().getBytes(StandardCharsets.UTF_8),
+                            tokenize.getTokenLength(), tokenize.getMemoSize()))
+                    .build());
+        }
+        jsonMaskConfigurers.forEach(configurer -> configurer.configure(builder));
+        if (maskerProperties.getMaskers() != null) {
+            maskerProperties.getMaskers().forEach((maskerMame, paths) ->
+                    builder.filter(maskerMame, filtersBuilder -> filtersBuilder.jsonPath(paths)));
+        }
+        if (maskerProperties.getKeys() != null) {
+            maskerProperties.getKeys().forEach(builder::filterKey);
+        }
+        builder.ignoreKeyCase(maskerProperties.isIgnoreKeyCase());
+        return builder;
     }
 
     /**
@@ -80,6 +144,362 @@ public class MaskAutoConfiguration {
     @ConditionalOnMissingBean
     public JsonMask jsonMaskStub() {
         logger.info("MaskAutoConfiguration finished with stub implementation for JsonMask");
-        return input -> input;
+        return new JsonMaskStub();
+    }
+
+    /**
+     * Records metrics of JSON masking when Micrometer is on the classpath and a {@link MeterRegistry} bean exists.
+     * Disabled with {@code json-mask.metrics.enabled=false}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty(name = "json-mask.metrics.enabled", havingValue = "true", matchIfMissing = true)
+    static class MetricsConfiguration {
+
+        /**
+         * Creates a {@link JsonMaskConfigurer} that counts the values masked by each masker.
+         * @param meterRegistry ObjectProvider for the {@link MeterRegistry} bean.
+         * @param maskerProperties Configuration properties for JSON masking.
+         * @return A {@link JsonMaskConfigurer} setting a {@link MaskerHitCounter} listener.
+         */
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        public JsonMaskConfigurer jsonMaskMetricsConfigurer(ObjectProvider<MeterRegistry> meterRegistry,
+                                                            MaskerProperties maskerProperties) {
+            return builder -> {
+                MeterRegistry registry = meterRegistry.getIfAvailable();
+                if (registry != null && maskerProperties.getMetrics().isMaskerHits()) {
+                    builder.listener(new MaskerHitCounter(registry));
+                }
+            };
+        }
+
+        /**
+         * Creates a {@link BeanPostProcessor} that decorates the {@code jsonMask} bean of the starter
+         * with {@link MeteredJsonMask}. Other {@link JsonMask} beans are left as they are, so that they can still be
+         * injected by their own type.
+         * @param meterRegistry ObjectProvider for the {@link MeterRegistry} bean.
+         * @param maskerProperties ObjectProvider for the configuration properties for JSON masking.
+         * @return A {@link BeanPostProcessor} recording metrics of {@link JsonMask} beans.
+         */
+        @Bean
+        public static BeanPostProcessor jsonMaskMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                                     ObjectProvider<MaskerProperties> maskerProperties) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!JSON_MASK_BEAN_NAME.equals(beanName) || !(bean instanceof JsonMask)
+                            || bean instanceof MeteredJsonMask) {
+                        return bean;
+                    }
+                    MeterRegistry registry = meterRegistry.getIfAvailable();
+                    if (registry == null) {
+                        return bean;
+                    }
+                    return new MeteredJsonMask((JsonMask) bean, registry, maskerProperties.getObject().getMetrics());
+                }
+            };
+        }
+    }
+
+    /**
+     * Warms up the JIT compiler at startup when {@code json-mask.warm-up.enabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "json-mask.warm-up.enabled", havingValue = "true")
+    static class WarmUpConfiguration {
+
+        /**
+         * Creates a {@link JsonMaskWarmUp} bean masking the sample payloads once all singletons are created.
+         * The payloads are masked by a mask of the same rules without a listener, a result cache and the prefilter,
+         * so the metrics are not affected and every payload is parsed, even if it contains none of the masked names.
+         * @param jsonMaskConfigurers ObjectProvider for {@link JsonMaskConfigurer} beans.
+         * @param maskerProperties Configuration properties for JSON masking.
+         * @param resourceLoader The loader of the payload resources.
+         * @return A {@link JsonMaskWarmUp} configured with the {@code json-mask.warm-up} properties.
+         */
+        @Bean
+        public JsonMaskWarmUp jsonMaskWarmUp(ObjectProvider<JsonMaskConfigurer> jsonMaskConfigurers,
+                                             MaskerProperties maskerProperties,
+                                             ResourceLoader resourceLoader) {
+            MaskerProperties.WarmUp properties = maskerProperties.getWarmUp();
+            return new JsonMaskWarmUp(
+                    () -> builder(jsonMaskConfigurers.orderedStream(), maskerProperties)
+                            .listener(MaskListener.NONE)
+                            .prefilter(false)
+                            .build(),
+                    properties.getPayloads().stream().map(resourceLoader::getResource).collect(Collectors.toList()),
+                    properties.getIterations());
+        }
+    }
+
+    /**
+     * Reloads the masking rules at runtime when {@code json-mask.reload.enabled} is set.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "json-mask.reload.enabled", havingValue = "true")
+    static class ReloadConfiguration {
+
+        /**
+         * Creates a {@link JsonMaskReloader} bean rebuilding the mask when the rules file changes.
+         * Its thread is stopped with the application context.
+         * @param jsonMaskConfigurers ObjectProvider for {@link JsonMaskConfigurer} beans.
+         * @param maskerProperties Configuration properties for JSON masking.
+         * @param environment The environment the masking properties are bound from.
+         * @return A {@link JsonMaskReloader} configured with the {@code json-mask.reload} properties.
+         */
+        @Bean
+        public JsonMaskReloader jsonMaskReloader(ObjectProvider<JsonMaskConfigurer> jsonMaskConfigurers,
+                                                 MaskerProperties maskerProperties,
+                                                 ConfigurableEnvironment environment) {
+            MaskerProperties.Reload properties = maskerProperties.getReload();
+            return new JsonMaskReloader(
+                    reloaded -> build(jsonMaskConfigurers.orderedStream(), reloaded), environment,
+                    properties.getLocation() != null ? Path.of(properties.getLocation()) : null,
+                    properties.getInterval());
+        }
+
+        /**
+         * Reloads the masking rules when Spring Cloud changes {@code json-mask} properties of the environment.
+         */
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(EnvironmentChangeEvent.class)
+        static class EnvironmentChangeConfiguration {
+
+            /**
+             * Creates a listener requesting a reload on changes of {@code json-mask} properties.
+             * @param jsonMaskReloader The {@link JsonMaskReloader} bean.
+             * @return An {@link ApplicationListener} of {@link EnvironmentChangeEvent}.
+             */
+            @Bean
+            public ApplicationListener<EnvironmentChangeEvent> jsonMaskEnvironmentChangeListener(
+                    JsonMaskReloader jsonMaskReloader) {
+                return event -> {
+                    if (event.getKeys().stream().anyMatch(key -> key.startsWith("json-mask."))) {
+                        jsonMaskReloader.reload();
+                    }
+                };
+            }
+        }
+    }
+
+    /**
+     * Masks batches in a dedicated fork-join pool when {@code json-mask.batch.parallelism} is set.
+     * The pool is not a bean, so it does not replace the {@code Executor} beans of the application.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "json-mask.batch.parallelism")
+    static class BatchConfiguration {
+
+        /**
+         * Creates a {@link JsonMaskConfigurer} that sets a fork-join pool masking batches to the builder.
+         * The pool is shut down with the application context.
+         * @param maskerProperties Configuration properties for JSON masking.
+         * @return A {@link JsonMaskConfigurer} setting the batch executor.
+         */
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        public BatchPoolConfigurer jsonMaskBatchConfigurer(MaskerProperties maskerProperties) {
+            return new BatchPoolConfigurer(new ForkJoinPool(maskerProperties.getBatch().getParallelism()));
+        }
+    }
+
+    /**
+     * A {@link JsonMaskConfigurer} owning the fork-join pool masking batches.
+     */
+    static class BatchPoolConfigurer implements JsonMaskConfigurer, DisposableBean {
+
+        private final ForkJoinPool pool;
+
+        BatchPoolConfigurer(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void configure(JsonMaskImpl.Builder builder) {
+            builder.batchExecutor(pool);
+        }
+
+        ForkJoinPool getPool() {
+            return pool;
+        }
+
+        @Override
+        public void destroy() {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Masks JSON data off event-loop threads when Reactor is on the classpath and {@code json-mask.async.enabled}
+     * is set, since the worker pool is not needed by applications that only mask on their own threads.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(Mono.class)
+    @ConditionalOnProperty(name = "json-mask.async.enabled", havingValue = "true")
+    static class ReactorConfiguration {
+
+        /**
+         * Creates an {@link AsyncJsonMask} bean masking large inputs off the calling thread with the {@link JsonMask} bean.
+         * The worker pool it creates is shut down with the application context.
+         * @param jsonMask The {@link JsonMask} bean.
+         * @param maskerProperties Configuration properties for JSON masking.
+         * @return An {@link AsyncJsonMask} configured with the {@code json-mask.async} properties.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public AsyncJsonMask asyncJsonMask(JsonMask jsonMask, MaskerProperties maskerProperties) {
+            MaskerProperties.Async properties = maskerProperties.getAsync();
+            AsyncJsonMask.Builder builder = AsyncJsonMask.builder(jsonMask)
+                    .inlineThreshold(properties.getInlineThreshold())
+                    .virtualThreads(properties.isVirtualThreads())
+                    .queueCapacity(properties.getQueueCapacity());
+            if (properties.getWorkers() != null) {
+                builder.workers(properties.getWorkers());
+            }
+            return builder.build();
+        }
+
+        /**
+         * Creates a {@link ReactiveJsonMask} bean returning masked JSON data as {@link Mono}.
+         * @param asyncJsonMask The {@link AsyncJsonMask} bean.
+         * @return A {@link ReactiveJsonMask} masking with the {@link AsyncJsonMask} bean.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveJsonMask reactiveJsonMask(AsyncJsonMask asyncJsonMask) {
+            return new ReactiveJsonMask(asyncJsonMask);
+        }
+    }
+
+    /**
+     * Logs the masked JSON bodies of servlet requests and responses when {@code json-mask.web.enabled} is set.
+     * It is not registered when masking is disabled, so that bodies are never logged unmasked.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @Conditional(MaskingEnabledCondition.class)
+    @ConditionalOnClass(OncePerRequestFilter.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(name = "json-mask.web.enabled", havingValue = "true")
+    static class WebConfiguration {
+
+        /**
+         * Creates a {@link MaskedBodyLogger} bean logging the masked bodies with SLF4J.
+         * @return A {@link MaskedBodyLogger} logging at the info level.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public MaskedBodyLogger maskedBodyLogger() {
+            return MaskedBodyLogger.slf4j();
+        }
+
+        /**
+         * Creates a {@link JsonBodyMaskingFilter} bean, which is registered in the servlet context.
+         * @param jsonMask The {@link JsonMask} bean.
+         * @param maskedBodyLogger The {@link MaskedBodyLogger} bean.
+         * @param maskerProperties Configuration properties for JSON masking.
+         * @return A {@link JsonBodyMaskingFilter} configured with the {@code json-mask.web} properties.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public JsonBodyMaskingFilter jsonBodyMaskingFilter(JsonMask jsonMask, MaskedBodyLogger maskedBodyLogger,
+                                                           MaskerProperties maskerProperties) {
+            MaskerProperties.Web properties = maskerProperties.getWeb();
+            return new JsonBodyMaskingFilter(jsonMask, maskedBodyLogger, properties.getMaxBodySize(),
+                    properties.getThreads(), properties.getQueueCapacity());
+        }
+    }
+
+    /**
+     * Parses and serializes JSON data with the {@link ObjectMapper} bean of the application, if there is one.
+     * Enabled with {@code json-mask.jackson.enabled=true}, it is off by default since the Jackson provider parses
+     * documents differently and keeps the traversals from being generated as bytecode.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(ObjectMapper.class)
+    @ConditionalOnProperty(name = "json-mask.jackson.enabled", havingValue = "true")
+    static class JacksonConfiguration {
+
+        /**
+         * Creates a {@link JsonMaskConfigurer} that sets the {@link ObjectMapper} bean to the builder.
+         * @param objectMapper ObjectProvider for the {@link ObjectMapper} bean.
+         * @return A {@link JsonMaskConfigurer} setting the {@link ObjectMapper}.
+         */
+        @Bean
+        @Order(Ordered.HIGHEST_PRECEDENCE)
+        public JsonMaskConfigurer jsonMaskJacksonConfigurer(ObjectProvider<ObjectMapper> objectMapper) {
+            return builder -> objectMapper.ifUnique(builder::objectMapper);
+        }
+    }
+
+    /**
+     * Masks the properties annotated with {@link com.butreik.dmask.core.Mask} when objects are serialized.
+     * Disabled with {@code json-mask.jackson.module=false}, and when masking is disabled.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @Conditional(MaskingEnabledCondition.class)
+    @ConditionalOnClass(ObjectMapper.class)
+    @ConditionalOnProperty(name = "json-mask.jackson.module", havingValue = "true", matchIfMissing = true)
+    static class JacksonModuleConfiguration {
+
+        /**
+         * Creates a {@link MaskModule} bean, which Spring Boot registers with the {@link ObjectMapper} it creates.
+         * The maskers are resolved against the builder of the {@link JsonMask} bean the first time a class with
+         * annotated properties is serialized, since the builder may itself use the {@link ObjectMapper}.
+         * @param jsonMaskConfigurers ObjectProvider for {@link JsonMaskConfigurer} beans.
+         * @param maskerProperties Configuration properties for JSON masking.
+         * @return A {@link MaskModule} with the maskers and the listener of the {@link JsonMask} bean.
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public MaskModule jsonMaskModule(ObjectProvider<JsonMaskConfigurer> jsonMaskConfigurers,
+                                         MaskerProperties maskerProperties) {
+            return new MaskModule(() -> builder(jsonMaskConfigurers.orderedStream(), maskerProperties));
+        }
+    }
+
+    /**
+     * A {@link JsonMask} implementation that passes the input through without parsing or copying it.
+     */
+    private static class JsonMaskStub implements JsonMask {
+
+        @Override
+        public String mask(String input) {
+            return input;
+        }
+
+        @Override
+        public byte[] mask(byte[] input) {
+            return input;
+        }
+
+        @Override
+        public Map<String, Object> mask(Map<String, Object> document) {
+            return document;
+        }
+
+        @Override
+        public void mask(InputStream input, OutputStream output) throws IOException {
+            input.transferTo(output);
+            output.flush();
+        }
+
+        @Override
+        public void mask(Reader input, Writer output) throws IOException {
+            input.transferTo(output);
+            output.flush();
+        }
+    }
+
+    /**
+     * Matches when masking is enabled, that is unless {@code json-mask.enabled} is set to {@code false}.
+     * Used by configurations that combine it with their own property.
+     */
+    static class MaskingEnabledCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            return context.getEnvironment().getProperty("json-mask.enabled", Boolean.class, true);
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.butreik.dmask.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the masked bodies of an HTTP exchange captured by {@link JsonBodyMaskingFilter}.
+ * It is called on the executor masking the bodies, after the response has been sent.
+ *
+ * @author Vladimir Rudnev
+ */
+@FunctionalInterface
+public interface MaskedBodyLogger {
+
+    /**
+     * Logs the masked bodies of an HTTP exchange.
+     *
+     * @param method       the HTTP method of the request.
+     * @param uri          the URI of the request, without the query string.
+     * @param status       the status of the response.
+     * @param requestBody  the masked request body, or {@code null} if it is empty or not JSON.
+     * @param responseBody the masked response body, or {@code null} if it is empty or not JSON.
+     */
+    void log(String method, String uri, int status, String requestBody, String responseBody);
+
+    /**
+     * Returns a logger writing the exchange at the info level of the {@link JsonBodyMaskingFilter} SLF4J logger.
+     *
+     * @return the logger.
+     */
+    static MaskedBodyLogger slf4j() {
+        Logger logger = LoggerFactory.getLogger(JsonBodyMaskingFilter.class);
+        return (method, uri, status, requestBody, responseBody) ->
+                logger.info("{} {} {} request={} response={}", method, uri, status, requestBody, responseBody);
+    }
+}
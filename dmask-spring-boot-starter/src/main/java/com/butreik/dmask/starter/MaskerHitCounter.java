@@ -0,0 +1,54 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.MaskListener;
+import com.butreik.dmask.core.Masker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link MaskListener} that counts the values masked by each masker in the {@code json.mask.hits} counter,
+ * tagged with the masker name.
+ * <p>
+ * Counters are registered when a masker is applied for the first time and cached by masker,
+ * so counting a hit does not allocate.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MaskerHitCounter implements MaskListener {
+
+    /**
+     * The name of the counter of masked values.
+     */
+    public static final String HITS = "json.mask.hits";
+
+    private final MeterRegistry registry;
+    private final Map<Masker, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code MaskerHitCounter} registering counters in the specified registry.
+     *
+     * @param registry the meter registry.
+     */
+    public MaskerHitCounter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void onMasked(Masker masker) {
+        Counter counter = counters.get(masker);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(masker, this::register);
+        }
+        counter.increment();
+    }
+
+    private Counter register(Masker masker) {
+        return Counter.builder(HITS)
+                .description("The number of JSON values masked by a masker")
+                .tag("masker", masker.getName())
+                .register(registry);
+    }
+}
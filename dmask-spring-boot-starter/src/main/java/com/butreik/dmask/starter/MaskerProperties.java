@@ -1,7 +1,11 @@
 package com.butreik.dmask.starter;
 
+import com.butreik.dmask.core.AsyncJsonMask;
+import com.butreik.dmask.core.MapFunctions;
+import com.butreik.dmask.core.MaskLimits;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +25,73 @@ public class MaskerProperties {
      */
     private Map<String, List<String>> maskers;
 
+    /**
+     * The map of maskers to be applied to property names wherever they appear, without evaluating JSON paths.
+     * The keys are masker names to apply, and the values are property names, for which the mask is applied.
+     */
+    private Map<String, List<String>> keys;
+
+    /**
+     * Whether the property names of {@code json-mask.keys} are matched ignoring case.
+     */
+    private boolean ignoreKeyCase;
+
+    /**
+     * Whether the traversals of compiled JSON paths are generated as bytecode instead of being interpreted,
+     * which requires {@code org.ow2.asm:asm} on the class path.
+     */
+    private boolean bytecode;
+
+    /**
+     * The metrics recorded when a {@code io.micrometer.core.instrument.MeterRegistry} bean exists.
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * The use of the Jackson {@code ObjectMapper} bean of the application.
+     */
+    private Jackson jackson = new Jackson();
+
+    /**
+     * The parallel masking of batches.
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * The asynchronous masking with {@code AsyncJsonMask} and {@link ReactiveJsonMask}.
+     */
+    private Async async = new Async();
+
+    /**
+     * The cache of masked results.
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * The {@code tokenize-masker}, registered when its key is set.
+     */
+    private Tokenize tokenize = new Tokenize();
+
+    /**
+     * The logging of masked JSON bodies of servlet requests and responses.
+     */
+    private Web web = new Web();
+
+    /**
+     * The limits on the masked JSON data.
+     */
+    private Limits limits = new Limits();
+
+    /**
+     * The reloading of the masking rules at runtime.
+     */
+    private Reload reload = new Reload();
+
+    /**
+     * Properties of warming up the JIT compiler at startup.
+     */
+    private WarmUp warmUp = new WarmUp();
+
     public Map<String, List<String>> getMaskers() {
         return maskers;
     }
@@ -28,4 +99,662 @@ public class MaskerProperties {
     public void setMaskers(Map<String, List<String>> maskers) {
         this.maskers = maskers;
     }
+
+    public Map<String, List<String>> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(Map<String, List<String>> keys) {
+        this.keys = keys;
+    }
+
+    public boolean isIgnoreKeyCase() {
+        return ignoreKeyCase;
+    }
+
+    public void setIgnoreKeyCase(boolean ignoreKeyCase) {
+        this.ignoreKeyCase = ignoreKeyCase;
+    }
+
+    public boolean isBytecode() {
+        return bytecode;
+    }
+
+    public void setBytecode(boolean bytecode) {
+        this.bytecode = bytecode;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public void setAsync(Async async) {
+        this.async = async;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public void setBatch(Batch batch) {
+        this.batch = batch;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Tokenize getTokenize() {
+        return tokenize;
+    }
+
+    public void setTokenize(Tokenize tokenize) {
+        this.tokenize = tokenize;
+    }
+
+    public Web getWeb() {
+        return web;
+    }
+
+    public void setWeb(Web web) {
+        this.web = web;
+    }
+
+    public Limits getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Limits limits) {
+        this.limits = limits;
+    }
+
+    public Reload getReload() {
+        return reload;
+    }
+
+    public void setReload(Reload reload) {
+        this.reload = reload;
+    }
+
+    public WarmUp getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public Jackson getJackson() {
+        return jackson;
+    }
+
+    public void setJackson(Jackson jackson) {
+        this.jackson = jackson;
+    }
+
+    /**
+     * Properties of parsing JSON data with Jackson.
+     */
+    public static class Jackson {
+
+        /**
+         * Whether JSON data is parsed and serialized with the {@code ObjectMapper} bean, if there is one.
+         */
+        private boolean enabled;
+
+        /**
+         * Whether a {@link com.butreik.dmask.core.MaskModule} bean masking the properties annotated with
+         * {@link com.butreik.dmask.core.Mask} is created, which Spring Boot registers with its {@code ObjectMapper}.
+         */
+        private boolean module = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isModule() {
+            return module;
+        }
+
+        public void setModule(boolean module) {
+            this.module = module;
+        }
+    }
+
+    /**
+     * Properties of the metrics recorded by {@link MeteredJsonMask} and {@link MaskerHitCounter}.
+     */
+    public static class Metrics {
+
+        /**
+         * Whether metrics are recorded.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The percentiles of the masking time to publish.
+         */
+        private List<Double> percentiles = List.of(0.5, 0.95, 0.99);
+
+        /**
+         * Whether a percentile histogram of the masking time is published, for aggregation in the monitoring system.
+         */
+        private boolean percentileHistogram;
+
+        /**
+         * Whether the sizes of the masked inputs and outputs are recorded.
+         */
+        private boolean payloadSize = true;
+
+        /**
+         * Whether the values masked by each masker are counted.
+         */
+        private boolean maskerHits = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<Double> getPercentiles() {
+            return percentiles;
+        }
+
+        public void setPercentiles(List<Double> percentiles) {
+            this.percentiles = percentiles;
+        }
+
+        public boolean isPercentileHistogram() {
+            return percentileHistogram;
+        }
+
+        public void setPercentileHistogram(boolean percentileHistogram) {
+            this.percentileHistogram = percentileHistogram;
+        }
+
+        public boolean isPayloadSize() {
+            return payloadSize;
+        }
+
+        public void setPayloadSize(boolean payloadSize) {
+            this.payloadSize = payloadSize;
+        }
+
+        public boolean isMaskerHits() {
+            return maskerHits;
+        }
+
+        public void setMaskerHits(boolean maskerHits) {
+            this.maskerHits = maskerHits;
+        }
+    }
+
+    /**
+     * Properties of masking batches with {@code JsonMask#maskAll}.
+     */
+    public static class Batch {
+
+        /**
+         * The parallelism of a dedicated fork-join pool masking batches,
+         * the common fork-join pool is used if it is not set.
+         */
+        private Integer parallelism;
+
+        /**
+         * The number of inputs of a batch masked by one task.
+         */
+        private int chunkSize = 64;
+
+        public Integer getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(Integer parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Properties of masking with {@code AsyncJsonMask} and {@link ReactiveJsonMask}.
+     */
+    public static class Async {
+
+        /**
+         * Whether the asynchronous JSON masks are created when Reactor is on the classpath.
+         */
+        private boolean enabled;
+
+        /**
+         * The size of inputs masked on the calling thread, in characters or bytes.
+         */
+        private int inlineThreshold = AsyncJsonMask.DEFAULT_INLINE_THRESHOLD;
+
+        /**
+         * Whether larger inputs are masked by virtual threads on Java 21 and later.
+         */
+        private boolean virtualThreads = true;
+
+        /**
+         * The number of threads of the worker pool, the number of available processors if it is not set.
+         */
+        private Integer workers;
+
+        /**
+         * The number of inputs waiting for a thread of the worker pool.
+         */
+        private int queueCapacity = AsyncJsonMask.DEFAULT_QUEUE_CAPACITY;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInlineThreshold() {
+            return inlineThreshold;
+        }
+
+        public void setInlineThreshold(int inlineThreshold) {
+            this.inlineThreshold = inlineThreshold;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+
+        public Integer getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(Integer workers) {
+            this.workers = workers;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Properties of the cache of masked results, see {@code JsonMaskImpl.Builder#cache}.
+     */
+    public static class Cache {
+
+        /**
+         * Whether the results of repeated identical inputs are cached.
+         */
+        private boolean enabled;
+
+        /**
+         * The maximum number of cached results.
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * The maximum estimated size of the cached results in bytes.
+         */
+        private long maxBytes = 64L * 1024 * 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    /**
+     * Properties of the {@code tokenize-masker}, see {@code MapFunctions#tokenize}.
+     */
+    public static class Tokenize {
+
+        /**
+         * The secret HMAC key, the masker is registered only if it is set.
+         */
+        private String key;
+
+        /**
+         * The number of characters of a token, from 1 to 32.
+         */
+        private int tokenLength = MapFunctions.DEFAULT_TOKEN_LENGTH;
+
+        /**
+         * The number of tokens of the most recently used values memoized per thread, 0 to disable memoization.
+         */
+        private int memoSize = MapFunctions.DEFAULT_TOKEN_MEMO_SIZE;
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public int getTokenLength() {
+            return tokenLength;
+        }
+
+        public void setTokenLength(int tokenLength) {
+            this.tokenLength = tokenLength;
+        }
+
+        public int getMemoSize() {
+            return memoSize;
+        }
+
+        public void setMemoSize(int memoSize) {
+            this.memoSize = memoSize;
+        }
+    }
+
+    /**
+     * Properties of {@link JsonBodyMaskingFilter}.
+     */
+    public static class Web {
+
+        /**
+         * Whether the masked JSON bodies of servlet requests and responses are logged.
+         */
+        private boolean enabled;
+
+        /**
+         * The maximum number of bytes captured from each body, larger bodies are not logged.
+         */
+        private int maxBodySize = 16 * 1024;
+
+        /**
+         * The number of threads masking bodies.
+         */
+        private int threads = 1;
+
+        /**
+         * The number of exchanges waiting to be masked, further exchanges are not logged.
+         */
+        private int queueCapacity = 1024;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Properties of the limits on the masked JSON data, see {@code MaskLimits}. Limits are not set by default.
+     */
+    public static class Limits {
+
+        /**
+         * The maximum length of an input in characters, or in bytes for byte arrays and streams.
+         */
+        private Integer maxInputLength;
+
+        /**
+         * The maximum nesting depth of objects and arrays.
+         */
+        private Integer maxDepth;
+
+        /**
+         * The maximum number of values of a document.
+         */
+        private Integer maxNodes;
+
+        /**
+         * The time budget of masking one input.
+         */
+        private Duration timeBudget;
+
+        /**
+         * How a document exceeding a limit is handled.
+         */
+        private MaskLimits.Fallback fallback = MaskLimits.Fallback.FAIL;
+
+        /**
+         * The JSON returned instead of a document exceeding a limit with the REDACT fallback.
+         */
+        private String placeholder = MaskLimits.DEFAULT_PLACEHOLDER;
+
+        public Integer getMaxInputLength() {
+            return maxInputLength;
+        }
+
+        public void setMaxInputLength(Integer maxInputLength) {
+            this.maxInputLength = maxInputLength;
+        }
+
+        public Integer getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(Integer maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public Integer getMaxNodes() {
+            return maxNodes;
+        }
+
+        public void setMaxNodes(Integer maxNodes) {
+            this.maxNodes = maxNodes;
+        }
+
+        public Duration getTimeBudget() {
+            return timeBudget;
+        }
+
+        public void setTimeBudget(Duration timeBudget) {
+            this.timeBudget = timeBudget;
+        }
+
+        public MaskLimits.Fallback getFallback() {
+            return fallback;
+        }
+
+        public void setFallback(MaskLimits.Fallback fallback) {
+            this.fallback = fallback;
+        }
+
+        public String getPlaceholder() {
+            return placeholder;
+        }
+
+        public void setPlaceholder(String placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        /**
+         * Builds the limits configured by these properties.
+         *
+         * @return the limits.
+         */
+        public MaskLimits toMaskLimits() {
+            MaskLimits.Builder builder = MaskLimits.builder()
+                    .fallback(fallback)
+                    .placeholder(placeholder);
+            if (maxInputLength != null) {
+                builder.maxInputLength(maxInputLength);
+            }
+            if (maxDepth != null) {
+                builder.maxDepth(maxDepth);
+            }
+            if (maxNodes != null) {
+                builder.maxNodes(maxNodes);
+            }
+            if (timeBudget != null) {
+                builder.timeBudget(timeBudget);
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * Properties of reloading the masking rules with {@link JsonMaskReloader}.
+     */
+    public static class Reload {
+
+        /**
+         * Whether the masking rules are reloaded when the rules file or the environment changes.
+         */
+        private boolean enabled;
+
+        /**
+         * The path of a YAML file with {@code json-mask} properties, layered over the other property sources.
+         */
+        private String location;
+
+        /**
+         * The interval of checking the rules file for changes.
+         */
+        private Duration interval = Duration.ofSeconds(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+    }
+
+    /**
+     * Properties of warming up the JIT compiler with {@link JsonMaskWarmUp}.
+     */
+    public static class WarmUp {
+
+        /**
+         * Whether sample payloads are masked at startup, before the application reports it is ready.
+         */
+        private boolean enabled;
+
+        /**
+         * The number of times each payload is masked.
+         */
+        private int iterations = 2_000;
+
+        /**
+         * The resources of the sample payloads, the payloads of the starter by default.
+         */
+        private List<String> payloads = List.of(JsonMaskWarmUp.DEFAULT_PAYLOADS);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public List<String> getPayloads() {
+            return payloads;
+        }
+
+        public void setPayloads(List<String> payloads) {
+            this.payloads = payloads;
+        }
+    }
 }
@@ -0,0 +1,234 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.CacheStats;
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.ReloadableJsonMask;
+import com.jayway.jsonpath.InvalidJsonException;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@link JsonMask} decorator recording metrics of the masked data:
+ * <ul>
+ *     <li>{@code json.mask} - the time spent masking, with the configured percentiles;</li>
+ *     <li>{@code json.mask.input.size} and {@code json.mask.output.size} - the length of masked strings
+ *     in characters and of byte arrays in bytes, streams and documents are not measured;</li>
+ *     <li>{@code json.mask.failures} - the number of inputs that are not valid JSON;</li>
+ *     <li>{@code json.mask.cache.hits}, {@code json.mask.cache.misses} and {@code json.mask.cache.evictions} -
+ *     the statistics of the result cache of a {@link JsonMaskImpl}, if it is enabled, which restart when the rules
+ *     of a {@link ReloadableJsonMask} are reloaded.</li>
+ * </ul>
+ * All meters are registered when the decorator is created, so recording does not allocate.
+ *
+ * @author Vladimir Rudnev
+ */
+public class MeteredJsonMask implements JsonMask {
+
+    /**
+     * The name of the masking timer.
+     */
+    public static final String TIMER = "json.mask";
+
+    /**
+     * The name of the distribution summary of input sizes.
+     */
+    public static final String INPUT_SIZE = "json.mask.input.size";
+
+    /**
+     * The name of the distribution summary of output sizes.
+     */
+    public static final String OUTPUT_SIZE = "json.mask.output.size";
+
+    /**
+     * The name of the counter of inputs that failed to parse.
+     */
+    public static final String FAILURES = "json.mask.failures";
+
+    /**
+     * The name of the counter of results taken from the cache.
+     */
+    public static final String CACHE_HITS = "json.mask.cache.hits";
+
+    /**
+     * The name of the counter of results not found in the cache.
+     */
+    public static final String CACHE_MISSES = "json.mask.cache.misses";
+
+    /**
+     * The name of the counter of results evicted from the cache.
+     */
+    public static final String CACHE_EVICTIONS = "json.mask.cache.evictions";
+
+    private final JsonMask delegate;
+    private final Clock clock;
+    private final Timer timer;
+    private final DistributionSummary inputSize;
+    private final DistributionSummary outputSize;
+    private final Counter failures;
+
+    /**
+     * Constructs a new {@code MeteredJsonMask} registering its meters in the specified registry.
+     *
+     * @param delegate   the decorated JSON mask.
+     * @param registry   the meter registry.
+     * @param properties the metrics properties.
+     */
+    public MeteredJsonMask(JsonMask delegate, MeterRegistry registry, MaskerProperties.Metrics properties) {
+        this.delegate = delegate;
+        this.clock = registry.config().clock();
+        this.timer = Timer.builder(TIMER)
+                .description("The time spent masking JSON data")
+                .publishPercentiles(properties.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray())
+                .publishPercentileHistogram(properties.isPercentileHistogram())
+                .register(registry);
+        this.inputSize = properties.isPayloadSize() ? DistributionSummary.builder(INPUT_SIZE)
+                .description("The size of JSON data before masking")
+                .register(registry) : null;
+        this.outputSize = properties.isPayloadSize() ? DistributionSummary.builder(OUTPUT_SIZE)
+                .description("The size of JSON data after masking")
+                .register(registry) : null;
+        this.failures = Counter.builder(FAILURES)
+                .description("The number of inputs that are not valid JSON")
+                .register(registry);
+        if (cacheStats(delegate).isPresent()) {
+            registerCacheCounter(registry, delegate, CACHE_HITS, "The number of results taken from the cache",
+                    CacheStats::getHits);
+            registerCacheCounter(registry, delegate, CACHE_MISSES, "The number of results not found in the cache",
+                    CacheStats::getMisses);
+            registerCacheCounter(registry, delegate, CACHE_EVICTIONS, "The number of results evicted from the cache",
+                    CacheStats::getEvictions);
+        }
+    }
+
+    private static void registerCacheCounter(MeterRegistry registry, JsonMask jsonMask, String name,
+                                             String description, ToLongFunction<CacheStats> statistic) {
+        FunctionCounter.builder(name, jsonMask, mask -> cacheStats(mask).map(statistic::applyAsLong).orElse(0L))
+                .description(description)
+                .register(registry);
+    }
+
+    /**
+     * Returns the statistics of the result cache of the mask, or of the current mask of a {@link ReloadableJsonMask}.
+     */
+    private static Optional<CacheStats> cacheStats(JsonMask jsonMask) {
+        JsonMask current = jsonMask instanceof ReloadableJsonMask ? ((ReloadableJsonMask) jsonMask).get() : jsonMask;
+        return current instanceof JsonMaskImpl ? ((JsonMaskImpl) current).getCacheStats() : Optional.empty();
+    }
+
+    @Override
+    public String mask(String input) {
+        long start = clock.monotonicTime();
+        try {
+            String result = delegate.mask(input);
+            recordSizes(input.length(), result.length());
+            return result;
+        } catch (InvalidJsonException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public byte[] mask(byte[] input) {
+        long start = clock.monotonicTime();
+        try {
+            byte[] result = delegate.mask(input);
+            recordSizes(input.length, result.length);
+            return result;
+        } catch (InvalidJsonException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void mask(InputStream input, OutputStream output) throws IOException {
+        long start = clock.monotonicTime();
+        try {
+            delegate.mask(input, output);
+        } catch (InvalidJsonException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void mask(Reader input, Writer output) throws IOException {
+        long start = clock.monotonicTime();
+        try {
+            delegate.mask(input, output);
+        } catch (InvalidJsonException e) {
+            failures.increment();
+            throw e;
+        } finally {
+            timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Masks the batch with the decorated JSON mask, so it can be masked in parallel.
+     * The sizes of the inputs and outputs are recorded, the time is not.
+     */
+    @Override
+    public List<String> maskAll(List<String> inputs) {
+        List<String> results;
+        try {
+            results = delegate.maskAll(inputs);
+        } catch (InvalidJsonException e) {
+            failures.increment();
+            throw e;
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            recordSizes(inputs.get(i).length(), results.get(i).length());
+        }
+        return results;
+    }
+
+    @Override
+    public Map<String, Object> mask(Map<String, Object> document) {
+        long start = clock.monotonicTime();
+        try {
+            return delegate.mask(document);
+        } finally {
+            timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the decorated JSON mask.
+     *
+     * @return the decorated JSON mask.
+     */
+    public JsonMask getDelegate() {
+        return delegate;
+    }
+
+    private void recordSizes(int input, int output) {
+        if (inputSize != null) {
+            inputSize.record(input);
+            outputSize.record(output);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.AsyncJsonMask;
+import reactor.core.publisher.Mono;
+
+/**
+ * Masks JSON data in reactive pipelines with an {@link AsyncJsonMask}. Masking starts on subscription,
+ * small inputs are masked on the subscribing thread and large ones off the event loop.
+ *
+ * @author Vladimir Rudnev
+ */
+public class ReactiveJsonMask {
+
+    private final AsyncJsonMask asyncJsonMask;
+
+    /**
+     * Constructs a new {@code ReactiveJsonMask} masking JSON data with the specified asynchronous mask.
+     *
+     * @param asyncJsonMask the asynchronous JSON mask.
+     */
+    public ReactiveJsonMask(AsyncJsonMask asyncJsonMask) {
+        this.asyncJsonMask = asyncJsonMask;
+    }
+
+    /**
+     * Masks the specified JSON input according to the configured filters.
+     *
+     * @param input the JSON data to be masked.
+     * @return a {@link Mono} of the masked JSON data, failing with
+     * {@link com.jayway.jsonpath.InvalidJsonException} if the input is not valid JSON.
+     */
+    public Mono<String> mask(String input) {
+        return Mono.fromFuture(() -> asyncJsonMask.mask(input));
+    }
+
+    /**
+     * Masks the specified UTF-8 encoded JSON input according to the configured filters.
+     *
+     * @param input the UTF-8 encoded JSON data to be masked.
+     * @return a {@link Mono} of the UTF-8 encoded masked JSON data, failing with
+     * {@link com.jayway.jsonpath.InvalidJsonException} if the input is not valid JSON.
+     */
+    public Mono<byte[]> mask(byte[] input) {
+        return Mono.fromFuture(() -> asyncJsonMask.mask(input));
+    }
+}
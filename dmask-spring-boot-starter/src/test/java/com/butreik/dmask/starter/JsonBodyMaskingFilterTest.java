@@ -0,0 +1,132 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.Masker;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.butreik.dmask.core.Maskers.SECRET_MASKER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonBodyMaskingFilterTest {
+
+    private static final JsonMask JSON_MASK = JsonMaskImpl.builder()
+            .filter(SECRET_MASKER, "$..password")
+            .build();
+
+    private final List<String> logged = new ArrayList<>();
+
+    private final JsonBodyMaskingFilter filter = new JsonBodyMaskingFilter(JSON_MASK, Runnable::run,
+            (method, uri, status, requestBody, responseBody) ->
+                    logged.add(method + " " + uri + " " + status + " " + requestBody + " " + responseBody), 64);
+
+    @Test
+    public void maskJsonBodiesTest() throws ServletException, IOException {
+        MockHttpServletRequest request = request("application/json", "{\"password\": \"Qwerty123\"}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new EchoServlet("application/json;charset=UTF-8")));
+
+        assertEquals("{\"password\": \"Qwerty123\"}", response.getContentAsString());
+        assertEquals(List.of("POST /login 200 {\"password\":\"******\"} {\"password\":\"******\"}"), logged);
+    }
+
+    @Test
+    public void skipNonJsonBodiesTest() throws ServletException, IOException {
+        MockHttpServletRequest request = request("text/plain", "password=Qwerty123");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new EchoServlet("text/plain")));
+
+        assertTrue(logged.isEmpty());
+        assertTrue(JsonBodyMaskingFilter.isJson("application/problem+json; charset=UTF-8"));
+        assertFalse(JsonBodyMaskingFilter.isJson("application/jsonp"));
+    }
+
+    @Test
+    public void largeAndInvalidBodiesTest() throws ServletException, IOException {
+        String large = "{\"password\": \"" + "x".repeat(64) + "\"}";
+        MockHttpServletRequest request = request("application/json", large);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.getInputStream().readAllBytes();
+                resp.setContentType("application/json");
+                resp.getWriter().write("{\"password\": ");
+            }
+        }));
+
+        assertEquals(List.of("POST /login 200 " + JsonBodyMaskingFilter.TRUNCATED + " " + JsonBodyMaskingFilter.INVALID),
+                logged);
+    }
+
+    @Test
+    public void declaredCharsetTest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setContentType("application/json; charset=\"ISO-8859-1\"");
+        request.setContent("{\"name\": \"J\u00fcrgen\", \"password\": \"Qwerty123\"}"
+                .getBytes(StandardCharsets.ISO_8859_1));
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new EchoServlet("text/plain")));
+
+        assertEquals(List.of("POST /login 200 {\"name\":\"J\u00fcrgen\",\"password\":\"******\"} null"), logged);
+        assertEquals(StandardCharsets.ISO_8859_1, JsonBodyMaskingFilter.charset("application/json;charset=iso-8859-1"));
+        assertEquals(StandardCharsets.UTF_8, JsonBodyMaskingFilter.charset("application/json;charset=unknown"));
+    }
+
+    @Test
+    public void failedMaskingTest() throws ServletException, IOException {
+        JsonMask failingMask = JsonMaskImpl.builder()
+                .filter(Masker.builder().name("failing-masker").mapFunction(input -> {
+                    throw new IllegalStateException("Cannot mask");
+                }).build(), "$..password")
+                .build();
+        JsonBodyMaskingFilter failingFilter = new JsonBodyMaskingFilter(failingMask, Runnable::run,
+                (method, uri, status, requestBody, responseBody) -> logged.add(requestBody), 64);
+
+        failingFilter.doFilter(request("application/json", "{\"password\": \"Qwerty123\"}"),
+                new MockHttpServletResponse(), new MockFilterChain(new EchoServlet("text/plain")));
+
+        assertEquals(List.of(JsonBodyMaskingFilter.FAILED), logged);
+    }
+
+    private static MockHttpServletRequest request(String contentType, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setContentType(contentType);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /**
+     * Writes the request body back with the specified content type.
+     */
+    private static class EchoServlet extends HttpServlet {
+        private final String contentType;
+
+        private EchoServlet(String contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            String body = req.getReader().readLine();
+            resp.setContentType(contentType);
+            resp.getWriter().write(body);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.butreik.dmask.starter.MaskAutoConfigurationTest.load;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        properties = {"json-mask.batch.parallelism=2", "json-mask.batch.chunk-size=4"})
+public class MaskAutoConfigurationBatchTest {
+
+    private static final String INPUT_JSON_FILE = "input.json";
+    private static final String OUTPUT_JSON_FILE = "output.json";
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Autowired
+    private MaskAutoConfiguration.BatchPoolConfigurer jsonMaskBatchConfigurer;
+
+    @Autowired
+    private ObjectProvider<Executor> executors;
+
+    @Test
+    public void jsonMaskBatchTest() throws JSONException {
+        String inputJson = load(INPUT_JSON_FILE);
+        String outputJson = load(OUTPUT_JSON_FILE);
+
+        List<String> results = jsonMask.maskAll(Collections.nCopies(20, inputJson));
+
+        assertEquals(2, jsonMaskBatchConfigurer.getPool().getParallelism());
+        assertEquals(0, executors.stream().count());
+        assertEquals(20, results.size());
+        for (String result : results) {
+            JSONAssert.assertEquals(outputJson, result, true);
+        }
+    }
+}
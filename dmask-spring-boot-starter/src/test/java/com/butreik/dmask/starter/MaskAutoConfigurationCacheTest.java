@@ -0,0 +1,39 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.butreik.dmask.starter.MaskAutoConfigurationTest.load;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class,
+        MaskAutoConfigurationMetricsTest.MetricsConfig.class},
+        properties = {"json-mask.cache.enabled=true", "json-mask.cache.max-entries=100"})
+public class MaskAutoConfigurationCacheTest {
+
+    private static final String INPUT_JSON_FILE = "input.json";
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void jsonMaskCacheTest() {
+        String inputJson = load(INPUT_JSON_FILE);
+
+        String result = jsonMask.mask(inputJson);
+
+        assertEquals(result, jsonMask.mask(inputJson));
+        assertEquals(1, meterRegistry.get(MeteredJsonMask.CACHE_HITS).functionCounter().count());
+        assertEquals(1, meterRegistry.get(MeteredJsonMask.CACHE_MISSES).functionCounter().count());
+        assertEquals(0, meterRegistry.get(MeteredJsonMask.CACHE_EVICTIONS).functionCounter().count());
+    }
+}
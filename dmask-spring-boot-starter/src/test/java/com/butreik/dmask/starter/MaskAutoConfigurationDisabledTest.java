@@ -1,17 +1,24 @@
 package com.butreik.dmask.starter;
 
 import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.MaskModule;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.nio.charset.StandardCharsets;
+
 import static com.butreik.dmask.starter.MaskAutoConfigurationTest.load;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest(properties = {"json-mask.enabled=false"}, classes = MaskAutoConfiguration.class)
+@SpringBootTest(properties = {"json-mask.enabled=false", "json-mask.web.enabled=true"},
+        classes = MaskAutoConfiguration.class)
 public class MaskAutoConfigurationDisabledTest {
 
     private static final String INPUT_JSON_FILE = "input.json";
@@ -19,10 +26,33 @@ public class MaskAutoConfigurationDisabledTest {
     @Autowired
     private JsonMask jsonMask;
 
+    @Autowired
+    private ObjectProvider<JsonBodyMaskingFilter> jsonBodyMaskingFilter;
+
+    @Autowired
+    private ObjectProvider<MaskModule> jsonMaskModule;
+
     @Test
     public void jsonMaskDisabledTest() {
         String inputJson = load(INPUT_JSON_FILE);
         String result = jsonMask.mask(inputJson);
         assertEquals(inputJson, result);
     }
+
+    @Test
+    public void jsonMaskDisabledBytesTest() {
+        byte[] inputJson = load(INPUT_JSON_FILE).getBytes(StandardCharsets.UTF_8);
+        byte[] result = jsonMask.mask(inputJson);
+        assertSame(inputJson, result);
+    }
+
+    @Test
+    public void webDisabledTest() {
+        assertNull(jsonBodyMaskingFilter.getIfAvailable());
+    }
+
+    @Test
+    public void jacksonModuleDisabledTest() {
+        assertNull(jsonMaskModule.getIfAvailable());
+    }
 }
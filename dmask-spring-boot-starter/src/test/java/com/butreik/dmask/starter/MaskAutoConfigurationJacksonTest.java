@@ -0,0 +1,66 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.Mask;
+import com.butreik.dmask.core.MaskModule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.butreik.dmask.starter.MaskAutoConfigurationTest.load;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class,
+        MaskAutoConfigurationJacksonTest.JacksonConfig.class}, properties = "json-mask.jackson.enabled=true")
+public class MaskAutoConfigurationJacksonTest {
+
+    private static final String INPUT_JSON_FILE = "input.json";
+    private static final String OUTPUT_JSON_FILE = "output.json";
+
+    @TestConfiguration
+    public static class JacksonConfig {
+        @Bean
+        public ObjectMapper objectMapper(MaskModule maskModule) {
+            // the module is created before the mask that uses this ObjectMapper
+            return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).registerModule(maskModule);
+        }
+    }
+
+    public static class Contact {
+        @Mask(masker = "phone-masker")
+        public String phone = "79001234523";
+        @Mask(masker = "secret-masker")
+        public String password = "Qwerty123";
+    }
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void jsonMaskWithObjectMapperTest() throws JSONException {
+        String inputJson = load(INPUT_JSON_FILE);
+        String outputJson = load(OUTPUT_JSON_FILE);
+        String result = jsonMask.mask(inputJson);
+        JSONAssert.assertEquals(outputJson, result, true);
+        assertTrue(result.contains("\n"), "the ObjectMapper bean is not used");
+    }
+
+    @Test
+    public void maskModuleTest() throws JSONException, JsonProcessingException {
+        JSONAssert.assertEquals("{\"phone\":\"79*******23\",\"password\":\"******\"}",
+                objectMapper.writeValueAsString(new Contact()), true);
+    }
+}
@@ -0,0 +1,26 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        properties = {"json-mask.keys.secret-masker[0]=token", "json-mask.keys.phone-masker[0]=mobile",
+                "json-mask.ignore-key-case=true"})
+public class MaskAutoConfigurationKeysTest {
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Test
+    public void jsonMaskKeysTest() {
+        assertEquals("{\"Token\":\"******\",\"contact\":{\"MOBILE\":\"79*******23\"},\"password\":\"******\"}",
+                jsonMask.mask("{\"Token\":\"abc\",\"contact\":{\"MOBILE\":\"79001234523\"},\"password\":\"Qwerty123\"}"));
+    }
+}
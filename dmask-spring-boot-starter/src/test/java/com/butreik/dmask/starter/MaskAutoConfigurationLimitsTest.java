@@ -0,0 +1,26 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        properties = {"json-mask.limits.max-depth=2", "json-mask.limits.time-budget=1s",
+                "json-mask.limits.fallback=redact", "json-mask.limits.placeholder={}"})
+public class MaskAutoConfigurationLimitsTest {
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Test
+    public void jsonMaskLimitsTest() {
+        assertEquals("{\"password\":\"******\"}", jsonMask.mask("{\"password\": \"Qwerty123\"}"));
+        assertEquals("{}", jsonMask.mask("{\"password\": [[\"Qwerty123\"]]}"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.JsonMaskImpl;
+import com.butreik.dmask.core.Maskers;
+import com.jayway.jsonpath.InvalidJsonException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.butreik.dmask.starter.MaskAutoConfigurationTest.load;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class,
+        MaskAutoConfigurationMetricsTest.MetricsConfig.class})
+public class MaskAutoConfigurationMetricsTest {
+
+    private static final String INPUT_JSON_FILE = "input.json";
+
+    @TestConfiguration
+    public static class MetricsConfig {
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public JsonMaskImpl customJsonMask() {
+            return JsonMaskImpl.builder().filter(Maskers.SECRET_MASKER, "$.token").build();
+        }
+    }
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Autowired
+    private JsonMaskImpl customJsonMask;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void jsonMaskMetricsTest() {
+        String inputJson = load(INPUT_JSON_FILE);
+        String result = jsonMask.mask(inputJson);
+        assertThrows(InvalidJsonException.class, () -> jsonMask.mask("{\"password\": "));
+
+        assertInstanceOf(MeteredJsonMask.class, jsonMask);
+        assertEquals(2, meterRegistry.get(MeteredJsonMask.TIMER).timer().count());
+        assertEquals(inputJson.length(), meterRegistry.get(MeteredJsonMask.INPUT_SIZE).summary().totalAmount());
+        assertEquals(result.length(), meterRegistry.get(MeteredJsonMask.OUTPUT_SIZE).summary().totalAmount());
+        assertEquals(1, meterRegistry.get(MeteredJsonMask.FAILURES).counter().count());
+        assertEquals(1, meterRegistry.get(MaskerHitCounter.HITS).tag("masker", "secret-masker").counter().count());
+        assertEquals(1, meterRegistry.get(MaskerHitCounter.HITS).tag("masker", "remove-masker").counter().count());
+    }
+
+    @Test
+    public void userJsonMaskNotDecoratedTest() {
+        assertEquals("{\"password\":\"Qwerty123\"}", customJsonMask.mask("{\"password\":\"Qwerty123\"}"));
+    }
+}
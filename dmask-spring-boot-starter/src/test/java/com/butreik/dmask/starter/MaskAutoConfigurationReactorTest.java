@@ -0,0 +1,42 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.AsyncJsonMask;
+import com.jayway.jsonpath.InvalidJsonException;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+
+import static com.butreik.dmask.starter.MaskAutoConfigurationTest.load;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        properties = {"json-mask.async.enabled=true", "json-mask.async.inline-threshold=16",
+                "json-mask.async.workers=2"})
+public class MaskAutoConfigurationReactorTest {
+
+    private static final String INPUT_JSON_FILE = "input.json";
+    private static final String OUTPUT_JSON_FILE = "output.json";
+
+    @Autowired
+    private AsyncJsonMask asyncJsonMask;
+
+    @Autowired
+    private ReactiveJsonMask reactiveJsonMask;
+
+    @Test
+    public void reactiveJsonMaskTest() throws JSONException {
+        String inputJson = load(INPUT_JSON_FILE);
+        String outputJson = load(OUTPUT_JSON_FILE);
+
+        JSONAssert.assertEquals(outputJson, reactiveJsonMask.mask(inputJson).block(), true);
+        JSONAssert.assertEquals(outputJson, asyncJsonMask.mask(inputJson).join(), true);
+        Mono<String> invalid = reactiveJsonMask.mask("{\"password\": \"Qwerty123\"");
+        assertThrows(InvalidJsonException.class, invalid::block);
+    }
+}
@@ -0,0 +1,86 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        properties = {"json-mask.reload.enabled=true", "json-mask.reload.interval=50ms"})
+public class MaskAutoConfigurationReloadTest {
+
+    private static final String INPUT = "{\"password\":\"Qwerty123\",\"token\":\"abc\",\"code\":\"xyz\"}";
+
+    private static final Path RULES_FILE = createRulesFile();
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Autowired
+    private ConfigurableEnvironment environment;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @DynamicPropertySource
+    static void reloadProperties(DynamicPropertyRegistry registry) {
+        registry.add("json-mask.reload.location", RULES_FILE::toString);
+    }
+
+    @Test
+    public void jsonMaskReloadTest() throws Exception {
+        // the rules file replaces the secret-masker paths of bmask.yaml
+        assertEquals("{\"password\":\"Qwerty123\",\"token\":\"******\",\"code\":\"xyz\"}", jsonMask.mask(INPUT));
+
+        Files.writeString(RULES_FILE, "json-mask:\n  maskers:\n    secret-masker:\n      - $..code\n");
+        awaitResult("{\"password\":\"Qwerty123\",\"token\":\"abc\",\"code\":\"******\"}");
+
+        environment.getPropertySources().addFirst(new MapPropertySource("test",
+                Map.of("json-mask.maskers.remove-masker[0]", "$..token")));
+        eventPublisher.publishEvent(new EnvironmentChangeEvent(Set.of("json-mask.maskers.remove-masker[0]")));
+        awaitResult("{\"password\":\"Qwerty123\",\"code\":\"******\"}");
+
+        // invalid rules keep the current mask
+        Files.writeString(RULES_FILE, "json-mask:\n  maskers:\n    unknown-masker:\n      - $..code\n");
+        Thread.sleep(200);
+        assertEquals("{\"password\":\"Qwerty123\",\"code\":\"******\"}", jsonMask.mask(INPUT));
+    }
+
+    private void awaitResult(String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expected.equals(jsonMask.mask(INPUT)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, jsonMask.mask(INPUT));
+    }
+
+    private static Path createRulesFile() {
+        try {
+            Path file = Files.createTempFile("bmask", ".yaml");
+            file.toFile().deleteOnExit();
+            return Files.write(file, "json-mask:\n  maskers:\n    secret-masker:\n      - $..token\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.butreik.dmask.starter;
 
+import com.butreik.dmask.core.AsyncJsonMask;
 import com.butreik.dmask.core.JsonMask;
 import com.butreik.dmask.core.Masker;
 import org.json.JSONException;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -43,6 +46,9 @@ public class MaskAutoConfigurationTest {
     @Autowired
     private JsonMask jsonMask;
 
+    @Autowired
+    private ObjectProvider<AsyncJsonMask> asyncJsonMask;
+
     @Test
     public void jsonMaskTest() throws JSONException {
         String inputJson = load(INPUT_JSON_FILE);
@@ -51,6 +57,11 @@ public class MaskAutoConfigurationTest {
         JSONAssert.assertEquals(outputJson, result, true);
     }
 
+    @Test
+    public void asyncJsonMaskOptInTest() {
+        Assertions.assertNull(asyncJsonMask.getIfAvailable());
+    }
+
     public static String load(String resource) {
         Resource cpr = new ClassPathResource(resource);
         try (InputStream is = cpr.getInputStream()) {
@@ -0,0 +1,31 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import com.butreik.dmask.core.MapFunctions;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.nio.charset.StandardCharsets;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        properties = {"json-mask.tokenize.key=secret-key", "json-mask.maskers.tokenize-masker=$..customerId"})
+public class MaskAutoConfigurationTokenizeTest {
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Test
+    public void jsonMaskTokenizeTest() throws JSONException {
+        String token = (String) MapFunctions.tokenize("secret-key".getBytes(StandardCharsets.UTF_8)).map("C-42");
+
+        String result = jsonMask.mask("{\"customerId\": \"C-42\", \"password\": \"Qwerty123\"}");
+
+        JSONAssert.assertEquals("{\"customerId\": \"" + token + "\", \"password\": \"******\"}", result, true);
+    }
+}
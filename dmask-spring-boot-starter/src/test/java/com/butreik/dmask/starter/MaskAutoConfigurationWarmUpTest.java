@@ -0,0 +1,59 @@
+package com.butreik.dmask.starter;
+
+import com.butreik.dmask.core.JsonMask;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        properties = {"json-mask.warm-up.enabled=true", "json-mask.warm-up.iterations=3", "json-mask.cache.enabled=true"})
+public class MaskAutoConfigurationWarmUpTest {
+
+    @Autowired
+    private JsonMaskWarmUp jsonMaskWarmUp;
+
+    @Autowired
+    private JsonMask jsonMask;
+
+    @Test
+    public void jsonMaskWarmUpTest() {
+        // 4 sample payloads masked as a string and as bytes
+        assertEquals(24, jsonMaskWarmUp.run());
+        assertEquals("{\"password\":\"******\"}", jsonMask.mask("{\"password\": \"Qwerty123\"}"));
+    }
+
+    @Test
+    public void nativeImageHintsTest() throws IOException {
+        JsonNode hints;
+        try (InputStream input = getClass().getResourceAsStream(
+                "/META-INF/native-image/com.butreik.dmask/dmask-spring-boot-starter/reflect-config.json")) {
+            hints = new ObjectMapper().readTree(input);
+        }
+        Set<String> names = new HashSet<>();
+        hints.forEach(hint -> names.add(hint.get("name").asText()));
+        // the properties are bound by reflection, every nested class needs a hint
+        Set<String> properties = Stream.concat(Stream.of(MaskerProperties.class),
+                        Stream.of(MaskerProperties.class.getDeclaredClasses()))
+                .map(Class::getName)
+                .collect(Collectors.toSet());
+        assertTrue(names.containsAll(properties), () -> "Missing hints of " + properties);
+        Stream.of(MaskAutoConfiguration.class.getDeclaredClasses())
+                .filter(type -> type.isAnnotationPresent(org.springframework.context.annotation.Configuration.class))
+                .forEach(type -> assertTrue(names.contains(type.getName()), () -> "Missing hint of " + type));
+    }
+}
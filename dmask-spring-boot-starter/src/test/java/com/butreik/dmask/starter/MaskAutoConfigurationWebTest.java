@@ -0,0 +1,28 @@
+package com.butreik.dmask.starter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {MaskAutoConfiguration.class, MaskAutoConfigurationTest.TestConfig.class},
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = {"json-mask.web.enabled=true", "json-mask.web.max-body-size=1024"})
+public class MaskAutoConfigurationWebTest {
+
+    @Autowired
+    private JsonBodyMaskingFilter jsonBodyMaskingFilter;
+
+    @Autowired
+    private MaskedBodyLogger maskedBodyLogger;
+
+    @Test
+    public void jsonBodyMaskingFilterTest() {
+        assertNotNull(jsonBodyMaskingFilter);
+        assertNotNull(maskedBodyLogger);
+    }
+}